@@ -0,0 +1,193 @@
+package blackout.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+
+import unsw.blackout.BlackoutController;
+import unsw.blackout.FileTransferException;
+import unsw.utils.Angle;
+import unsw.utils.MathsHelper;
+
+/**
+ * Builds simulations of any size from a seed, so the same seed and settings
+ * always give exactly the same satellites, devices, files and transfers.
+ */
+public class ConstellationGenerator {
+  private static final String[] SATELLITE_TYPES = {"StandardSatellite", "TeleportingSatellite", "RelaySatellite"};
+  private static final String[] DEVICE_TYPES = {"HandheldDevice", "LaptopDevice", "DesktopDevice"};
+  private static final String FILE_CHARACTERS = "abcdefghijklmnopqrstuvwxyz ";
+  private static final double MIN_ALTITUDE = 5000;
+  private static final double MAX_ALTITUDE = 200000;
+  private static final double[] SHELL_ALTITUDES = {10000, 35000, 80000, 150000};
+  private static final int DEVICE_CLUSTERS = 8;
+
+  /**
+   * How satellite heights are spread out above Jupiter.
+   */
+  public enum HeightDistribution {
+    // evenly between the lowest and highest altitude
+    UNIFORM,
+    // bunched into a few thin shells, like real constellations
+    SHELLS,
+    // mostly close to the surface, thinning out further up
+    LOW_ORBIT
+  }
+
+  /**
+   * How devices are spread out around Jupiter.
+   */
+  public enum DevicePlacement {
+    UNIFORM,
+    // bunched around a few spots, so some satellites see far more devices
+    CLUSTERED
+  }
+
+  private long seed;
+  private HeightDistribution heightDistribution = HeightDistribution.UNIFORM;
+  private DevicePlacement devicePlacement = DevicePlacement.UNIFORM;
+  private double[] satelliteTypeWeights = {1, 1, 1};
+  private int filesPerDevice = 2;
+  private int minFileSize = 1;
+  private int maxFileSize = 64;
+  private int transfers;
+
+  public ConstellationGenerator(long seed) {
+    this.seed = seed;
+  }
+
+  public void setHeightDistribution(HeightDistribution heightDistribution) {
+    this.heightDistribution = heightDistribution;
+  }
+
+  public void setDevicePlacement(DevicePlacement devicePlacement) {
+    this.devicePlacement = devicePlacement;
+  }
+
+  /**
+   * Sets how likely each satellite type is, relative to the others.
+   */
+  public void setSatelliteTypeWeights(double standard, double teleporting, double relay) {
+    this.satelliteTypeWeights = new double[] {standard, teleporting, relay};
+  }
+
+  public void setFilesPerDevice(int filesPerDevice) {
+    this.filesPerDevice = filesPerDevice;
+  }
+
+  /**
+   * Sets the range that file sizes are picked from, in bytes.
+   */
+  public void setFileSize(int minFileSize, int maxFileSize) {
+    this.minFileSize = minFileSize;
+    this.maxFileSize = maxFileSize;
+  }
+
+  /**
+   * Sets how many transfers to try to start. Each one picks a random device
+   * file and sends it to a random satellite in range, so fewer may start if
+   * satellites run out of room or nothing is in range.
+   */
+  public void setTransfers(int transfers) {
+    this.transfers = transfers;
+  }
+
+  /**
+   * Builds a simulation. Satellites are called "Satellite0", "Satellite1", ...
+   * and devices "Device0", "Device1", ..., and every device file is called
+   * "File" followed by the device and file numbers.
+   *
+   * @param satelliteCount the number of satellites to create
+   * @param deviceCount    the number of devices to create
+   * @return the new simulation
+   */
+  public BlackoutController generate(int satelliteCount, int deviceCount) {
+    Random random = new Random(seed);
+    BlackoutController controller = new BlackoutController();
+
+    for (int i = 0; i < satelliteCount; i++) {
+      controller.createSatellite("Satellite" + i, pickSatelliteType(random),
+          MathsHelper.RADIUS_OF_JUPITER + pickAltitude(random), Angle.fromDegrees(random.nextDouble() * 360));
+    }
+
+    double[] clusters = new double[DEVICE_CLUSTERS];
+    for (int i = 0; i < clusters.length; i++) {
+      clusters[i] = random.nextDouble() * 360;
+    }
+    for (int i = 0; i < deviceCount; i++) {
+      String deviceId = "Device" + i;
+      controller.createDevice(deviceId, DEVICE_TYPES[random.nextInt(DEVICE_TYPES.length)],
+          Angle.fromDegrees(pickDeviceAngle(random, clusters)));
+      for (int file = 0; file < filesPerDevice; file++) {
+        controller.addFileToDevice(deviceId, "File" + i + "_" + file, createContent(random));
+      }
+    }
+
+    if (deviceCount > 0 && filesPerDevice > 0) {
+      for (int i = 0; i < transfers; i++) {
+        startTransfer(controller, random, deviceCount);
+      }
+    }
+    return controller;
+  }
+
+  private void startTransfer(BlackoutController controller, Random random, int deviceCount) {
+    int device = random.nextInt(deviceCount);
+    String deviceId = "Device" + device;
+    List<String> inRange = controller.communicableEntitiesInRange(deviceId);
+    if (inRange.isEmpty()) {
+      return;
+    }
+
+    String fileName = "File" + device + "_" + random.nextInt(filesPerDevice);
+    try {
+      controller.sendFile(fileName, deviceId, inRange.get(random.nextInt(inRange.size())));
+    } catch (FileTransferException e) {
+      // the satellite picked is full or busy, which is fine for a workload
+    }
+  }
+
+  private String pickSatelliteType(Random random) {
+    double total = 0;
+    for (double weight : satelliteTypeWeights) {
+      total += weight;
+    }
+
+    double pick = random.nextDouble() * total;
+    for (int i = 0; i < SATELLITE_TYPES.length; i++) {
+      pick -= satelliteTypeWeights[i];
+      if (pick < 0) {
+        return SATELLITE_TYPES[i];
+      }
+    }
+    return SATELLITE_TYPES[0];
+  }
+
+  private double pickAltitude(Random random) {
+    switch (heightDistribution) {
+    case SHELLS:
+      return SHELL_ALTITUDES[random.nextInt(SHELL_ALTITUDES.length)] + random.nextGaussian() * 500;
+    case LOW_ORBIT:
+      double fraction = random.nextDouble();
+      return MIN_ALTITUDE + (MAX_ALTITUDE - MIN_ALTITUDE) * fraction * fraction * fraction;
+    default:
+      return MIN_ALTITUDE + (MAX_ALTITUDE - MIN_ALTITUDE) * random.nextDouble();
+    }
+  }
+
+  private double pickDeviceAngle(Random random, double[] clusters) {
+    if (devicePlacement == DevicePlacement.CLUSTERED) {
+      double angle = clusters[random.nextInt(clusters.length)] + random.nextGaussian() * 5;
+      return (angle % 360 + 360) % 360;
+    }
+    return random.nextDouble() * 360;
+  }
+
+  private String createContent(Random random) {
+    int size = minFileSize + random.nextInt(maxFileSize - minFileSize + 1);
+    char[] content = new char[size];
+    for (int i = 0; i < size; i++) {
+      content[i] = FILE_CHARACTERS.charAt(random.nextInt(FILE_CHARACTERS.length()));
+    }
+    return new String(content);
+  }
+}
@@ -0,0 +1,85 @@
+package blackout.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import unsw.utils.Angle;
+import unsw.utils.MathsHelper;
+
+/**
+ * Measures the distance and visibility helpers that every range check goes
+ * through, comparing the Angle overloads with the primitive ones.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GeometryBenchmark {
+  private static final int POINTS = 1024;
+
+  private double[] heights = new double[POINTS];
+  private double[] radians = new double[POINTS];
+  private Angle[] angles = new Angle[POINTS];
+  private double[] xs = new double[POINTS];
+  private double[] ys = new double[POINTS];
+  private int next;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    for (int i = 0; i < POINTS; i++) {
+      heights[i] = MathsHelper.RADIUS_OF_JUPITER + random.nextDouble() * 200000;
+      radians[i] = random.nextDouble() * 2 * Math.PI;
+      angles[i] = Angle.fromRadians(radians[i]);
+      xs[i] = Math.cos(radians[i]) * heights[i];
+      ys[i] = Math.sin(radians[i]) * heights[i];
+    }
+  }
+
+  @Benchmark
+  public double distanceFromAngles() {
+    int first = nextPoint();
+    int second = nextPoint();
+    return MathsHelper.getDistance(heights[first], angles[first], heights[second], angles[second]);
+  }
+
+  @Benchmark
+  public double distanceFromRadians() {
+    int first = nextPoint();
+    int second = nextPoint();
+    return MathsHelper.getDistance(heights[first], radians[first], heights[second], radians[second]);
+  }
+
+  @Benchmark
+  public boolean visibleFromAngles() {
+    int first = nextPoint();
+    int second = nextPoint();
+    return MathsHelper.isVisible(heights[first], angles[first], heights[second], angles[second]);
+  }
+
+  @Benchmark
+  public boolean visibleFromRadians() {
+    int first = nextPoint();
+    int second = nextPoint();
+    return MathsHelper.isVisible(heights[first], radians[first], heights[second], radians[second]);
+  }
+
+  @Benchmark
+  public boolean visibleFromCartesian() {
+    int first = nextPoint();
+    int second = nextPoint();
+    return MathsHelper.isCartesianVisible(xs[first], ys[first], xs[second], ys[second]);
+  }
+
+  private int nextPoint() {
+    next = (next + 1) & (POINTS - 1);
+    return next;
+  }
+}
@@ -0,0 +1,82 @@
+package blackout.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import unsw.blackout.RelaySatellite;
+import unsw.blackout.Satellite;
+import unsw.blackout.StandardSatellite;
+import unsw.blackout.TeleportingSatellite;
+import unsw.utils.Angle;
+import unsw.utils.MathsHelper;
+
+/**
+ * Measures moving every satellite in a constellation, both minute by minute and
+ * with the closed form jump used when simulating many minutes at once.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MotionBenchmark {
+  @Param({ "10", "1000", "100000" })
+  private int satelliteCount;
+
+  @Param({ "StandardSatellite", "TeleportingSatellite", "RelaySatellite", "Mixed" })
+  private String satelliteType;
+
+  private Satellite[] satellites;
+
+  @Setup
+  public void setUp() {
+    String[] types = {"StandardSatellite", "TeleportingSatellite", "RelaySatellite"};
+    Random random = new Random(42);
+    satellites = new Satellite[satelliteCount];
+    for (int i = 0; i < satelliteCount; i++) {
+      String type = satelliteType.equals("Mixed") ? types[i % types.length] : satelliteType;
+      double height = MathsHelper.RADIUS_OF_JUPITER + 5000 + random.nextDouble() * 150000;
+      satellites[i] = createSatellite("Satellite" + i, type, height, Angle.fromDegrees(random.nextDouble() * 360));
+    }
+  }
+
+  @Benchmark
+  public void moveByOneMinute() {
+    for (Satellite satellite : satellites) {
+      satellite.moveByOneMinute();
+    }
+  }
+
+  @Benchmark
+  public void advanceOneDay() {
+    for (Satellite satellite : satellites) {
+      satellite.advance(24 * 60);
+    }
+  }
+
+  @Benchmark
+  public void positionInOneDay(Blackhole blackhole) {
+    for (Satellite satellite : satellites) {
+      blackhole.consume(satellite.positionAt(24 * 60));
+    }
+  }
+
+  private static Satellite createSatellite(String id, String type, double height, Angle position) {
+    switch (type) {
+    case "TeleportingSatellite":
+      return new TeleportingSatellite(id, type, height, position);
+    case "RelaySatellite":
+      return new RelaySatellite(id, type, height, position);
+    default:
+      return new StandardSatellite(id, type, height, position);
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package blackout.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import unsw.blackout.BlackoutController;
+
+/**
+ * Measures communicableEntitiesInRange on generated constellations of
+ * increasing size, with half of the entities satellites and half devices. Each
+ * invocation queries the next entity in turn.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RangeQueryBenchmark {
+  @Param({ "10", "1000", "10000", "100000" })
+  private int entityCount;
+
+  private BlackoutController controller;
+  private String[] ids;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    controller = new ConstellationGenerator(42).generate(entityCount / 2, entityCount - entityCount / 2);
+    List<String> allIds = controller.listSatelliteIds();
+    allIds.addAll(controller.listDeviceIds());
+    ids = allIds.toArray(new String[0]);
+  }
+
+  @Benchmark
+  public List<String> communicableEntitiesInRange() {
+    next = (next + 1) % ids.length;
+    return controller.communicableEntitiesInRange(ids[next]);
+  }
+}
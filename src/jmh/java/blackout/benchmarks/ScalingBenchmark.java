@@ -0,0 +1,113 @@
+package blackout.benchmarks;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import unsw.blackout.BlackoutController;
+
+/**
+ * Runs generated simulations of increasing size and writes how the cost of a
+ * tick, a long simulation and a range query grows with the number of entities,
+ * along with the memory each entity takes up, as CSV. Plotting the columns
+ * against the entity count shows where anything starts growing faster than
+ * linearly.
+ *
+ * Usage: ScalingBenchmark [output file] [comma separated entity counts]. With
+ * no output file the CSV is written to standard out.
+ */
+public class ScalingBenchmark {
+  private static final String DEFAULT_SIZES = "100,1000,10000,100000";
+  private static final long SEED = 42;
+  private static final int WARMUP_TICKS = 5;
+  private static final int MEASURED_TICKS = 20;
+  private static final int MINUTES_SIMULATED_AT_ONCE = 1440;
+  private static final int RANGE_QUERIES = 200;
+
+  public static void main(String[] args) throws IOException {
+    String[] sizes = (args.length > 1 ? args[1] : DEFAULT_SIZES).split(",");
+    PrintStream out = System.out;
+    if (args.length > 0) {
+      Path outputFile = Paths.get(args[0]);
+      if (outputFile.getParent() != null) {
+        Files.createDirectories(outputFile.getParent());
+      }
+      out = new PrintStream(Files.newOutputStream(outputFile));
+    }
+
+    out.println("entities,satellites,devices,transfers,ms_per_tick,ms_per_simulated_day,us_per_range_query,"
+        + "bytes_per_entity");
+    for (String size : sizes) {
+      out.println(measure(Integer.parseInt(size.trim())));
+      out.flush();
+    }
+
+    if (out != System.out) {
+      out.close();
+    }
+  }
+
+  private static String measure(int entities) {
+    int satellites = entities / 2;
+    int devices = entities - satellites;
+    ConstellationGenerator generator = new ConstellationGenerator(SEED);
+    generator.setTransfers(devices / 4);
+
+    MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    long heapBefore = usedHeap(memory);
+    BlackoutController controller = generator.generate(satellites, devices);
+    // small simulations can come out negative when the collector frees more than they take
+    long bytesPerEntity = Math.max(0, usedHeap(memory) - heapBefore) / Math.max(1, entities);
+
+    for (int i = 0; i < WARMUP_TICKS; i++) {
+      controller.simulate();
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < MEASURED_TICKS; i++) {
+      controller.simulate();
+    }
+    double msPerTick = (System.nanoTime() - start) / 1e6 / MEASURED_TICKS;
+
+    // a fresh copy, so the long simulation starts with all its transfers
+    BlackoutController longRun = generator.generate(satellites, devices);
+    int transfers = countTransfers(longRun);
+    start = System.nanoTime();
+    longRun.simulate(MINUTES_SIMULATED_AT_ONCE);
+    double msPerDay = (System.nanoTime() - start) / 1e6;
+
+    List<String> ids = controller.listDeviceIds();
+    ids.addAll(controller.listSatelliteIds());
+    start = System.nanoTime();
+    for (int i = 0; i < RANGE_QUERIES; i++) {
+      controller.communicableEntitiesInRange(ids.get((int) ((long) i * ids.size() / RANGE_QUERIES)));
+    }
+    double usPerQuery = (System.nanoTime() - start) / 1e3 / RANGE_QUERIES;
+
+    return String.format("%d,%d,%d,%d,%.3f,%.3f,%.3f,%d", entities, satellites, devices, transfers,
+        msPerTick, msPerDay, usPerQuery, bytesPerEntity);
+  }
+
+  /**
+   * Counts the transfers the generator started, which are the files satellites
+   * hold since satellites start out empty.
+   */
+  private static int countTransfers(BlackoutController controller) {
+    int transfers = 0;
+    for (String id : controller.listSatelliteIds()) {
+      transfers += controller.getInfo(id).getFiles().size();
+    }
+    return transfers;
+  }
+
+  private static long usedHeap(MemoryMXBean memory) {
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return memory.getHeapMemoryUsage().getUsed();
+  }
+}
@@ -0,0 +1,77 @@
+package blackout.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import unsw.blackout.Devices;
+import unsw.blackout.Files;
+import unsw.blackout.HandheldDevice;
+import unsw.blackout.TransferStatus;
+import unsw.utils.Angle;
+
+/**
+ * Measures a single transfer being updated minute by minute for a range of
+ * file sizes and speeds. The transfer starts again from the beginning whenever
+ * it finishes, so every invocation is one minute of a transfer in flight.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TransferBenchmark {
+  @Param({ "16", "65536", "4194304" })
+  private int fileSize;
+
+  @Param({ "1", "1024" })
+  private int bytesPerMinute;
+
+  private Devices sender;
+  private Devices reciever;
+  private Files transfer;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    char[] content = new char[fileSize];
+    for (int i = 0; i < fileSize; i++) {
+      content[i] = "abcdefghijklmnopqrstuvwxyz ".charAt(random.nextInt(27));
+    }
+
+    sender = new HandheldDevice("Sender", "HandheldDevice", Angle.fromDegrees(0));
+    reciever = new HandheldDevice("Reciever", "HandheldDevice", Angle.fromDegrees(0));
+    sender.setUploadBandwith(bytesPerMinute);
+    reciever.setDownloadBandwith(bytesPerMinute);
+    transfer = new Files("File", 0, new String(content), sender, reciever);
+    reciever.addFile(transfer);
+    restart();
+  }
+
+  @Benchmark
+  public TransferStatus updateFileTransfer() {
+    TransferStatus status = transfer.updateFileTransfer();
+    if (status != TransferStatus.IN_PROGRESS) {
+      restart();
+    }
+    return status;
+  }
+
+  @Benchmark
+  public String updateAndReadContent() {
+    updateFileTransfer();
+    return transfer.getPresentContent();
+  }
+
+  private void restart() {
+    transfer.setBytesTransmitted(0);
+    sender.setNumFilesUploading(1);
+    reciever.setNumFilesDownloading(1);
+  }
+}
@@ -1,42 +1,298 @@
 package unsw;
 
 import spark.Request;
+import spark.Response;
+import spark.Route;
 import spark.Spark;
+import spark.route.HttpMethod;
+import spark.routematch.RouteMatch;
+import unsw.blackout.BatchCommand;
 import unsw.blackout.BlackoutController;
+import unsw.blackout.DeltaTracker;
+import unsw.blackout.EncodedInfo;
 import unsw.blackout.FileTransferException;
+import unsw.blackout.SimulationMetrics;
+import unsw.blackout.SimulationView;
+import unsw.response.models.EntityDeltaResponse;
 import unsw.response.models.EntityInfoResponse;
+import unsw.response.models.SimulationDeltaResponse;
 import unsw.utils.Angle;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonPrimitive;
 import com.google.gson.JsonSerializer;
 import com.google.gson.JsonSerializationContext;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.reflect.Type;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import scintilla.Scintilla;
 
 public class App {
-    private static volatile Map<String, BlackoutController> sessionStates = new HashMap<>();
+    // sessions unused for half an hour are evicted, as are the least recently
+    // used ones once there are too many
+    private static final SessionStore SESSION_STORE = new SessionStore(30, TimeUnit.MINUTES, 1000);
+    private static final HttpMetrics HTTP_METRICS = new HttpMetrics();
+    // long simulations run in the background, a couple per session at most
+    private static final SimulationJobs SIMULATION_JOBS = new SimulationJobs(
+            Runtime.getRuntime().availableProcessors(), 256, 2);
+    private static final Map<BlackoutController, TickStream> TICK_STREAMS = new ConcurrentHashMap<>();
+    // every stream subscriber keeps one of Jetty's threads while it's watching,
+    // so only this many can watch at once, leaving the rest for other requests
+    private static final Semaphore STREAM_SUBSCRIBERS = new Semaphore(
+            Integer.getInteger("blackout.maxStreamSubscribers", 64));
+    private static final SimulationClock CLOCK = new SimulationClock(Runtime.getRuntime().availableProcessors(),
+            session -> {
+                session.getLock().writeLock().lock();
+                try {
+                    session.getController().simulate();
+                } finally {
+                    session.unlockWrite();
+                }
+            });
+
+    /**
+     * A route that works on the simulation of the session making the request.
+     */
+    private interface SessionRoute {
+        Object handle(BlackoutController bc, Request request, Response response) throws Exception;
+    }
+
+    /**
+     * A route that only looks at the latest view of the session making the
+     * request.
+     */
+    private interface ViewRoute {
+        Object handle(SimulationView view, Request request, Response response) throws Exception;
+    }
+
+    /**
+     * A response that writes its own JSON, straight to the client.
+     */
+    private interface JsonBody {
+        void writeTo(OutputStream out) throws IOException;
+    }
 
-    private static synchronized BlackoutController getBlackoutController(Request request) {
+    /**
+     * A response written as a binary frame rather than JSON.
+     */
+    private interface FrameBody {
+        void writeTo(FrameWriter frame);
+    }
+
+    private static String sessionIdOf(Request request) {
         String session = request.session().id();
         if (session == null) {
             throw new RuntimeException("No State found");
         }
+        return session;
+    }
+
+    private static Session getSession(Request request) {
+        return SESSION_STORE.get(sessionIdOf(request));
+    }
+
+    private static List<SimulationMetrics> getAllMetrics() {
+        return SESSION_STORE.getSessions().stream().map(session -> session.getController().getMetrics())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Wraps a route that only looks at the simulation, so it answers from the
+     * session's latest view without taking any lock. It never waits, even
+     * behind a long simulation, and sees the simulation as of the last change
+     * or minute to finish.
+     */
+    private static Route viewing(ViewRoute route) {
+        return (request, response) -> {
+            long handlerStart = System.nanoTime();
+            try {
+                return route.handle(getSession(request).getView(), request, response);
+            } finally {
+                HTTP_METRICS.recordHandler(request, System.nanoTime() - handlerStart);
+            }
+        };
+    }
+
+    /**
+     * Wraps a route that changes the simulation, so it runs while holding its
+     * session's write lock, timing how long it waited for the lock separately
+     * from how long it ran for. The simulation is published for readers before
+     * the lock is let go.
+     */
+    private static Route writing(SessionRoute route) {
+        return (request, response) -> {
+            long waitStart = System.nanoTime();
+            Session session = SESSION_STORE.lock(sessionIdOf(request), locked -> locked.getLock().writeLock());
+            long handlerStart = System.nanoTime();
+            HTTP_METRICS.recordLockWait(request, handlerStart - waitStart);
+            try {
+                return route.handle(session.getController(), request, response);
+            } finally {
+                session.unlockWrite();
+                HTTP_METRICS.recordHandler(request, System.nanoTime() - handlerStart);
+            }
+        };
+    }
+
+    /**
+     * Wraps a route so that a JsonBody it returns is written straight to the
+     * response, rather than being turned into one big String first. Anything
+     * else it returns is turned into JSON by Gson like every other route. This
+     * happens after the route has let go of its session's lock, so a slow
+     * client doesn't hold up the simulation.
+     */
+    private static Route json(Route route, Gson gson) {
+        return (request, response) -> {
+            Object result = route.handle(request, response);
+            response.type("application/json");
+            if (!(result instanceof JsonBody)) {
+                return gson.toJson(result);
+            }
+
+            OutputStream out = new BufferedOutputStream(response.raw().getOutputStream());
+            ((JsonBody) result).writeTo(out);
+            out.flush();
+            return "";
+        };
+    }
+
+    /**
+     * Wraps a route for clients that accept binary frames, writing the
+     * FrameBody it returns against the session's dictionary once the route
+     * has let go of the session's lock. Spark can pick this route for a client
+     * that accepts anything, so it falls back to the JSON route unless the
+     * client asked for frames by name.
+     */
+    private static Route frames(Route route, Route json) {
+        return (request, response) -> {
+            if (!acceptsFrames(request)) {
+                return json.handle(request, response);
+            }
 
-        if (sessionStates.containsKey(session)) {
-            return sessionStates.get(session);
-        } else {
-            BlackoutController bc = new BlackoutController();
-            sessionStates.put(session, bc);
-            return bc;
+            FrameBody body = (FrameBody) route.handle(request, response);
+            FrameWriter frame = new FrameWriter(getSession(request).getFrameDictionary(),
+                    request.headers(FrameWriter.DICTIONARY_HEADER));
+            body.writeTo(frame);
+
+            response.type(FrameWriter.CONTENT_TYPE);
+            OutputStream out = new BufferedOutputStream(response.raw().getOutputStream());
+            frame.writeTo(out);
+            out.flush();
+            return "";
+        };
+    }
+
+    private static boolean acceptsFrames(Request request) {
+        String accept = request.headers("Accept");
+        return accept != null && accept.contains(FrameWriter.CONTENT_TYPE);
+    }
+
+    private static List<EntityInfoResponse> infoOf(SimulationView view, List<String> ids) {
+        List<EntityInfoResponse> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            EntityInfoResponse info = view.getInfo(id);
+            if (info != null) {
+                result.add(info);
+            }
         }
+        return result;
+    }
+
+    private static int minutesOf(Request request) {
+        int n;
+        try {
+            n = Integer.parseInt(request.queryParamOrDefault("n", "1"));
+        } catch (NumberFormatException e) {
+            n = 1;
+        }
+        return Math.max(1, n);
+    }
+
+    /**
+     * Simulates a number of minutes, responding with the state after every
+     * minute or, for deltas, the state before the first minute and what
+     * changed in each. The session's write lock is held for every minute, so
+     * the response is of one run of the simulation that no other request
+     * changed part way through. Each minute is published as it finishes, so
+     * readers carry on answering from the latest one meanwhile.
+     */
+    private static Object simulate(Request request, int minutes, boolean deltas) {
+        long start = System.nanoTime();
+        Session session = SESSION_STORE.lock(sessionIdOf(request), locked -> locked.getLock().writeLock());
+        long waited = System.nanoTime() - start;
+
+        List<EncodedInfo> snapshots = new ArrayList<>();
+        Map<String, EntityInfoResponse> initial = new HashMap<>();
+        List<Map<String, EntityDeltaResponse>> changes = new ArrayList<>();
+        try {
+            session.simulate(minutes, controller -> {
+                if (!deltas) {
+                    return after -> snapshots.add(after.encodeAllInfo());
+                }
+                initial.putAll(snapshotOf(controller));
+                DeltaTracker tracker = new DeltaTracker(controller);
+                return after -> changes.add(tracker.update());
+            });
+
+            if (deltas) {
+                return new SimulationDeltaResponse(initial, changes);
+            }
+        } finally {
+            session.unlockWrite();
+            HTTP_METRICS.recordLockWait(request, waited);
+            HTTP_METRICS.recordHandler(request, System.nanoTime() - start - waited);
+        }
+
+        JsonBody body = out -> {
+            out.write('[');
+            for (int i = 0; i < snapshots.size(); i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                snapshots.get(i).writeObjectTo(out);
+            }
+            out.write(']');
+        };
+        return body;
+    }
+
+    /**
+     * Gets the info of every satellite and device by id.
+     */
+    static Map<String, EntityInfoResponse> snapshotOf(BlackoutController bc) {
+        Map<String, EntityInfoResponse> result = new HashMap<>();
+        bc.listSatelliteIds().forEach(id -> result.put(id, bc.getInfo(id)));
+        bc.listDeviceIds().forEach(id -> result.put(id, bc.getInfo(id)));
+        return result;
+    }
+
+    /**
+     * Gets the stream of a session's simulation, creating it the first time.
+     * This must be called while holding the session's write lock.
+     */
+    private static TickStream getTickStream(BlackoutController bc, Gson gson) {
+        return TICK_STREAMS.computeIfAbsent(bc, key -> {
+            TickStream stream = new TickStream(gson);
+            bc.addTickListener(stream);
+            return stream;
+        });
     }
 
     public static void main(String[] args) throws Exception {
@@ -49,138 +305,324 @@ public class App {
         gsonBuilder.registerTypeAdapter(Angle.class, serializer);
         Gson gson = gsonBuilder.create();
 
-        Spark.after((request, response) -> {
+        configureSessionStore();
+        registerMetricsRoutes();
+
+        // set before the route runs, since routes that write their own response
+        // can send the headers before any after filter gets a chance
+        Spark.before((request, response) -> {
             response.header("Access-Control-Allow-Origin", "*");
             response.header("Access-Control-Allow-Methods", "*");
             response.header("Access-Control-Allow-Headers", "*");
         });
 
-        Spark.put("/api/device/", "application/json", (request, response) -> {
-            BlackoutController bc = getBlackoutController(request);
-            synchronized (bc) {
-                Angle position = Angle.fromRadians(Double.parseDouble(request.queryParams("position")));
-                boolean isMoving = Boolean.parseBoolean(request.queryParams("isMoving"));
-                bc.createDevice(request.queryParams("deviceId"), request.queryParams("type"), position, isMoving);
-                return "";
-            }
-        }, gson::toJson);
+        Spark.put("/api/device/", "application/json", writing((bc, request, response) -> {
+            Angle position = Angle.fromRadians(Double.parseDouble(request.queryParams("position")));
+            boolean isMoving = Boolean.parseBoolean(request.queryParams("isMoving"));
+            bc.createDevice(request.queryParams("deviceId"), request.queryParams("type"), position, isMoving);
+            return "";
+        }), gson::toJson);
 
-        Spark.delete("/api/device/", "application/json", (request, response) -> {
-            BlackoutController bc = getBlackoutController(request);
-            synchronized (bc) {
-                bc.removeDevice(request.queryParams("deviceId"));
-                return "";
-            }
-        }, gson::toJson);
+        Spark.delete("/api/device/", "application/json", writing((bc, request, response) -> {
+            bc.removeDevice(request.queryParams("deviceId"));
+            return "";
+        }), gson::toJson);
 
-        Spark.put("/api/satellite/", "application/json", (request, response) -> {
-            BlackoutController bc = getBlackoutController(request);
-            synchronized (bc) {
-                Angle position = Angle.fromRadians(Double.parseDouble(request.queryParams("position")));
-                double height = Double.parseDouble(request.queryParams("height"));
-                bc.createSatellite(request.queryParams("satelliteId"), request.queryParams("type"), height, position);
-                return "";
-            }
-        }, gson::toJson);
+        Spark.put("/api/satellite/", "application/json", writing((bc, request, response) -> {
+            Angle position = Angle.fromRadians(Double.parseDouble(request.queryParams("position")));
+            double height = Double.parseDouble(request.queryParams("height"));
+            bc.createSatellite(request.queryParams("satelliteId"), request.queryParams("type"), height, position);
+            return "";
+        }), gson::toJson);
+
+        Spark.delete("/api/satellite/", "application/json", writing((bc, request, response) -> {
+            bc.removeSatellite(request.queryParams("satelliteId"));
+            return "";
+        }), gson::toJson);
 
-        Spark.delete("/api/satellite/", "application/json", (request, response) -> {
-            BlackoutController bc = getBlackoutController(request);
-            synchronized (bc) {
-                bc.removeSatellite(request.queryParams("satelliteId"));
+        Route entityInfoJson = json(viewing((view, request, response) -> {
+            JsonBody body = view.encodeInfo(Collections.singletonList(request.queryParams("id")))::writeSingleTo;
+            return body;
+        }), gson);
+        Spark.get("/api/entity/info/", "application/json", entityInfoJson);
+
+        Spark.post("/api/device/file/", "application/json", writing((bc, request, response) -> {
+            bc.addFileToDevice(request.queryParams("deviceId"), request.queryParams("fileName"), request.body());
+            return "";
+        }), gson::toJson);
+
+        // the info routes answer from the session's latest view, whose JSON is
+        // reused for anything that hasn't changed
+        Route deviceAllJson = json(viewing((view, request, response) -> {
+            JsonBody body = view.encodeInfo(view.listDeviceIds())::writeObjectTo;
+            return body;
+        }), gson);
+        Spark.get("/api/device/all/", "application/json", deviceAllJson);
+
+        Route satelliteAllJson = json(viewing((view, request, response) -> {
+            JsonBody body = view.encodeInfo(view.listSatelliteIds())::writeObjectTo;
+            return body;
+        }), gson);
+        Spark.get("/api/satellite/all/", "application/json", satelliteAllJson);
+
+        Route entitiesInRangeJson = json(viewing((view, request, response) -> {
+            JsonBody body = view.encodeInfo(view.communicableEntitiesInRange(request.queryParams("id")))::writeArrayTo;
+            return body;
+        }), gson);
+        Spark.get("/api/entity/entitiesInRange/", "application/json", entitiesInRangeJson);
+
+        Spark.post("/api/sendFile/", "application/json", writing((bc, request, response) -> {
+            try {
+                bc.sendFile(request.queryParams("fileName"), request.queryParams("fromId"),
+                        request.queryParams("toId"));
                 return "";
+            } catch (FileTransferException ex) {
+                return ex.getClass().getSimpleName() + ":" + ex.getMessage();
             }
-        }, gson::toJson);
+        }), gson::toJson);
+
+        Spark.post("/api/createSlope/", "application/json", writing((bc, request, response) -> {
+            bc.createSlope(Integer.parseInt(request.queryParams("startAngle")),
+                    Integer.parseInt(request.queryParams("endAngle")),
+                    Integer.parseInt(request.queryParams("gradient")));
+            return "";
+        }), gson::toJson);
 
-        Spark.get("/api/entity/info/", "application/json", (request, response) -> {
-            BlackoutController bc = getBlackoutController(request);
-            synchronized (bc) {
-                return bc.getInfo(request.queryParams("id"));
+        registerBatchRoutes(gson);
+        registerSimulateRoutes(gson);
+        registerJobRoutes(gson);
+
+        // binary frames of the entity and range routes, for clients whose Accept
+        // header prefers them over JSON
+        Spark.get("/api/entity/info/", FrameWriter.CONTENT_TYPE, frames(viewing((view, request, response) -> {
+            List<EntityInfoResponse> infos = infoOf(view, Collections.singletonList(request.queryParams("id")));
+            FrameBody body = frame -> frame.writeEntities(infos);
+            return body;
+        }), entityInfoJson));
+
+        Spark.get("/api/device/all/", FrameWriter.CONTENT_TYPE, frames(viewing((view, request, response) -> {
+            List<EntityInfoResponse> infos = infoOf(view, view.listDeviceIds());
+            FrameBody body = frame -> frame.writeEntities(infos);
+            return body;
+        }), deviceAllJson));
+
+        Spark.get("/api/satellite/all/", FrameWriter.CONTENT_TYPE, frames(viewing((view, request, response) -> {
+            List<EntityInfoResponse> infos = infoOf(view, view.listSatelliteIds());
+            FrameBody body = frame -> frame.writeEntities(infos);
+            return body;
+        }), satelliteAllJson));
+
+        Spark.get("/api/entity/entitiesInRange/", FrameWriter.CONTENT_TYPE, frames(viewing((view, req, res) -> {
+            List<EntityInfoResponse> infos = infoOf(view, view.communicableEntitiesInRange(req.queryParams("id")));
+            FrameBody body = frame -> frame.writeEntities(infos);
+            return body;
+        }), entitiesInRangeJson));
+
+        registerStreamRoutes(gson);
+        timeRegisteredRoutes();
+
+        Scintilla.start();
+    }
+
+    /**
+     * Sets up what happens to sessions as they are evicted.
+     */
+    private static void configureSessionStore() throws IOException {
+        // nothing should keep running for a session that has gone
+        SESSION_STORE.addEvictionListener(session -> {
+            CLOCK.stop(session);
+            SIMULATION_JOBS.cancelAll(session);
+            TickStream stream = TICK_STREAMS.remove(session.getController());
+            if (stream != null) {
+                stream.close();
             }
-        }, gson::toJson);
+        });
+        // evicted sessions are kept on disk if there's somewhere to keep them,
+        // otherwise they start again
+        String spillDirectory = System.getProperty("blackout.spillDirectory");
+        if (spillDirectory != null) {
+            SESSION_STORE.setSpill(new DirectorySessionSpill(Paths.get(spillDirectory), new BinarySessionCodec()));
+        }
+        SESSION_STORE.startSweeping(1, TimeUnit.MINUTES);
+    }
 
-        Spark.post("/api/device/file/", "application/json", (request, response) -> {
-            BlackoutController bc = getBlackoutController(request);
-            synchronized (bc) {
-                bc.addFileToDevice(request.queryParams("deviceId"), request.queryParams("fileName"), request.body());
-                return "";
+    /**
+     * Registers /api/metrics, along with the filters that time every request.
+     */
+    private static void registerMetricsRoutes() {
+        Spark.before((request, response) -> HTTP_METRICS.requestStarted(request));
+        Spark.afterAfter((request, response) -> HTTP_METRICS.requestFinished(request));
+
+        // metrics are read without taking any session's lock, so scraping never
+        // waits for a long simulation to finish
+        Spark.get("/api/metrics", (request, response) -> {
+            response.type("text/plain; version=0.0.4; charset=utf-8");
+            return SimulationMetrics.toPrometheus(getAllMetrics()) + HTTP_METRICS.toPrometheus();
+        });
+    }
+
+    /**
+     * Gives every route added so far its own metrics, so requests for anything
+     * else are counted together. Has to run after the last route is added.
+     */
+    private static void timeRegisteredRoutes() {
+        for (RouteMatch route : Spark.routes()) {
+            HttpMethod method = route.getHttpMethod();
+            if (method != HttpMethod.before && method != HttpMethod.after && method != HttpMethod.afterafter) {
+                HTTP_METRICS.registerRoute(method.name().toUpperCase(Locale.ROOT), route.getMatchUri());
             }
-        }, gson::toJson);
+        }
+    }
 
-        Spark.get("/api/device/all/", "application/json", (request, response) -> {
-            BlackoutController bc = getBlackoutController(request);
-            synchronized (bc) {
-                Map<String, EntityInfoResponse> result = new HashMap<>();
-                bc.listDeviceIds().forEach(id -> result.put(id, bc.getInfo(id)));
-                return result;
+    /**
+     * Registers the route that applies many commands under one lock.
+     */
+    private static void registerBatchRoutes(Gson gson) {
+        // applies an array of commands in order under one lock, responding with
+        // what happened to each. The body is parsed before taking the lock
+        Spark.post("/api/batch/", "application/json", (request, response) -> {
+            BatchCommand[] commands;
+            try {
+                commands = gson.fromJson(request.body(), BatchCommand[].class);
+            } catch (JsonParseException ex) {
+                response.status(400);
+                return ex.getClass().getSimpleName() + ":" + ex.getMessage();
             }
+            List<BatchCommand> batch = commands == null ? Collections.emptyList() : Arrays.asList(commands);
+            return writing((bc, req, res) -> bc.executeBatch(batch)).handle(request, response);
         }, gson::toJson);
+    }
 
-        Spark.get("/api/satellite/all/", "application/json", (request, response) -> {
-            BlackoutController bc = getBlackoutController(request);
-            synchronized (bc) {
-                Map<String, EntityInfoResponse> result = new HashMap<>();
-                bc.listSatelliteIds().forEach(id -> result.put(id, bc.getInfo(id)));
-                return result;
+    /**
+     * Registers the routes that simulate a session straight away.
+     */
+    private static void registerSimulateRoutes(Gson gson) {
+        Route simulateJson = json((request, response) -> {
+            // delta=true responds with only the initial state and what changed
+            // each minute, which is far smaller than the full state every minute
+            boolean deltas = Boolean.parseBoolean(request.queryParams("delta"));
+            return simulate(request, minutesOf(request), deltas);
+        }, gson);
+        Spark.post("/api/simulate/", "application/json", simulateJson);
+
+        // frames of a simulation are always deltas
+        Spark.post("/api/simulate/", FrameWriter.CONTENT_TYPE, frames((request, response) -> {
+            SimulationDeltaResponse simulation = (SimulationDeltaResponse) simulate(request, minutesOf(request), true);
+            FrameBody body = frame -> frame.writeSimulation(simulation);
+            return body;
+        }, simulateJson));
+    }
+
+    /**
+     * Registers the routes that simulate a session in the background.
+     */
+    private static void registerJobRoutes(Gson gson) {
+        // starts simulating n minutes in the background, responding with the
+        // job's id straight away instead of waiting for it to finish
+        Spark.post("/api/job/", "application/json", (request, response) -> {
+            try {
+                SimulationJob job = SIMULATION_JOBS.submit(getSession(request), minutesOf(request));
+                response.status(202);
+                return job.poll(0);
+            } catch (IllegalStateException ex) {
+                response.status(429);
+                return ex.getClass().getSimpleName() + ":" + ex.getMessage();
+            } catch (RejectedExecutionException ex) {
+                response.status(503);
+                return ex.getClass().getSimpleName() + ":" + ex.getMessage();
             }
         }, gson::toJson);
 
-        Spark.get("/api/entity/entitiesInRange/", "application/json", (request, response) -> {
-            BlackoutController bc = getBlackoutController(request);
-            synchronized (bc) {
-                return bc.communicableEntitiesInRange(request.queryParams("id")).stream().map(e -> bc.getInfo(e))
-                        .collect(Collectors.toList());
+        // how far along a job is, with what changed in every minute from the
+        // given one on. Minutes before it are thrown away, having been seen
+        Spark.get("/api/job/", "application/json", (request, response) -> {
+            SimulationJob job = SIMULATION_JOBS.get(getSession(request), request.queryParams("id"));
+            if (job == null) {
+                response.status(404);
+                return "No job " + request.queryParams("id");
             }
-        }, gson::toJson);
 
-        Spark.post("/api/sendFile/", "application/json", (request, response) -> {
-            BlackoutController bc = getBlackoutController(request);
-            synchronized (bc) {
-                try {
-                    bc.sendFile(request.queryParams("fileName"), request.queryParams("fromId"),
-                            request.queryParams("toId"));
-                    return "";
-                } catch (FileTransferException ex) {
-                    return ex.getClass().getSimpleName() + ":" + ex.getMessage();
-                }
+            int from;
+            try {
+                from = Integer.parseInt(request.queryParamOrDefault("from", "0"));
+            } catch (NumberFormatException e) {
+                from = 0;
             }
+            return job.poll(from);
         }, gson::toJson);
 
-        Spark.post("/api/createSlope/", "application/json", (request, response) -> {
-            BlackoutController bc = getBlackoutController(request);
-            synchronized (bc) {
-                bc.createSlope(Integer.parseInt(request.queryParams("startAngle")),
-                        Integer.parseInt(request.queryParams("endAngle")),
-                        Integer.parseInt(request.queryParams("gradient")));
-                return "";
+        Spark.delete("/api/job/", "application/json", (request, response) -> {
+            SimulationJob job = SIMULATION_JOBS.get(getSession(request), request.queryParams("id"));
+            if (job == null) {
+                response.status(404);
+                return "No job " + request.queryParams("id");
             }
+            SIMULATION_JOBS.cancel(job);
+            return "";
         }, gson::toJson);
+    }
 
-        Spark.post("/api/simulate/", "application/json", (request, response) -> {
-            BlackoutController bc = getBlackoutController(request);
-            synchronized (bc) {
-                int n;
-                try {
-                    n = Integer.parseInt(request.queryParamOrDefault("n", "1"));
-                } catch (NumberFormatException e) {
-                    n = 1;
-                }
-                if (n < 1)
-                    n = 1;
-
-                List<Map<String, EntityInfoResponse>> results = new ArrayList<>();
-                for (int i = 0; i < n; i++) {
-                    bc.simulate();
-
-                    Map<String, EntityInfoResponse> result = new HashMap<>();
-                    bc.listSatelliteIds().forEach(id -> result.put(id, bc.getInfo(id)));
-                    bc.listDeviceIds().forEach(id -> result.put(id, bc.getInfo(id)));
-                    results.add(result);
-                }
+    /**
+     * Registers the routes that stream a session's ticks and run it on a clock.
+     */
+    private static void registerStreamRoutes(Gson gson) {
+        // Server-Sent Events of the session's simulation. The request stays open
+        // for as long as the client is watching, but the session is only locked
+        // while subscribing, not while waiting for ticks. Once there are as many
+        // subscribers as are allowed, more are turned away until one leaves.
+        Spark.get("/api/stream/", (request, response) -> {
+            if (!STREAM_SUBSCRIBERS.tryAcquire()) {
+                response.status(503);
+                return "Too many streams are open, try again later";
+            }
+            try {
+                streamTo(gson, request, response);
+            } finally {
+                STREAM_SUBSCRIBERS.release();
+            }
+            return "";
+        });
 
-                return results;
+        // minutesPerSecond > 0 starts simulating the session by itself at that
+        // rate, anything else stops it
+        Spark.post("/api/clock/", "application/json", (request, response) -> {
+            double minutesPerSecond;
+            try {
+                minutesPerSecond = Double.parseDouble(request.queryParamOrDefault("minutesPerSecond", "0"));
+            } catch (NumberFormatException e) {
+                minutesPerSecond = 0;
             }
+            CLOCK.setRate(getSession(request), minutesPerSecond);
+            return "";
         }, gson::toJson);
+    }
 
-        Scintilla.start();
+    /**
+     * Subscribes the request to its session's stream, then sends it every event
+     * until the client goes away.
+     */
+    private static void streamTo(Gson gson, Request request, Response response)
+            throws IOException, InterruptedException {
+        Session session = SESSION_STORE.lock(sessionIdOf(request), locked -> locked.getLock().writeLock());
+        BlackoutController bc = session.getController();
+        TickStream stream;
+        TickStream.Subscriber subscriber;
+        try {
+            stream = getTickStream(bc, gson);
+            subscriber = stream.subscribe(bc);
+        } finally {
+            session.getLock().writeLock().unlock();
+        }
+
+        response.type("text/event-stream");
+        response.header("Cache-Control", "no-cache");
+        response.raw().flushBuffer();
+        try {
+            subscriber.streamTo(response.raw().getOutputStream());
+        } catch (IOException e) {
+            // the client went away
+        } finally {
+            stream.unsubscribe(subscriber);
+        }
     }
 }
@@ -0,0 +1,23 @@
+package unsw;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import unsw.blackout.BlackoutController;
+
+/**
+ * Keeps sessions as controller snapshots, which hold everything a simulation
+ * needs to carry on and are quick to read back.
+ */
+public class BinarySessionCodec implements SessionCodec {
+    @Override
+    public void encode(BlackoutController controller, OutputStream out) throws IOException {
+        controller.snapshot(out);
+    }
+
+    @Override
+    public BlackoutController decode(ByteBuffer bytes) throws IOException {
+        return BlackoutController.restore(bytes);
+    }
+}
@@ -0,0 +1,76 @@
+package unsw;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Base64;
+
+import unsw.blackout.BlackoutController;
+
+/**
+ * Keeps evicted sessions as one file each in a directory, in whatever format
+ * the given codec uses.
+ */
+public class DirectorySessionSpill implements SessionSpill {
+    private static final String EXTENSION = ".session";
+
+    private final Path directory;
+    private final SessionCodec codec;
+
+    public DirectorySessionSpill(Path directory, SessionCodec codec) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.codec = codec;
+    }
+
+    /**
+     * Writes to a temporary file first and then moves it into place, so a
+     * crash part way through never leaves half a session behind.
+     */
+    @Override
+    public void save(String sessionId, BlackoutController controller) throws IOException {
+        Path file = fileOf(sessionId);
+        Path temporary = Files.createTempFile(directory, "spill", ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporary))) {
+                codec.encode(controller, out);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Maps the file into memory instead of reading it into an array, so a big
+     * session is only read once, by the codec.
+     */
+    @Override
+    public BlackoutController load(String sessionId) throws IOException {
+        Path file = fileOf(sessionId);
+        BlackoutController controller;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            controller = codec.decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        Files.deleteIfExists(file);
+        return controller;
+    }
+
+    /**
+     * Session ids come from cookies, so they're encoded before being used as a
+     * file name.
+     */
+    private Path fileOf(String sessionId) {
+        byte[] id = sessionId.getBytes(StandardCharsets.UTF_8);
+        return directory.resolve(Base64.getUrlEncoder().withoutPadding().encodeToString(id) + EXTENSION);
+    }
+}
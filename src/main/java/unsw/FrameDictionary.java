@@ -0,0 +1,54 @@
+package unsw;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The strings a session's binary frames refer to by index, like ids, types
+ * and file names. Strings are only ever added, so an index means the same
+ * string for as long as the dictionary lives, and a client that has the
+ * first n entries only ever needs the ones after them. Each dictionary has a
+ * random id, so a client holding entries of an older dictionary (e.g. from
+ * before its session was evicted) can tell that they no longer apply.
+ */
+public class FrameDictionary {
+    // past this many entries a session starts a new dictionary, so one that
+    // creates and removes entities forever doesn't grow it forever
+    static final int MAX_SIZE = 1 << 20;
+
+    private final long id = ThreadLocalRandom.current().nextLong();
+    private final List<String> entries = new ArrayList<>();
+    private final Map<String, Integer> indices = new HashMap<>();
+
+    public long getId() {
+        return id;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the index of a string, adding it if it isn't in the dictionary.
+     */
+    public synchronized int indexOf(String entry) {
+        Integer index = indices.get(entry);
+        if (index == null) {
+            index = entries.size();
+            entries.add(entry);
+            indices.put(entry, index);
+        }
+        return index;
+    }
+
+    /**
+     * Gets the entries from the given index to the end, for a client that
+     * already has the ones before it.
+     */
+    public synchronized List<String> entriesFrom(int start) {
+        return new ArrayList<>(entries.subList(start, entries.size()));
+    }
+}
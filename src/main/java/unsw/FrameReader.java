@@ -0,0 +1,177 @@
+package unsw;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import unsw.response.models.EntityDeltaResponse;
+import unsw.response.models.EntityInfoResponse;
+import unsw.response.models.FileDeltaResponse;
+import unsw.response.models.FileInfoResponse;
+import unsw.response.models.SimulationDeltaResponse;
+import unsw.utils.Angle;
+
+/**
+ * Reads the frames FrameWriter writes, for Java clients. A reader keeps the
+ * dictionary between frames, so one reader should be used for every frame of
+ * a session, sending getDictionaryHeader with each request.
+ */
+public class FrameReader {
+    private long dictionaryId;
+    private List<String> dictionary = new ArrayList<>();
+
+    /**
+     * Gets what to send in the X-Frame-Dictionary header, or null before the
+     * first frame.
+     */
+    public String getDictionaryHeader() {
+        return dictionary.isEmpty() ? null : dictionaryId + ":" + dictionary.size();
+    }
+
+    public Map<String, EntityInfoResponse> readEntities(byte[] frame) {
+        ByteBuffer in = open(frame, FrameWriter.ENTITIES);
+        return readEntityList(in);
+    }
+
+    public SimulationDeltaResponse readSimulation(byte[] frame) {
+        ByteBuffer in = open(frame, FrameWriter.SIMULATION);
+        Map<String, EntityInfoResponse> initial = readEntityList(in);
+        int minuteCount = readVarint(in);
+        List<Map<String, EntityDeltaResponse>> minutes = new ArrayList<>(minuteCount);
+        for (int i = 0; i < minuteCount; i++) {
+            int count = readVarint(in);
+            Map<String, EntityDeltaResponse> minute = new LinkedHashMap<>();
+            for (int j = 0; j < count; j++) {
+                EntityDeltaResponse delta = readDelta(in);
+                minute.put(delta.getDeviceId(), delta);
+            }
+            minutes.add(minute);
+        }
+        return new SimulationDeltaResponse(initial, minutes);
+    }
+
+    /**
+     * Checks the frame is the expected kind and takes in its dictionary
+     * entries, leaving the buffer at the start of the body.
+     */
+    private ByteBuffer open(byte[] frame, int expectedKind) {
+        ByteBuffer in = ByteBuffer.wrap(frame);
+        try {
+            if (in.get() != FrameWriter.MAGIC_B || in.get() != FrameWriter.MAGIC_F) {
+                throw new IllegalArgumentException("Not a frame");
+            }
+            int version = in.get();
+            if (version != FrameWriter.VERSION) {
+                throw new IllegalArgumentException("Unknown frame version " + version);
+            }
+            int kind = in.get();
+            if (kind != expectedKind) {
+                throw new IllegalArgumentException("Expected a frame of kind " + expectedKind + " but got " + kind);
+            }
+
+            long id = in.getLong();
+            int start = readVarint(in);
+            if (id != dictionaryId) {
+                dictionaryId = id;
+                dictionary = new ArrayList<>();
+            }
+            if (start > dictionary.size()) {
+                throw new IllegalArgumentException("Frame skips dictionary entries " + dictionary.size() + " to "
+                        + start);
+            }
+            // the same entries can be sent again, e.g. to two requests at once
+            dictionary.subList(start, dictionary.size()).clear();
+            int count = readVarint(in);
+            for (int i = 0; i < count; i++) {
+                dictionary.add(readString(in));
+            }
+            return in;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Frame ends too early");
+        }
+    }
+
+    private Map<String, EntityInfoResponse> readEntityList(ByteBuffer in) {
+        int count = readVarint(in);
+        Map<String, EntityInfoResponse> entities = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            String id = readEntry(in);
+            String type = readEntry(in);
+            Angle position = Angle.fromRadians(in.getDouble());
+            double height = in.getDouble();
+            int fileCount = readVarint(in);
+            Map<String, FileInfoResponse> files = new HashMap<>();
+            for (int j = 0; j < fileCount; j++) {
+                String filename = readEntry(in);
+                int size = readVarint(in);
+                boolean complete = in.get() != 0;
+                files.put(filename, new FileInfoResponse(filename, readString(in), size, complete));
+            }
+            entities.put(id, new EntityInfoResponse(id, position, height, type, files));
+        }
+        return entities;
+    }
+
+    private EntityDeltaResponse readDelta(ByteBuffer in) {
+        String id = readEntry(in);
+        int flags = in.get();
+        Angle position = null;
+        if ((flags & FrameWriter.POSITION_CHANGED) != 0) {
+            position = Angle.fromRadians(in.getDouble());
+        }
+
+        Map<String, FileDeltaResponse> files = null;
+        if ((flags & FrameWriter.FILES_CHANGED) != 0) {
+            int count = readVarint(in);
+            files = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                String filename = readEntry(in);
+                int offset = readVarint(in);
+                int size = readVarint(in);
+                boolean complete = in.get() != 0;
+                files.put(filename, new FileDeltaResponse(filename, offset, readString(in), size, complete));
+            }
+        }
+
+        List<String> removedFiles = null;
+        if ((flags & FrameWriter.FILES_REMOVED) != 0) {
+            int count = readVarint(in);
+            removedFiles = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                removedFiles.add(readEntry(in));
+            }
+        }
+        return new EntityDeltaResponse(id, position, files, removedFiles);
+    }
+
+    private String readEntry(ByteBuffer in) {
+        int index = readVarint(in);
+        if (index >= dictionary.size()) {
+            throw new IllegalArgumentException("No dictionary entry " + index);
+        }
+        return dictionary.get(index);
+    }
+
+    private static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint is too long");
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[readVarint(in)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,232 @@
+package unsw;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import unsw.response.models.EntityDeltaResponse;
+import unsw.response.models.EntityInfoResponse;
+import unsw.response.models.FileDeltaResponse;
+import unsw.response.models.FileInfoResponse;
+import unsw.response.models.SimulationDeltaResponse;
+
+/**
+ * Writes simulation state as a compact binary frame, for clients that would
+ * rather not parse JSON. Every frame starts with: 1. the bytes 'B' 'F' and
+ * the version 2. the kind of body 3. the id of the session's dictionary 4.
+ * the index of the first dictionary entry in the frame and how many there
+ * are, followed by the entries. Ids, types and file names are written as
+ * indexes into the dictionary, and a frame only has the entries the client
+ * doesn't have yet, which it says in the X-Frame-Dictionary header as
+ * "dictionary id:number of entries". If the client has a different
+ * dictionary, or none, the frame has every entry.
+ *
+ * Whole numbers are unsigned LEB128 varints, positions and heights are big
+ * endian doubles and strings are a varint length in bytes followed by UTF-8.
+ * An ENTITIES body is a count followed by that many entities, each being its
+ * id, type, position in radians, height and a count of files, followed by
+ * each file's name, size, whether it's complete and its data. A SIMULATION
+ * body is the entities before the first minute as in ENTITIES, then a count
+ * of minutes, then for each minute a count of the entities that changed,
+ * followed by each one's id, flags for what changed, its position if it
+ * moved, the files that changed (name, offset, size, whether it's complete
+ * and the data from the offset) and the names of the files that were
+ * removed.
+ */
+public class FrameWriter {
+    public static final String CONTENT_TYPE = "application/x-blackout-frame";
+    public static final String DICTIONARY_HEADER = "X-Frame-Dictionary";
+
+    static final byte MAGIC_B = 'B';
+    static final byte MAGIC_F = 'F';
+    static final int VERSION = 1;
+    static final int ENTITIES = 1;
+    static final int SIMULATION = 2;
+    static final int POSITION_CHANGED = 1;
+    static final int FILES_CHANGED = 2;
+    static final int FILES_REMOVED = 4;
+
+    /**
+     * A growable byte array, since ByteArrayOutputStream takes a lock for every
+     * byte written.
+     */
+    private static class Buffer {
+        private byte[] bytes = new byte[256];
+        private int size;
+
+        void write(int b) {
+            if (size == bytes.length) {
+                bytes = Arrays.copyOf(bytes, size * 2);
+            }
+            bytes[size++] = (byte) b;
+        }
+
+        void write(byte[] b) {
+            if (size + b.length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(size * 2, size + b.length));
+            }
+            System.arraycopy(b, 0, bytes, size, b.length);
+            size += b.length;
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            out.write(bytes, 0, size);
+        }
+    }
+
+    private final FrameDictionary dictionary;
+    private final int knownEntries;
+    private final Buffer body = new Buffer();
+    private int kind;
+
+    /**
+     * @param dictionary the session's dictionary
+     * @param known      the client's X-Frame-Dictionary header, or null if it
+     *                   doesn't have a dictionary
+     */
+    public FrameWriter(FrameDictionary dictionary, String known) {
+        this.dictionary = dictionary;
+        this.knownEntries = knownEntries(dictionary, known);
+    }
+
+    /**
+     * Works out how many entries of the dictionary the client has, which is
+     * none unless it has this dictionary.
+     */
+    private static int knownEntries(FrameDictionary dictionary, String known) {
+        if (known == null) {
+            return 0;
+        }
+
+        String[] parts = known.split(":");
+        try {
+            if (parts.length != 2 || Long.parseLong(parts[0].trim()) != dictionary.getId()) {
+                return 0;
+            }
+            int entries = Integer.parseInt(parts[1].trim());
+            return entries >= 0 && entries <= dictionary.size() ? entries : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    public void writeEntities(Collection<EntityInfoResponse> entities) {
+        kind = ENTITIES;
+        writeEntityList(entities);
+    }
+
+    public void writeSimulation(SimulationDeltaResponse simulation) {
+        kind = SIMULATION;
+        writeEntityList(simulation.getInitial().values());
+        writeVarint(simulation.getMinutes().size());
+        for (Map<String, EntityDeltaResponse> minute : simulation.getMinutes()) {
+            writeVarint(minute.size());
+            for (EntityDeltaResponse delta : minute.values()) {
+                writeDelta(delta);
+            }
+        }
+    }
+
+    /**
+     * Writes the whole frame. The dictionary entries go before the body but
+     * are only known once the body is written, which is why the body is kept
+     * until now.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        List<String> entries = dictionary.entriesFrom(knownEntries);
+        Buffer header = new Buffer();
+        header.write(MAGIC_B);
+        header.write(MAGIC_F);
+        header.write(VERSION);
+        header.write(kind);
+        writeLong(header, dictionary.getId());
+        writeVarint(header, knownEntries);
+        writeVarint(header, entries.size());
+        for (String entry : entries) {
+            writeString(header, entry);
+        }
+
+        header.writeTo(out);
+        body.writeTo(out);
+    }
+
+    private void writeEntityList(Collection<EntityInfoResponse> entities) {
+        writeVarint(entities.size());
+        for (EntityInfoResponse entity : entities) {
+            writeVarint(dictionary.indexOf(entity.getDeviceId()));
+            writeVarint(dictionary.indexOf(entity.getType()));
+            writeLong(body, Double.doubleToLongBits(entity.getPosition().toRadians()));
+            writeLong(body, Double.doubleToLongBits(entity.getHeight()));
+            writeVarint(entity.getFiles().size());
+            for (FileInfoResponse file : entity.getFiles().values()) {
+                writeVarint(dictionary.indexOf(file.getFilename()));
+                writeVarint(file.getFileSize());
+                body.write(file.isFileComplete() ? 1 : 0);
+                writeString(body, file.getData());
+            }
+        }
+    }
+
+    private void writeDelta(EntityDeltaResponse delta) {
+        int flags = 0;
+        if (delta.getPosition() != null) {
+            flags |= POSITION_CHANGED;
+        }
+        if (delta.getFiles() != null) {
+            flags |= FILES_CHANGED;
+        }
+        if (delta.getRemovedFiles() != null) {
+            flags |= FILES_REMOVED;
+        }
+
+        writeVarint(dictionary.indexOf(delta.getDeviceId()));
+        body.write(flags);
+        if (delta.getPosition() != null) {
+            writeLong(body, Double.doubleToLongBits(delta.getPosition().toRadians()));
+        }
+        if (delta.getFiles() != null) {
+            writeVarint(delta.getFiles().size());
+            for (FileDeltaResponse file : delta.getFiles().values()) {
+                writeVarint(dictionary.indexOf(file.getFilename()));
+                writeVarint(file.getOffset());
+                writeVarint(file.getFileSize());
+                body.write(file.isFileComplete() ? 1 : 0);
+                writeString(body, file.getData());
+            }
+        }
+        if (delta.getRemovedFiles() != null) {
+            writeVarint(delta.getRemovedFiles().size());
+            for (String filename : delta.getRemovedFiles()) {
+                writeVarint(dictionary.indexOf(filename));
+            }
+        }
+    }
+
+    private void writeVarint(int value) {
+        writeVarint(body, value);
+    }
+
+    private static void writeVarint(Buffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static void writeLong(Buffer out, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (value >>> shift));
+        }
+    }
+
+    private static void writeString(Buffer out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,201 @@
+package unsw;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import spark.Request;
+import unsw.utils.Histogram;
+
+/**
+ * Times every request by the route it was for, splitting the time a request
+ * spends waiting for its session's lock from the time its handler spends
+ * running, and counts how many requests of each route are in flight. All of
+ * it can be recorded and read from any thread without locking.
+ */
+public class HttpMetrics {
+    // requests for anything that isn't a registered route are counted together,
+    // so bad urls can't make the export grow
+    private static final String OTHER_ROUTE = "other";
+    private static final String START_ATTRIBUTE = "httpMetrics.start";
+    private static final String ROUTE_ATTRIBUTE = "httpMetrics.route";
+    private static final long[] EXPORTED_NANOS_BOUNDS = Histogram.powerOfTwoBounds(10, 34, 2);
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final double[] EXPORTED_QUANTILES = {0.5, 0.99, 0.999};
+
+    /**
+     * Everything recorded about one route.
+     */
+    public static class RouteMetrics {
+        private final AtomicLong inFlight = new AtomicLong();
+        private final Histogram latency = new Histogram();
+        private final Histogram lockWait = new Histogram();
+        private final Histogram handler = new Histogram();
+
+        public long getInFlight() {
+            return inFlight.get();
+        }
+
+        /**
+         * The time from the request reaching the first filter to its response
+         * leaving the last, in nanoseconds.
+         */
+        public Histogram getLatency() {
+            return latency;
+        }
+
+        /**
+         * The time spent waiting for the session's lock, in nanoseconds.
+         */
+        public Histogram getLockWait() {
+            return lockWait;
+        }
+
+        /**
+         * The time spent running the handler while holding the lock, in
+         * nanoseconds.
+         */
+        public Histogram getHandler() {
+            return handler;
+        }
+    }
+
+    // sorted so routes are always exported in the same order
+    private final Map<String, RouteMetrics> routes = new ConcurrentSkipListMap<>();
+
+    /**
+     * Gives a route its own metrics. Requests are only told apart by route if
+     * their method and path are exactly those of a registered route.
+     *
+     * @param method the route's method, e.g. GET
+     * @param path   the route's path, e.g. /api/device/all/
+     */
+    public void registerRoute(String method, String path) {
+        getRoute(method + " " + path);
+    }
+
+    /**
+     * Marks the start of a request, for the before filter.
+     */
+    public void requestStarted(Request request) {
+        String route = routeOf(request);
+        request.attribute(START_ATTRIBUTE, System.nanoTime());
+        request.attribute(ROUTE_ATTRIBUTE, route);
+        getRoute(route).inFlight.incrementAndGet();
+    }
+
+    /**
+     * Marks the end of a request, for the after after filter, which runs even
+     * if the handler threw.
+     */
+    public void requestFinished(Request request) {
+        Long start = request.attribute(START_ATTRIBUTE);
+        String route = request.attribute(ROUTE_ATTRIBUTE);
+        if (start == null || route == null) {
+            return;
+        }
+
+        RouteMetrics metrics = getRoute(route);
+        metrics.latency.record(System.nanoTime() - start);
+        metrics.inFlight.decrementAndGet();
+    }
+
+    /**
+     * Records how long a request waited for its session's lock.
+     */
+    public void recordLockWait(Request request, long nanos) {
+        String route = request.attribute(ROUTE_ATTRIBUTE);
+        if (route != null) {
+            getRoute(route).lockWait.record(nanos);
+        }
+    }
+
+    /**
+     * Records how long a request's handler ran for once it had the lock.
+     */
+    public void recordHandler(Request request, long nanos) {
+        String route = request.attribute(ROUTE_ATTRIBUTE);
+        if (route != null) {
+            getRoute(route).handler.record(nanos);
+        }
+    }
+
+    public Map<String, RouteMetrics> getRoutes() {
+        return routes;
+    }
+
+    /**
+     * Writes every route's metrics in the Prometheus text format. Along with
+     * the histograms, the 50th, 99th and 99.9th percentiles are written as
+     * gauges, since Prometheus can only estimate them from the buckets.
+     *
+     * @return the exported metrics
+     */
+    public String toPrometheus() {
+        StringBuilder out = new StringBuilder();
+        out.append("# HELP blackout_http_requests_in_flight Requests being handled right now.\n");
+        out.append("# TYPE blackout_http_requests_in_flight gauge\n");
+        for (Map.Entry<String, RouteMetrics> route : routes.entrySet()) {
+            out.append("blackout_http_requests_in_flight{").append(labelsOf(route.getKey())).append("} ")
+                    .append(route.getValue().getInFlight()).append('\n');
+        }
+
+        writeHistograms(out, "blackout_http_request_seconds", "Time taken to answer a request.", "request");
+        writeHistograms(out, "blackout_http_lock_wait_seconds", "Time a request waited for its session's lock.",
+                "lock_wait");
+        writeHistograms(out, "blackout_http_handler_seconds", "Time a request's handler ran while holding the lock.",
+                "handler");
+
+        out.append("# HELP blackout_http_quantile_seconds Percentiles of the request timings.\n");
+        out.append("# TYPE blackout_http_quantile_seconds gauge\n");
+        for (Map.Entry<String, RouteMetrics> route : routes.entrySet()) {
+            for (String timing : new String[] {"request", "lock_wait", "handler"}) {
+                Histogram histogram = histogramOf(route.getValue(), timing);
+                for (double quantile : EXPORTED_QUANTILES) {
+                    out.append("blackout_http_quantile_seconds{").append(labelsOf(route.getKey()))
+                            .append(",timing=\"").append(timing).append("\",quantile=\"").append(quantile)
+                            .append("\"} ").append(histogram.getValueAtPercentile(quantile * 100) / NANOS_PER_SECOND)
+                            .append('\n');
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    private void writeHistograms(StringBuilder out, String name, String help, String timing) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" histogram\n");
+        for (Map.Entry<String, RouteMetrics> route : routes.entrySet()) {
+            histogramOf(route.getValue(), timing).writePrometheus(out, name, labelsOf(route.getKey()),
+                    EXPORTED_NANOS_BOUNDS, NANOS_PER_SECOND);
+        }
+    }
+
+    private static Histogram histogramOf(RouteMetrics metrics, String timing) {
+        switch (timing) {
+        case "lock_wait":
+            return metrics.getLockWait();
+        case "handler":
+            return metrics.getHandler();
+        default:
+            return metrics.getLatency();
+        }
+    }
+
+    private static String labelsOf(String route) {
+        return "route=\"" + route.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\"";
+    }
+
+    /**
+     * Every route in App is a fixed path, so a request's route is its method
+     * and path, as long as that is one of the registered routes.
+     */
+    private String routeOf(Request request) {
+        String route = request.requestMethod() + " " + request.pathInfo();
+        return routes.containsKey(route) ? route : OTHER_ROUTE;
+    }
+
+    private RouteMetrics getRoute(String route) {
+        return routes.computeIfAbsent(route, key -> new RouteMetrics());
+    }
+}
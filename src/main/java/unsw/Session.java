@@ -0,0 +1,151 @@
+package unsw;
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import unsw.blackout.BlackoutController;
+import unsw.blackout.SimulationView;
+
+/**
+ * A browser session's simulation, along with the lock that guards it and when
+ * it was last used so idle sessions can be evicted.
+ *
+ * Anything that changes the simulation holds the write lock and publishes a
+ * view of the simulation before letting go, and after every minute it
+ * simulates. Anything that only looks at the simulation reads the latest view
+ * without taking any lock, so it never waits behind a writer.
+ */
+public class Session {
+    private final String id;
+    private final BlackoutController controller;
+    // fair, so a writer waiting for readers to finish isn't overtaken by new
+    // readers, and readers waiting behind a writer get in as soon as it's done
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true);
+    private volatile long lastAccessNanos = System.nanoTime();
+    private volatile FrameDictionary frameDictionary = new FrameDictionary();
+    // set once the session has been evicted, under the write lock
+    private volatile boolean closed;
+    // the simulation as of the last change or minute, for readers
+    private volatile SimulationView view;
+
+    public Session(String id, BlackoutController controller) {
+        this.id = id;
+        this.controller = controller;
+        this.view = controller.view();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public BlackoutController getController() {
+        return controller;
+    }
+
+    /**
+     * The lock to hold while using the simulation. Anything that needs the
+     * simulation as it is right now takes the read lock, so any number of them
+     * can run at once, while anything that changes it takes the write lock.
+     */
+    public ReentrantReadWriteLock getLock() {
+        return lock;
+    }
+
+    /**
+     * The simulation as of the last time it was published, which can be read
+     * from any thread without holding the lock.
+     */
+    public SimulationView getView() {
+        return view;
+    }
+
+    /**
+     * Publishes the simulation as it is now for readers. Only called while
+     * holding the write lock.
+     */
+    public void publish() {
+        view = controller.view();
+    }
+
+    /**
+     * Publishes the simulation, marks the session as just used and then lets go
+     * of the write lock, for anything that took the write lock to change the
+     * simulation. A session busy with a long simulation then counts as used
+     * when the simulation finished, not when it started.
+     */
+    public void unlockWrite() {
+        try {
+            publish();
+            touch();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Marks the session as evicted, so anything that was waiting for one of its
+     * locks knows to get the session from the store again. Only called while
+     * holding the write lock.
+     */
+    public void close() {
+        closed = true;
+    }
+
+    /**
+     * Whether the session has been evicted. Anything that changes the
+     * simulation checks this once it has the lock, since changes to an evicted
+     * session would be lost.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Simulates a number of minutes, all while the caller holds the write lock,
+     * so nothing else can change the simulation part way through. It does this
+     * by: 1. giving the simulation to start before the first minute 2.
+     * simulating each minute, publishing it for readers and giving it to
+     * whatever start returned.
+     *
+     * @param start called before the first minute, returning what to do after
+     *              each minute
+     */
+    public void simulate(int minutes, Function<BlackoutController, Consumer<BlackoutController>> start) {
+        Consumer<BlackoutController> afterEachMinute = start.apply(controller);
+        for (int i = 0; i < minutes; i++) {
+            controller.simulate();
+            publish();
+            afterEachMinute.accept(controller);
+        }
+    }
+
+    /**
+     * The dictionary of the session's binary frames, which is swapped for a
+     * new one once it gets too big. Two threads might both swap it at once,
+     * which is fine since each frame says which dictionary it uses.
+     */
+    public FrameDictionary getFrameDictionary() {
+        FrameDictionary dictionary = frameDictionary;
+        if (dictionary.size() > FrameDictionary.MAX_SIZE) {
+            dictionary = new FrameDictionary();
+            frameDictionary = dictionary;
+        }
+        return dictionary;
+    }
+
+    /**
+     * When the session was last used, from System.nanoTime.
+     */
+    public long getLastAccessNanos() {
+        return lastAccessNanos;
+    }
+
+    /**
+     * Marks the session as just used. This is a single volatile write, so it's
+     * fine to do on every request.
+     */
+    public void touch() {
+        lastAccessNanos = System.nanoTime();
+    }
+}
@@ -0,0 +1,21 @@
+package unsw;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import unsw.blackout.BlackoutController;
+
+/**
+ * Turns a simulation into bytes and back, for keeping sessions outside of
+ * memory.
+ */
+public interface SessionCodec {
+    void encode(BlackoutController controller, OutputStream out) throws IOException;
+
+    /**
+     * Reads a simulation back. The bytes may be a file mapped into memory, so
+     * nothing should hold on to the buffer afterwards.
+     */
+    BlackoutController decode(ByteBuffer bytes) throws IOException;
+}
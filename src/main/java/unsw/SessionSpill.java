@@ -0,0 +1,24 @@
+package unsw;
+
+import java.io.IOException;
+
+import unsw.blackout.BlackoutController;
+
+/**
+ * Somewhere evicted sessions are kept, so a session that comes back after
+ * being evicted carries on where it left off instead of starting again.
+ */
+public interface SessionSpill {
+    /**
+     * Keeps an evicted session's simulation. Nothing else uses the simulation
+     * while this runs.
+     */
+    void save(String sessionId, BlackoutController controller) throws IOException;
+
+    /**
+     * Takes back a session's simulation, which is no longer kept afterwards.
+     *
+     * @return the simulation, or null if the session was never spilled
+     */
+    BlackoutController load(String sessionId) throws IOException;
+}
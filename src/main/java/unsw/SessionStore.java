@@ -0,0 +1,306 @@
+package unsw;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import unsw.blackout.BlackoutController;
+
+/**
+ * Keeps every session's simulation. Finding an existing session doesn't take
+ * any lock, and a session being brought back from the spill only holds up
+ * requests for that same session, so requests from different sessions never
+ * wait on each other.
+ *
+ * Sessions are evicted by the background sweep when: 1. they haven't been
+ * used for longer than the idle time to live 2. there are more than the
+ * maximum number of sessions, in which case the least recently used go first.
+ * Requests never evict anything themselves. A request that pushes the store
+ * over its maximum asks for a sweep straight away, so until the sweeper gets
+ * to it there can briefly be a few more sessions than the maximum. Sessions
+ * that are in use are never evicted.
+ * If a spill is set, evicted sessions are saved to it and brought back the
+ * next time they're used.
+ */
+public class SessionStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SessionStore.class);
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    // sessions that have been removed but might not be spilled yet, by id
+    private final ConcurrentHashMap<String, Session> evicting = new ConcurrentHashMap<>();
+    // sessions being created or brought back from the spill, by id, which
+    // anything else that wants the same session waits for
+    private final ConcurrentHashMap<String, CompletableFuture<Session>> loading = new ConcurrentHashMap<>();
+    private final long idleTimeToLiveNanos;
+    private final int maxSessions;
+    private final List<Consumer<Session>> evictionListeners = new CopyOnWriteArrayList<>();
+    private volatile SessionSpill spill;
+    private volatile ScheduledExecutorService sweeper;
+    // set while a sweep asked for by a request is waiting to run, so many
+    // requests at once only ask for one
+    private final AtomicBoolean sweepRequested = new AtomicBoolean();
+
+    /**
+     * @param idleTimeToLive how long a session can go unused before it's
+     *                       evicted
+     * @param unit           the unit of the idle time to live
+     * @param maxSessions    how many sessions are kept at most
+     */
+    public SessionStore(long idleTimeToLive, TimeUnit unit, int maxSessions) {
+        this.idleTimeToLiveNanos = unit.toNanos(idleTimeToLive);
+        this.maxSessions = maxSessions;
+    }
+
+    /**
+     * Sets where evicted sessions are saved, or null to throw them away.
+     */
+    public void setSpill(SessionSpill spill) {
+        this.spill = spill;
+    }
+
+    /**
+     * Adds something to tell whenever a session is evicted, e.g. to stop
+     * anything still running for it.
+     */
+    public void addEvictionListener(Consumer<Session> listener) {
+        evictionListeners.add(listener);
+    }
+
+    /**
+     * Gets a session, creating it (or bringing it back from the spill) if it
+     * isn't kept, and marks it as just used.
+     */
+    public Session get(String id) {
+        Session session = sessions.get(id);
+        if (session == null) {
+            session = load(id);
+            if (sessions.size() > maxSessions) {
+                requestSweep();
+            }
+        }
+        session.touch();
+        return session;
+    }
+
+    /**
+     * Gets a session with one of its locks held. A session can be evicted while
+     * waiting for its lock, in which case it's closed, so the lock is let go and
+     * the session is got again, which brings it back from the spill.
+     *
+     * @param lockOf which of the session's locks to take
+     */
+    public Session lock(String id, Function<Session, Lock> lockOf) {
+        while (true) {
+            Session session = get(id);
+            Lock lock = lockOf.apply(session);
+            lock.lock();
+            if (!session.isClosed()) {
+                return session;
+            }
+            lock.unlock();
+        }
+    }
+
+    public Collection<Session> getSessions() {
+        return Collections.unmodifiableCollection(sessions.values());
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Starts sweeping for idle sessions in the background every given
+     * interval.
+     */
+    public synchronized void startSweeping(long interval, TimeUnit unit) {
+        if (sweeper != null) {
+            return;
+        }
+
+        ScheduledExecutorService started = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        started.scheduleWithFixedDelay(this::sweepQuietly, interval, interval, unit);
+        sweeper = started;
+    }
+
+    /**
+     * Evicts every session that has been idle for too long, then the least
+     * recently used sessions while there are too many. Sessions in use are
+     * left for a later sweep.
+     */
+    public void sweep() {
+        long now = System.nanoTime();
+        for (Session session : sessions.values()) {
+            if (now - session.getLastAccessNanos() > idleTimeToLiveNanos) {
+                evict(session);
+            }
+        }
+
+        if (sessions.size() > maxSessions) {
+            evictLeastRecentlyUsed();
+        }
+    }
+
+    private void sweepQuietly() {
+        try {
+            sweep();
+        } catch (RuntimeException e) {
+            // keep sweeping, the next sweep might go better
+            LOGGER.warn("Sweeping sessions failed", e);
+        }
+    }
+
+    /**
+     * Asks the sweeper to sweep as soon as it can, for a request that pushed the
+     * store over its maximum. Nothing happens if the sweeper hasn't started.
+     */
+    private void requestSweep() {
+        ScheduledExecutorService current = sweeper;
+        if (current != null && sweepRequested.compareAndSet(false, true)) {
+            current.execute(() -> {
+                sweepRequested.set(false);
+                sweepQuietly();
+            });
+        }
+    }
+
+    /**
+     * Evicts the least recently used sessions until there are no more than the
+     * maximum. The sessions are sorted by when they were last used once, and
+     * any that are in use are skipped.
+     */
+    private void evictLeastRecentlyUsed() {
+        List<Session> leastRecentlyUsedFirst = new ArrayList<>(sessions.values());
+        // nanoTime can wrap, so they're compared by difference
+        leastRecentlyUsedFirst.sort((a, b) -> Long.signum(a.getLastAccessNanos() - b.getLastAccessNanos()));
+        for (Session session : leastRecentlyUsedFirst) {
+            if (sessions.size() <= maxSessions) {
+                return;
+            }
+            evict(session);
+        }
+    }
+
+    /**
+     * Removes a session and saves it to the spill, unless it's in use. It does
+     * this by: 1. trying to take the session's write lock, giving up if anything
+     * is using it 2. removing it from the map, marking it as being evicted at
+     * the same time so anything bringing it back waits for the spill 3. closing
+     * it, so anything that was waiting for its lock gets it from the store
+     * again 4. saving it to the spill. No map entry is locked while it's saved,
+     * so other sessions never wait for it.
+     */
+    private void evict(Session session) {
+        String id = session.getId();
+        boolean[] removed = new boolean[1];
+        if (!session.getLock().writeLock().tryLock()) {
+            return;
+        }
+        try {
+            sessions.computeIfPresent(id, (key, current) -> {
+                if (current != session) {
+                    return current;
+                }
+                evicting.put(id, session);
+                removed[0] = true;
+                return null;
+            });
+            if (!removed[0]) {
+                return;
+            }
+            session.close();
+            spillQuietly(session);
+        } finally {
+            session.getLock().writeLock().unlock();
+        }
+        evicting.remove(id, session);
+
+        for (Consumer<Session> listener : evictionListeners) {
+            listener.accept(session);
+        }
+    }
+
+    private void spillQuietly(Session session) {
+        SessionSpill currentSpill = spill;
+        if (currentSpill == null) {
+            return;
+        }
+
+        try {
+            currentSpill.save(session.getId(), session.getController());
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Couldn't spill session {}, it will start again", session.getId(), e);
+        }
+    }
+
+    /**
+     * Creates a session, or brings it back from the spill, without locking any
+     * map entry while it does. The first request for a missing session puts a
+     * placeholder in loading and does the work, while any others for the same
+     * session wait for the placeholder.
+     */
+    private Session load(String id) {
+        CompletableFuture<Session> placeholder = new CompletableFuture<>();
+        CompletableFuture<Session> alreadyLoading = loading.putIfAbsent(id, placeholder);
+        if (alreadyLoading != null) {
+            return alreadyLoading.join();
+        }
+
+        try {
+            // another request might have finished loading it just before
+            Session session = sessions.get(id);
+            if (session == null) {
+                session = createSession(id);
+                sessions.put(id, session);
+            }
+            placeholder.complete(session);
+            return session;
+        } catch (RuntimeException | Error e) {
+            placeholder.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(id, placeholder);
+        }
+    }
+
+    private Session createSession(String id) {
+        // a session still being spilled is only brought back once it's saved,
+        // which is as soon as its write lock is let go. Only requests for the
+        // same session wait for this, and only while it's being evicted
+        Session evicted = evicting.get(id);
+        if (evicted != null) {
+            evicted.getLock().readLock().lock();
+            evicted.getLock().readLock().unlock();
+        }
+
+        SessionSpill currentSpill = spill;
+        BlackoutController controller = null;
+        if (currentSpill != null) {
+            try {
+                controller = currentSpill.load(id);
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("Couldn't bring back spilled session {}, it will start again", id, e);
+            }
+        }
+        return new Session(id, controller == null ? new BlackoutController() : controller);
+    }
+}
@@ -0,0 +1,133 @@
+package unsw;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Moves simulations forward on their own at a set rate, so clients can just
+ * watch a session's stream instead of asking for every minute.
+ */
+public class SimulationClock {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SimulationClock.class);
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    // the fastest a clock can go, any faster and it would be quicker to ask
+    // for many minutes at once
+    private static final double MAX_MINUTES_PER_SECOND = 1000;
+
+    private final ScheduledExecutorService scheduler;
+    private final Consumer<Session> tick;
+    private final Map<Session, Clock> clocks = new ConcurrentHashMap<>();
+
+    /**
+     * One session's clock. A clock that stops itself only takes itself out of
+     * the map, so one that fails just as it's replaced can't stop the clock
+     * replacing it.
+     */
+    private final class Clock implements Runnable {
+        private final Session session;
+        private volatile ScheduledFuture<?> future;
+        private volatile boolean stopped;
+
+        Clock(Session session) {
+            this.session = session;
+        }
+
+        void start(long period) {
+            future = scheduler.scheduleAtFixedRate(this, period, period, TimeUnit.NANOSECONDS);
+            // the first minute might have stopped the clock before it was started
+            if (stopped) {
+                future.cancel(false);
+            }
+        }
+
+        void stop() {
+            stopped = true;
+            ScheduledFuture<?> current = future;
+            if (current != null) {
+                current.cancel(false);
+            }
+        }
+
+        @Override
+        public void run() {
+            if (session.isClosed()) {
+                // the session was evicted, anything simulated now would be lost
+                clocks.remove(session, this);
+                stop();
+                return;
+            }
+            try {
+                tick.accept(session);
+            } catch (RuntimeException e) {
+                // a failing simulation would fail every minute, so stop it
+                LOGGER.warn("Stopping the clock of session {} after a tick failed", session.getId(), e);
+                clocks.remove(session, this);
+                stop();
+            }
+        }
+    }
+
+    /**
+     * @param threads how many simulations can be moved forward at once
+     * @param tick    moves a session's simulation forward by a minute, taking
+     *                whatever lock it needs
+     */
+    public SimulationClock(int threads, Consumer<Session> tick) {
+        this.scheduler = Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "simulation-clock");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.tick = tick;
+    }
+
+    /**
+     * Starts moving a simulation forward by a minute at the given rate,
+     * replacing its clock if it already has one, or stops it if the rate is 0
+     * or less. If a minute takes longer than the time between minutes, the next
+     * one starts as soon as it's done rather than running at the same time.
+     * The old clock is stopped and the new one started in one step, so setting
+     * the rate of a session from two requests at once leaves it with just one.
+     *
+     * @param session          the session whose simulation to move forward
+     * @param minutesPerSecond how many minutes to simulate every second
+     */
+    public void setRate(Session session, double minutesPerSecond) {
+        clocks.compute(session, (key, current) -> {
+            if (current != null) {
+                current.stop();
+            }
+            if (!(minutesPerSecond > 0)) {
+                return null;
+            }
+
+            long period = Math.max(1,
+                    (long) (NANOS_PER_SECOND / Math.min(minutesPerSecond, MAX_MINUTES_PER_SECOND)));
+            Clock clock = new Clock(session);
+            clock.start(period);
+            return clock;
+        });
+    }
+
+    public void stop(Session session) {
+        Clock clock = clocks.remove(session);
+        if (clock != null) {
+            clock.stop();
+        }
+    }
+
+    /**
+     * Whether a session's simulation is being moved forward by a clock.
+     */
+    public boolean isRunning(Session session) {
+        return clocks.containsKey(session);
+    }
+}
@@ -0,0 +1,180 @@
+package unsw;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Map;
+
+import unsw.blackout.BlackoutController;
+import unsw.blackout.DeltaTracker;
+import unsw.response.models.EntityDeltaResponse;
+import unsw.response.models.EntityInfoResponse;
+import unsw.response.models.SimulationJobResponse;
+
+/**
+ * A simulation of many minutes that runs in the background, so the request
+ * asking for it doesn't have to wait for it. The session's write lock is held
+ * from the initial state to the last minute, so the job's deltas are of one
+ * run of the simulation that nothing else changed part way through. Each
+ * minute is published as it finishes, so the session can still be read from
+ * its last finished minute while the job runs. What changed in each minute is
+ * kept until the client polls for it, up to a limit. A client that falls
+ * further behind than that is sent the whole state at the minute it got to
+ * instead, so a job that is never polled only ever keeps one snapshot and a
+ * limited number of deltas.
+ */
+public class SimulationJob implements Runnable {
+    public enum State {
+        QUEUED, RUNNING, DONE, CANCELLED, FAILED
+    }
+
+    // how many changes a job keeps for a client that hasn't polled for them,
+    // counting each minute as one change more than the entities that changed
+    // in it, so that even minutes where nothing changed count
+    public static final int DEFAULT_MAX_KEPT_CHANGES = 20000;
+
+    private final String id;
+    private final Session session;
+    private final int minutes;
+    private final int maxKeptChanges;
+    private volatile State state = State.QUEUED;
+    private volatile boolean cancelled;
+
+    // everything below is guarded by this
+    private int completedMinutes;
+    private String error;
+    // the state before firstKeptMinute, or null once the client has seen it
+    private Map<String, EntityInfoResponse> initial;
+    // the deltas of the minutes from firstKeptMinute on
+    private final Deque<Map<String, EntityDeltaResponse>> deltas = new ArrayDeque<>();
+    private int firstKeptMinute;
+    private int keptChanges;
+
+    public SimulationJob(String id, Session session, int minutes) {
+        this(id, session, minutes, DEFAULT_MAX_KEPT_CHANGES);
+    }
+
+    /**
+     * @param maxKeptChanges how many changes are kept before they're replaced
+     *                       with a snapshot
+     */
+    public SimulationJob(String id, Session session, int minutes, int maxKeptChanges) {
+        this.id = id;
+        this.session = session;
+        this.minutes = minutes;
+        this.maxKeptChanges = maxKeptChanges;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Session getSession() {
+        return session;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isFinished() {
+        State current = state;
+        return current == State.DONE || current == State.CANCELLED || current == State.FAILED;
+    }
+
+    @Override
+    public void run() {
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            state = State.RUNNING;
+        }
+
+        try {
+            BlackoutController bc = session.getController();
+            session.getLock().writeLock().lock();
+            try {
+                Map<String, EntityInfoResponse> snapshot = App.snapshotOf(bc);
+                DeltaTracker tracker = new DeltaTracker(bc);
+                synchronized (this) {
+                    initial = snapshot;
+                }
+
+                // an evicted session's minutes would be lost, so it's as if
+                // cancelled
+                for (int i = 0; i < minutes && !cancelled && !session.isClosed(); i++) {
+                    bc.simulate();
+                    session.publish();
+                    Map<String, EntityDeltaResponse> delta = tracker.update();
+                    synchronized (this) {
+                        completedMinutes++;
+                        deltas.addLast(delta);
+                        keptChanges += changesIn(delta);
+                        if (keptChanges > maxKeptChanges) {
+                            keepOnlySnapshot(App.snapshotOf(bc));
+                        }
+                    }
+                }
+            } finally {
+                session.unlockWrite();
+            }
+            finish(cancelled || session.isClosed() ? State.CANCELLED : State.DONE, null);
+        } catch (RuntimeException e) {
+            finish(State.FAILED, e.getClass().getSimpleName() + ":" + e.getMessage());
+        }
+    }
+
+    /**
+     * Stops the job before its next minute, or before it starts if it's still
+     * queued.
+     */
+    public synchronized void cancel() {
+        cancelled = true;
+        if (state == State.QUEUED) {
+            state = State.CANCELLED;
+        }
+    }
+
+    private static int changesIn(Map<String, EntityDeltaResponse> delta) {
+        return 1 + delta.size();
+    }
+
+    /**
+     * Replaces everything kept with the state after the last completed minute,
+     * so a client that fell too far behind starts again from there.
+     */
+    private void keepOnlySnapshot(Map<String, EntityInfoResponse> snapshot) {
+        initial = snapshot;
+        deltas.clear();
+        keptChanges = 0;
+        firstKeptMinute = completedMinutes;
+    }
+
+    private synchronized void finish(State finalState, String finalError) {
+        state = finalState;
+        error = finalError;
+    }
+
+    /**
+     * Gets how far along the job is, with the deltas of every minute kept from
+     * the given one on. Asking from a minute means the client has seen every
+     * minute before it, so those are thrown away. If the minutes asked for
+     * were already replaced with a snapshot, the response starts from the
+     * snapshot instead, with it as the initial state.
+     *
+     * @param from the first minute the client hasn't seen, counting from 0
+     */
+    public synchronized SimulationJobResponse poll(int from) {
+        if (firstKeptMinute < from) {
+            // the client has already seen the state before firstKeptMinute
+            initial = null;
+        }
+        while (firstKeptMinute < from && !deltas.isEmpty()) {
+            keptChanges -= changesIn(deltas.removeFirst());
+            firstKeptMinute++;
+        }
+        return new SimulationJobResponse(id, state.name(), minutes, completedMinutes, error, firstKeptMinute, initial,
+                new ArrayList<>(deltas));
+    }
+}
@@ -0,0 +1,111 @@
+package unsw;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs simulation jobs on a fixed number of threads, queueing a limited number
+ * more behind them. Each session can only have a few jobs queued or running
+ * at once, so one session can't take every thread.
+ */
+public class SimulationJobs {
+    // finished jobs kept per session, so their last minutes can still be polled
+    private static final int KEPT_FINISHED_JOBS = 8;
+
+    private final ThreadPoolExecutor executor;
+    private final int maxJobsPerSession;
+    private final AtomicLong nextId = new AtomicLong();
+    private final Map<String, SimulationJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * @param threads           how many jobs can run at once
+     * @param queueSize         how many jobs can wait for a thread
+     * @param maxJobsPerSession how many jobs each session can have queued or
+     *                          running at once
+     */
+    public SimulationJobs(int threads, int queueSize, int maxJobsPerSession) {
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "simulation-job");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.maxJobsPerSession = maxJobsPerSession;
+    }
+
+    /**
+     * Queues a job simulating the given number of minutes of a session.
+     *
+     * @throws IllegalStateException      if the session already has as many
+     *                                    jobs as it's allowed
+     * @throws RejectedExecutionException if every thread is busy and the queue
+     *                                    is full
+     */
+    public synchronized SimulationJob submit(Session session, int minutes) {
+        List<SimulationJob> sessionJobs = jobsOf(session);
+        long active = sessionJobs.stream().filter(job -> !job.isFinished()).count();
+        if (active >= maxJobsPerSession) {
+            throw new IllegalStateException("The session already has " + active + " jobs running");
+        }
+
+        SimulationJob job = new SimulationJob(Long.toString(nextId.incrementAndGet()), session, minutes);
+        executor.execute(job);
+        jobs.put(job.getId(), job);
+        forgetOldFinishedJobs(sessionJobs);
+        return job;
+    }
+
+    /**
+     * Gets one of a session's jobs, or null if it doesn't have one with that id.
+     */
+    public SimulationJob get(Session session, String id) {
+        SimulationJob job = id == null ? null : jobs.get(id);
+        return job != null && job.getSession() == session ? job : null;
+    }
+
+    public void cancel(SimulationJob job) {
+        job.cancel();
+        // a queued job doesn't need to wait its turn just to find it's cancelled
+        executor.remove(job);
+    }
+
+    /**
+     * Cancels and forgets every job of a session, for when the session has gone.
+     */
+    public void cancelAll(Session session) {
+        for (SimulationJob job : jobsOf(session)) {
+            cancel(job);
+            jobs.remove(job.getId());
+        }
+    }
+
+    private List<SimulationJob> jobsOf(Session session) {
+        List<SimulationJob> sessionJobs = new ArrayList<>();
+        for (SimulationJob job : jobs.values()) {
+            if (job.getSession() == session) {
+                sessionJobs.add(job);
+            }
+        }
+        return sessionJobs;
+    }
+
+    private void forgetOldFinishedJobs(List<SimulationJob> sessionJobs) {
+        List<SimulationJob> finished = new ArrayList<>();
+        for (SimulationJob job : sessionJobs) {
+            if (job.isFinished()) {
+                finished.add(job);
+            }
+        }
+        finished.sort(Comparator.comparingLong(job -> Long.parseLong(job.getId())));
+        for (int i = 0; i < finished.size() - KEPT_FINISHED_JOBS; i++) {
+            jobs.remove(finished.get(i).getId());
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package unsw;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.Gson;
+
+import unsw.blackout.BlackoutController;
+import unsw.blackout.DeltaTracker;
+import unsw.blackout.SimulationView;
+import unsw.blackout.TickListener;
+import unsw.response.models.TickDeltaResponse;
+
+/**
+ * Pushes a session's simulation to its subscribers as Server-Sent Events.
+ * Each subscriber first gets a snapshot event with the full state of every
+ * device and satellite, then a tick event with only what changed every time
+ * the simulation moves forward. If devices or satellites were created or
+ * removed since the last tick, everyone gets a new snapshot instead.
+ *
+ * Each event is turned into JSON once, by whichever subscriber sends it first,
+ * and the same bytes are sent to every subscriber, so the cost of a tick
+ * doesn't grow with the number of clients watching. Events are made while the
+ * session is locked, but only turned into JSON after it's let go, so nothing
+ * waits for that. A snapshot only takes a view of the simulation while it's
+ * locked, which is a reference per device and satellite. A subscriber that
+ * falls too far behind is disconnected, and browsers reconnect to an
+ * EventSource by themselves, starting from a new snapshot.
+ */
+public class TickStream implements TickListener {
+    private static final int MAX_QUEUED_EVENTS = 256;
+    private static final long KEEP_ALIVE_SECONDS = 15;
+    private static final byte[] KEEP_ALIVE = ": keep-alive\n\n".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Writes the JSON of an event's data. The data is only ever a view or newly
+     * made response objects, so it doesn't change after the session's lock is
+     * let go.
+     */
+    private interface EventData {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * An event, which is turned into JSON the first time it's written.
+     */
+    private static final class Event {
+        private final String name;
+        private final EventData data;
+        private byte[] bytes;
+
+        private Event(String name, EventData data) {
+            this.name = name;
+            this.data = data;
+        }
+
+        private synchronized byte[] toBytes() throws IOException {
+            if (bytes == null) {
+                // JSON never has a raw newline in it, so the data fits on one line
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                out.write(("event: " + name + "\ndata: ").getBytes(StandardCharsets.UTF_8));
+                data.writeTo(out);
+                out.write("\n\n".getBytes(StandardCharsets.UTF_8));
+                bytes = out.toByteArray();
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * One client's connection, with the events waiting to be sent to it.
+     */
+    public static class Subscriber {
+        private final BlockingQueue<Event> events = new ArrayBlockingQueue<>(MAX_QUEUED_EVENTS);
+        private volatile boolean closed;
+
+        private void send(Event event) {
+            if (!events.offer(event)) {
+                closed = true;
+            }
+        }
+
+        /**
+         * Writes events to the client as they come until it disconnects or falls
+         * too far behind, sending a comment every so often so a client that has
+         * gone away is noticed even when nothing is happening.
+         *
+         * @param out the response body of the client's request
+         * @throws IOException          if the client disconnected
+         * @throws InterruptedException if the thread was interrupted while
+         *                              waiting for events
+         */
+        public void streamTo(OutputStream out) throws IOException, InterruptedException {
+            while (!closed) {
+                Event event = events.poll(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+                out.write(event == null ? KEEP_ALIVE : event.toBytes());
+                out.flush();
+            }
+        }
+    }
+
+    private final Gson gson;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    // what subscribers have been told about, only kept while anyone is subscribed
+    private DeltaTracker tracker;
+
+    public TickStream(Gson gson) {
+        this.gson = gson;
+    }
+
+    /**
+     * Adds a subscriber, whose first event is a snapshot of the simulation. This
+     * must be called while holding the session's write lock.
+     */
+    public Subscriber subscribe(BlackoutController bc) {
+        Subscriber subscriber = new Subscriber();
+        subscriber.send(snapshot(bc));
+        subscribers.add(subscriber);
+        if (tracker == null) {
+            tracker = new DeltaTracker(bc);
+        }
+        return subscriber;
+    }
+
+    public void unsubscribe(Subscriber subscriber) {
+        subscriber.closed = true;
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * Disconnects every subscriber, for when the session has gone.
+     */
+    public void close() {
+        for (Subscriber subscriber : subscribers) {
+            unsubscribe(subscriber);
+        }
+    }
+
+    @Override
+    public void ticked(BlackoutController controller, int minutes) {
+        if (subscribers.isEmpty()) {
+            tracker = null;
+            return;
+        }
+
+        Event event;
+        if (tracker == null || !tracker.hasSameEntities()) {
+            tracker = new DeltaTracker(controller);
+            event = snapshot(controller);
+        } else {
+            TickDeltaResponse tick = new TickDeltaResponse(minutes, tracker.update());
+            event = new Event("tick", out -> out.write(gson.toJson(tick).getBytes(StandardCharsets.UTF_8)));
+        }
+
+        for (Subscriber subscriber : subscribers) {
+            subscriber.send(event);
+            if (subscriber.closed) {
+                subscribers.remove(subscriber);
+            }
+        }
+    }
+
+    /**
+     * Makes a snapshot event of the simulation as it is now. Only the view is
+     * taken now, its JSON is written when the event is first sent.
+     */
+    private static Event snapshot(BlackoutController bc) {
+        SimulationView view = bc.view();
+        return new Event("snapshot", out -> view.encodeAllInfo().writeObjectTo(out));
+    }
+}
@@ -0,0 +1,114 @@
+package unsw.blackout;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps track of every file transfer in flight so a tick only has to look at
+ * the transfers that are actually happening instead of every file on every
+ * device and satellite.
+ *
+ * Transfers are grouped by their reciever and handed out in the order the
+ * simulation has always updated them in: recievers that are devices before
+ * recievers that are satellites, each in the order they were created, and the
+ * transfers of one reciever in the order they were started.
+ */
+public class ActiveTransfers {
+  private Map<DeviceSatellite, Long> creationOrder = new HashMap<>();
+  private long nextCreation;
+  private TreeMap<DeviceSatellite, List<Files>> transfersByReciever = new TreeMap<>(
+      Comparator.comparing((DeviceSatellite entity) -> entity instanceof Satellite)
+          .thenComparing(entity -> creationOrder.get(entity)));
+  private int size;
+
+  /**
+   * Records that a device or satellite has been created, which decides where
+   * its transfers go in the update order.
+   */
+  public void register(DeviceSatellite entity) {
+    creationOrder.put(entity, nextCreation++);
+  }
+
+  /**
+   * Orders registered devices and satellites by when they were created, the
+   * same order the controller lists their ids in.
+   */
+  public Comparator<DeviceSatellite> inCreationOrder() {
+    return Comparator.comparing(entity -> creationOrder.get(entity));
+  }
+
+  /**
+   * Makes room for the given number of devices and satellites in total, so
+   * registering many at once doesn't grow the map over and over.
+   */
+  public void ensureCapacity(int entities) {
+    if (entities > creationOrder.size()) {
+      Map<DeviceSatellite, Long> resized = new HashMap<>(BlackoutController.capacityFor(entities));
+      resized.putAll(creationOrder);
+      creationOrder = resized;
+    }
+  }
+
+  /**
+   * Forgets a device or satellite that has been removed, along with every
+   * transfer it was recieving.
+   */
+  public void unregister(DeviceSatellite entity) {
+    if (creationOrder.containsKey(entity)) {
+      List<Files> transfers = transfersByReciever.remove(entity);
+      if (transfers != null) {
+        size -= transfers.size();
+      }
+      creationOrder.remove(entity);
+    }
+  }
+
+  /**
+   * Adds a transfer that has just started. A transfer to a reciever that isn't
+   * registered has nowhere in the update order, so it's left out.
+   */
+  public void add(Files transfer) {
+    if (!creationOrder.containsKey(transfer.getReciever())) {
+      return;
+    }
+    transfersByReciever.computeIfAbsent(transfer.getReciever(), reciever -> new ArrayList<>()).add(transfer);
+    size++;
+  }
+
+  /**
+   * Removes a transfer that has finished or been cancelled. Nothing happens if
+   * it isn't here, including when its reciever has been unregistered.
+   */
+  public void remove(Files transfer) {
+    if (!creationOrder.containsKey(transfer.getReciever())) {
+      return;
+    }
+    List<Files> transfers = transfersByReciever.get(transfer.getReciever());
+    if (transfers != null && transfers.remove(transfer)) {
+      size--;
+      if (transfers.isEmpty()) {
+        transfersByReciever.remove(transfer.getReciever());
+      }
+    }
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Gets every transfer in flight in the order they should be updated. The
+   * list is a copy, so transfers can be removed while going through it.
+   */
+  public List<Files> getTransfers() {
+    List<Files> transfers = new ArrayList<>(size);
+    for (List<Files> recieverTransfers : transfersByReciever.values()) {
+      transfers.addAll(recieverTransfers);
+    }
+    return transfers;
+  }
+}
@@ -0,0 +1,147 @@
+package unsw.blackout;
+
+import unsw.utils.Angle;
+
+/**
+ * One step of a batch, which does the same as calling the controller method
+ * it's named after. Batches are usually read from JSON, where each command is
+ * an object with an op and the same parameters as the route for that method,
+ * e.g. {"op": "createDevice", "deviceId": "DeviceA", "type": "HandheldDevice",
+ * "position": 1.5}. Positions are in radians.
+ */
+public class BatchCommand {
+  public static final String CREATE_DEVICE = "createDevice";
+  public static final String REMOVE_DEVICE = "removeDevice";
+  public static final String CREATE_SATELLITE = "createSatellite";
+  public static final String REMOVE_SATELLITE = "removeSatellite";
+  public static final String ADD_FILE_TO_DEVICE = "addFileToDevice";
+  public static final String SEND_FILE = "sendFile";
+  public static final String CREATE_SLOPE = "createSlope";
+
+  private String op;
+  private String deviceId;
+  private String satelliteId;
+  private String type;
+  private Double position;
+  private Double height;
+  private boolean isMoving;
+  private String fileName;
+  private String content;
+  private String fromId;
+  private String toId;
+  private Integer startAngle;
+  private Integer endAngle;
+  private Integer gradient;
+
+  private BatchCommand(String op) {
+    this.op = op;
+  }
+
+  public static BatchCommand createDevice(String deviceId, String type, Angle position, boolean isMoving) {
+    BatchCommand command = new BatchCommand(CREATE_DEVICE);
+    command.deviceId = deviceId;
+    command.type = type;
+    command.position = position.toRadians();
+    command.isMoving = isMoving;
+    return command;
+  }
+
+  public static BatchCommand removeDevice(String deviceId) {
+    BatchCommand command = new BatchCommand(REMOVE_DEVICE);
+    command.deviceId = deviceId;
+    return command;
+  }
+
+  public static BatchCommand createSatellite(String satelliteId, String type, double height, Angle position) {
+    BatchCommand command = new BatchCommand(CREATE_SATELLITE);
+    command.satelliteId = satelliteId;
+    command.type = type;
+    command.height = height;
+    command.position = position.toRadians();
+    return command;
+  }
+
+  public static BatchCommand removeSatellite(String satelliteId) {
+    BatchCommand command = new BatchCommand(REMOVE_SATELLITE);
+    command.satelliteId = satelliteId;
+    return command;
+  }
+
+  public static BatchCommand addFileToDevice(String deviceId, String fileName, String content) {
+    BatchCommand command = new BatchCommand(ADD_FILE_TO_DEVICE);
+    command.deviceId = deviceId;
+    command.fileName = fileName;
+    command.content = content;
+    return command;
+  }
+
+  public static BatchCommand sendFile(String fileName, String fromId, String toId) {
+    BatchCommand command = new BatchCommand(SEND_FILE);
+    command.fileName = fileName;
+    command.fromId = fromId;
+    command.toId = toId;
+    return command;
+  }
+
+  public static BatchCommand createSlope(int startAngle, int endAngle, int gradient) {
+    BatchCommand command = new BatchCommand(CREATE_SLOPE);
+    command.startAngle = startAngle;
+    command.endAngle = endAngle;
+    command.gradient = gradient;
+    return command;
+  }
+
+  public String getOp() {
+    return op;
+  }
+
+  /**
+   * Does what this command says to the given controller.
+   *
+   * @throws FileTransferException    if a file can't be sent
+   * @throws IllegalArgumentException if the op isn't known or is missing one
+   *                                  of its parameters
+   */
+  void applyTo(BlackoutController controller) throws FileTransferException {
+    if (op == null) {
+      throw new IllegalArgumentException("A command needs an op");
+    }
+
+    switch (op) {
+    case CREATE_DEVICE:
+      controller.createDevice(required(deviceId, "deviceId"), required(type, "type"),
+          Angle.fromRadians(required(position, "position")), isMoving);
+      break;
+    case REMOVE_DEVICE:
+      controller.removeDevice(required(deviceId, "deviceId"));
+      break;
+    case CREATE_SATELLITE:
+      controller.createSatellite(required(satelliteId, "satelliteId"), required(type, "type"),
+          required(height, "height"), Angle.fromRadians(required(position, "position")));
+      break;
+    case REMOVE_SATELLITE:
+      controller.removeSatellite(required(satelliteId, "satelliteId"));
+      break;
+    case ADD_FILE_TO_DEVICE:
+      controller.addFileToDevice(required(deviceId, "deviceId"), required(fileName, "fileName"),
+          required(content, "content"));
+      break;
+    case SEND_FILE:
+      controller.sendFile(required(fileName, "fileName"), required(fromId, "fromId"), required(toId, "toId"));
+      break;
+    case CREATE_SLOPE:
+      controller.createSlope(required(startAngle, "startAngle"), required(endAngle, "endAngle"),
+          required(gradient, "gradient"));
+      break;
+    default:
+      throw new IllegalArgumentException("Unknown op " + op);
+    }
+  }
+
+  private <T> T required(T value, String name) {
+    if (value == null) {
+      throw new IllegalArgumentException(op + " needs " + name);
+    }
+    return value;
+  }
+}
@@ -1,72 +1,95 @@
 package unsw.blackout;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+
+import unsw.response.models.BatchResultResponse;
+import unsw.response.models.EntityDeltaResponse;
 import unsw.response.models.EntityInfoResponse;
+import unsw.response.models.SimulationDeltaResponse;
 import unsw.utils.Angle;
 
 public class BlackoutController {
-  private List<Devices> devices = new ArrayList<>();
-  private List<Satellite> satellites = new ArrayList<>();
+  // Entities are keyed by id so lookups and removals are O(1), while the
+  // linked map keeps the insertion order the ids are listed and simulated in
+  private Map<String, Devices> devices = new LinkedHashMap<>();
+  private Map<String, Satellite> satellites = new LinkedHashMap<>();
+  private SpatialIndex spatialIndex = new SpatialIndex();
+  private ActiveTransfers activeTransfers = new ActiveTransfers();
+  private VisibilityMatrix visibilityMatrix;
+  private SimulationMetrics metrics = new SimulationMetrics();
+  private List<TickListener> tickListeners = new CopyOnWriteArrayList<>();
+  // the slot of every id in the last view, thrown away whenever anything is
+  // created or removed
+  private Map<String, Integer> viewSlots;
+  // when set, each tick is split across this pool instead of the calling thread
+  private ForkJoinPool simulationPool;
 
   public void createDevice(String deviceId, String type, Angle position) {
     Devices newDevice = createNewDevice(deviceId, type, position);
-    devices.add(newDevice);
+    removeDevice(deviceId);
+    devices.put(deviceId, newDevice);
+    viewSlots = null;
+    spatialIndex.add(newDevice);
+    activeTransfers.register(newDevice);
+    newDevice.setMetrics(metrics);
   }
 
   public void removeDevice(String deviceId) {
-    List<Devices> devicesToRemove = new ArrayList<>();
-
-    for (Devices device : devices) {
-      if (device.getDeviceId().equals(deviceId)) {
-        devicesToRemove.add(device);
-      }
+    Devices device = devices.remove(deviceId);
+    if (device != null) {
+      forget(device);
     }
-
-    devices.removeAll(devicesToRemove);
   }
 
   public void createSatellite(String satelliteId, String type, double height, Angle position) {
     Satellite newSatellite = createNewSatellite(satelliteId, type, height, position);
-    satellites.add(newSatellite);
+    removeSatellite(satelliteId);
+    satellites.put(satelliteId, newSatellite);
+    viewSlots = null;
+    spatialIndex.add(newSatellite);
+    activeTransfers.register(newSatellite);
+    newSatellite.setMetrics(metrics);
   }
 
   public void removeSatellite(String satelliteId) {
-    List<Satellite> satellitesToRemove = new ArrayList<>();
-
-    for (Satellite satellite : satellites) {
-      if (satellite.getSatelliteId().equals(satelliteId)) {
-        satellitesToRemove.add(satellite);
-      }
+    Satellite satellite = satellites.remove(satelliteId);
+    if (satellite != null) {
+      forget(satellite);
     }
-
-    satellites.removeAll(satellitesToRemove);
   }
 
   public List<String> listDeviceIds() {
-    List<String> listOfDeviceIds = new ArrayList<>();
-
-    for (Devices device : devices) {
-      listOfDeviceIds.add(device.getDeviceId());
-    }
-
-    return listOfDeviceIds;
+    return new ArrayList<>(devices.keySet());
   }
 
   public List<String> listSatelliteIds() {
-    List<String> listOfSatelliteIds = new ArrayList<>();
-
-    for (Satellite satellite : satellites) {
-      listOfSatelliteIds.add(satellite.getSatelliteId());
-    }
-
-    return listOfSatelliteIds;
+    return new ArrayList<>(satellites.keySet());
   }
 
   public void addFileToDevice(String deviceId, String filename, String content) {
     Devices device = findDeviceById(deviceId);
     if (device != null) {
+      Files replacedFile = device.findFileinList(filename);
+      if (replacedFile != null && replacedFile.getBytesTransmitted() < replacedFile.getSize()) {
+        // the file being replaced is still being recieved, so its transfer has to stop first
+        cancelTransfer(replacedFile);
+      }
       device.setFilesList(filename, content, device, device);
     }
   }
@@ -88,49 +111,284 @@ public class BlackoutController {
     return null;
   }
 
+  /**
+   * Gets the info of the given devices and satellites as JSON, which is much
+   * cheaper than getInfo for many of them since the JSON of any that haven't
+   * changed since it was last asked for is reused. Ids that aren't a device or
+   * satellite are left out.
+   */
+  public EncodedInfo encodeInfo(List<String> ids) {
+    List<EntityView> entities = new ArrayList<>(ids.size());
+    for (String id : ids) {
+      DeviceSatellite entity = getObject(id);
+      if (entity != null) {
+        entities.add(entity.getView());
+      }
+    }
+    return new EncodedInfo(entities);
+  }
+
+  /**
+   * Gets the info of every satellite and then every device as JSON.
+   */
+  public EncodedInfo encodeAllInfo() {
+    return view().encodeAllInfo();
+  }
+
+  /**
+   * Takes a view of the whole simulation as it is now, which can be read from
+   * any thread without holding the simulation's lock. It does this by: 1.
+   * taking the view of every satellite and then every device, which each only
+   * takes again if it changed since last time 2. reusing the slot of every id
+   * from the last view if nothing has been created or removed since. Taking a
+   * view of a simulation where little has changed is a copy of one reference
+   * per device and satellite.
+   */
+  public SimulationView view() {
+    EntityView[] entities = new EntityView[satellites.size() + devices.size()];
+    int slot = 0;
+    for (Satellite satellite : satellites.values()) {
+      entities[slot++] = satellite.getView();
+    }
+    for (Devices device : devices.values()) {
+      entities[slot++] = device.getView();
+    }
+
+    if (viewSlots == null) {
+      viewSlots = SimulationView.slotsOf(entities);
+    }
+    return new SimulationView(entities, satellites.size(), viewSlots);
+  }
+
+  /**
+   * Writes everything about the simulation in a compact binary format, which
+   * restore reads back into a simulation that carries on exactly as this one
+   * would. The stream is left open.
+   */
+  public void snapshot(OutputStream out) throws IOException {
+    ControllerSnapshot.write(this, out);
+  }
+
+  public void snapshot(Path path) throws IOException {
+    try (OutputStream out = Channels.newOutputStream(FileChannel.open(path, StandardOpenOption.WRITE,
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING))) {
+      snapshot(out);
+    }
+  }
+
+  /**
+   * Reads back a simulation from a snapshot. Nothing of the snapshot is kept,
+   * so the buffer can be reused afterwards.
+   *
+   * @throws IOException if the bytes aren't a whole snapshot
+   */
+  public static BlackoutController restore(ByteBuffer snapshot) throws IOException {
+    return ControllerSnapshot.read(snapshot);
+  }
+
+  public static BlackoutController restore(InputStream in) throws IOException {
+    return restore(ByteBuffer.wrap(in.readAllBytes()));
+  }
+
+  /**
+   * Reads back a simulation from a snapshot file. The file is mapped into
+   * memory rather than read into an array first, so a big snapshot is only
+   * ever read once and never copied.
+   */
+  public static BlackoutController restore(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return restore(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * Applies a batch of commands in order, carrying on past any that fail. The
+   * storage for devices and satellites is made big enough for the whole batch
+   * first, so creating thousands of them doesn't keep growing it.
+   *
+   * @param commands the commands to apply, in order
+   * @return what happened to each command, in the same order
+   */
+  public List<BatchResultResponse> executeBatch(List<BatchCommand> commands) {
+    int newDevices = 0;
+    int newSatellites = 0;
+    for (BatchCommand command : commands) {
+      if (command == null) {
+        continue;
+      } else if (BatchCommand.CREATE_DEVICE.equals(command.getOp())) {
+        newDevices++;
+      } else if (BatchCommand.CREATE_SATELLITE.equals(command.getOp())) {
+        newSatellites++;
+      }
+    }
+    ensureCapacity(devices.size() + newDevices, satellites.size() + newSatellites);
+
+    List<BatchResultResponse> results = new ArrayList<>(commands.size());
+    for (BatchCommand command : commands) {
+      try {
+        if (command == null) {
+          throw new IllegalArgumentException("A command can't be null");
+        }
+        command.applyTo(this);
+        results.add(BatchResultResponse.succeeded());
+      } catch (FileTransferException | RuntimeException e) {
+        results.add(BatchResultResponse.failed(e));
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Makes room for the given number of devices and satellites. Maps can't be
+   * grown in place, so they're copied into bigger ones, keeping their order.
+   */
+  void ensureCapacity(int deviceCount, int satelliteCount) {
+    if (deviceCount > devices.size()) {
+      Map<String, Devices> resized = new LinkedHashMap<>(capacityFor(deviceCount));
+      resized.putAll(devices);
+      devices = resized;
+    }
+    if (satelliteCount > satellites.size()) {
+      Map<String, Satellite> resized = new LinkedHashMap<>(capacityFor(satelliteCount));
+      resized.putAll(satellites);
+      satellites = resized;
+    }
+    spatialIndex.ensureCapacity(deviceCount + satelliteCount);
+    activeTransfers.ensureCapacity(deviceCount + satelliteCount);
+  }
+
+  /**
+   * Gets the capacity a hash map needs to hold the given number of entries
+   * without resizing.
+   */
+  static int capacityFor(int entries) {
+    return (int) Math.min(Integer.MAX_VALUE, (long) Math.ceil(entries / 0.75));
+  }
+
   public void simulate() {
-    for (Satellite satellite : satellites) {
+    metrics.recordTick();
+    if (simulationPool != null) {
+      simulateInParallel();
+      notifyTickListeners(1);
+      return;
+    }
+
+    long moveStart = System.nanoTime();
+    for (Satellite satellite : satellites.values()) {
       satellite.moveByOneMinute();
+      spatialIndex.update(satellite);
     }
 
-    for (Devices device : devices) {
-      device.transferFiles();
+    if (visibilityMatrix != null) {
+      buildVisibilityMatrix();
     }
 
-    for (Satellite satellite : satellites) {
-      satellite.transferFiles();
+    long transfersStart = System.nanoTime();
+    metrics.recordMovePhase(transfersStart - moveStart);
+
+    // transfers to devices come first, so the clock is only read once more
+    // when the transfers to satellites start
+    long satelliteTransfersStart = -1;
+    for (Files transfer : activeTransfers.getTransfers()) {
+      if (satelliteTransfersStart < 0 && transfer.getReciever() instanceof Satellite) {
+        satelliteTransfersStart = System.nanoTime();
+      }
+
+      TransferStatus status = transfer.updateFileTransfer();
+      if (status != TransferStatus.IN_PROGRESS) {
+        metrics.recordTransferFinished(status);
+        activeTransfers.remove(transfer);
+      }
+    }
+
+    long transfersEnd = System.nanoTime();
+    if (satelliteTransfersStart < 0) {
+      satelliteTransfersStart = transfersEnd;
     }
+    metrics.recordDeviceTransferPhase(satelliteTransfersStart - transfersStart);
+    metrics.recordSatelliteTransferPhase(transfersEnd - satelliteTransfersStart);
+    notifyTickListeners(1);
   }
 
   /**
-   * Simulate for the specified number of minutes. You shouldn't need to modify
-   * this function.
+   * Simulate for the specified number of minutes. Rather than going minute by
+   * minute, it jumps straight over stretches of minutes where nothing
+   * interesting happens. It does this by: 1. asking every transfer in flight how
+   * many of the coming minutes are uneventful for it 2. fast forwarding every
+   * satellite and transfer over the shortest of those stretches 3. simulating
+   * the minute after it normally, since that's where the next event happens.
+   * With no transfers in flight the whole run is a single fast forward.
    */
   public void simulate(int numberOfMinutes) {
+    int remainingMinutes = numberOfMinutes;
+
+    while (remainingMinutes > 0) {
+      int quietMinutes = Math.min(remainingMinutes, minutesUntilNextEvent());
+      if (quietMinutes > 0) {
+        fastForward(quietMinutes);
+        remainingMinutes -= quietMinutes;
+      }
+
+      if (remainingMinutes > 0) {
+        simulate();
+        remainingMinutes--;
+      }
+    }
+  }
+
+  /**
+   * Simulates minute by minute like simulate(), but instead of the state after
+   * every minute it gives the state before the first minute once, followed by
+   * only what changed in each minute. Every satellite moves in every minute,
+   * but file data is only sent when it changes, and then only the bytes that
+   * were added if nothing before them changed.
+   *
+   * @param numberOfMinutes the number of minutes to simulate
+   * @return the initial state and what changed in each minute
+   */
+  public SimulationDeltaResponse simulateWithDeltas(int numberOfMinutes) {
+    Map<String, EntityInfoResponse> initial = new HashMap<>();
+    for (DeviceSatellite entity : getEntities()) {
+      initial.put(entity.getId(), getInfo(entity.getId()));
+    }
+
+    DeltaTracker tracker = new DeltaTracker(this);
+    List<Map<String, EntityDeltaResponse>> minutes = new ArrayList<>(numberOfMinutes);
     for (int i = 0; i < numberOfMinutes; i++) {
       simulate();
+      minutes.add(tracker.update());
     }
+    return new SimulationDeltaResponse(initial, minutes);
   }
 
   public List<String> communicableEntitiesInRange(String id) {
     // TODO: Task 2 b) implement relay satellite logic
 
-    List<String> communicableEntityIds = new ArrayList<String>();
     DeviceSatellite object = getObject(id);
+    List<DeviceSatellite> satellitesInRange = new ArrayList<>();
+    List<DeviceSatellite> devicesInRange = new ArrayList<>();
 
     // Abides law of demeter
-    for (Satellite satellite : satellites) {
-      if (satellite.canCommunicate(object)) {
-        communicableEntityIds.add(satellite.getId());
+    for (DeviceSatellite candidate : spatialIndex.findCandidates(object, object.getRange())) {
+      if (candidate instanceof Satellite && ((Satellite) candidate).canCommunicate(object)) {
+        satellitesInRange.add(candidate);
+      } else if (candidate instanceof Devices && ((Devices) candidate).canCommunicate(object)) {
+        devicesInRange.add(candidate);
       }
     }
 
-    for (Devices device : devices) {
-      if (device.canCommunicate(object)) {
-        communicableEntityIds.add(device.getId());
-      }
-    }
+    // the index hands candidates back bucket by bucket, so put them back in the
+    // order they were created: satellites first, then devices
+    satellitesInRange.sort(activeTransfers.inCreationOrder());
+    devicesInRange.sort(activeTransfers.inCreationOrder());
 
+    List<String> communicableEntityIds = new ArrayList<String>(satellitesInRange.size() + devicesInRange.size());
+    for (DeviceSatellite entity : satellitesInRange) {
+      communicableEntityIds.add(entity.getId());
+    }
+    for (DeviceSatellite entity : devicesInRange) {
+      communicableEntityIds.add(entity.getId());
+    }
     return communicableEntityIds;
   }
 
@@ -140,8 +398,6 @@ public class BlackoutController {
     DeviceSatellite getReciever = getObject(toId);
     Files senderFile = getSender.findFileinList(fileName);
     Files recieverFile = getReciever.findFileinList(fileName);
-    List<Files> recieverFilesList = getReciever.getFiles();
-    int currentBytesInFile = 0;
 
     // File doesn't exist on fromId or it's a partial file (hasn't finished
     // transferring)
@@ -160,20 +416,16 @@ public class BlackoutController {
           "Relay Satellites do not have any upload or download bandwith");
     }
 
-    for (Files file : getReciever.getFiles()) {
-      currentBytesInFile += file.getSize();
-    }
-
-    if (currentBytesInFile + senderFile.getSize() > getReciever.getMaxBytes()) {
+    if (getReciever.getStoredBytes() + senderFile.getSize() > getReciever.getMaxBytes()) {
       throw new FileTransferException.VirtualFileNoBandwidthException(
           toId + " doesn't have enough bandwith to recieve " + senderFile.getFilename());
     }
 
-    if (getReciever.getFiles().size() + 1 > getReciever.getMaxFiles()) {
+    if (getReciever.getNumberOfFiles() + 1 > getReciever.getMaxFiles()) {
       throw new FileTransferException.VirtualFileNoStorageSpaceException("Max Files Reached");
     }
 
-    startDownloadUpload(getSender, getReciever, senderFile, recieverFilesList);
+    startDownloadUpload(getSender, getReciever, senderFile);
   }
 
   public void createDevice(String deviceId, String type, Angle position, boolean isMoving) {
@@ -186,14 +438,64 @@ public class BlackoutController {
     // If you are not completing Task 3 you can leave this method blank :)
   }
 
+  /**
+   * Runs each tick of the simulation on the given pool, or on the calling
+   * thread if the pool is null. Ticks run in parallel give exactly the same
+   * results as ticks run sequentially.
+   *
+   * @param pool the pool to run ticks on, e.g. ForkJoinPool.commonPool()
+   */
+  public void setSimulationPool(ForkJoinPool pool) {
+    simulationPool = pool;
+  }
+
+  /**
+   * Turns the per tick visibility matrix on or off. While it is on, every range
+   * check between entities that existed at the start of the tick is a lookup,
+   * at the cost of rebuilding the matrix after each move phase and keeping two
+   * entries for every pair of entities that are in range.
+   *
+   * @param enabled whether range checks should use the visibility matrix
+   */
+  public void setVisibilityMatrixEnabled(boolean enabled) {
+    if (enabled) {
+      buildVisibilityMatrix();
+    } else {
+      visibilityMatrix = null;
+      for (DeviceSatellite entity : getEntities()) {
+        entity.setVisibilityMatrix(null, 0);
+      }
+    }
+  }
+
+  /**
+   * Gets the counters and tick timings of this simulation, which can be read
+   * from any thread while it is running.
+   */
+  public SimulationMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Adds something to tell whenever the simulation moves forward, whether by a
+   * single minute or by skipping over uneventful ones.
+   */
+  public void addTickListener(TickListener listener) {
+    tickListeners.add(listener);
+  }
+
+  public void removeTickListener(TickListener listener) {
+    tickListeners.remove(listener);
+  }
+
   ////////////////////////////////////// HELPER FUNCTIONS
   ////////////////////////////////////// /////////////////////////////////////////////
 
   private Devices createNewDevice(String deviceId, String type, Angle position) {
-    switch (type) {
-    case "HandheldDevice":
+    switch (EntityType.fromDeviceType(type)) {
+    case HANDHELD_DEVICE:
       return new HandheldDevice(deviceId, type, position);
-    case "DesktopDevice":
+    case DESKTOP_DEVICE:
       return new DesktopDevice(deviceId, type, position);
     default:
       return new LaptopDevice(deviceId, type, position);
@@ -201,34 +503,236 @@ public class BlackoutController {
   }
 
   private Satellite createNewSatellite(String satelliteId, String type, double height, Angle position) {
-    switch (type) {
-    case "StandardSatellite":
+    switch (EntityType.fromSatelliteType(type)) {
+    case STANDARD_SATELLITE:
       return new StandardSatellite(satelliteId, type, height, position);
-    case "TeleportingSatellite":
+    case TELEPORTING_SATELLITE:
       return new TeleportingSatellite(satelliteId, type, height, position);
-    case "RelaySatellite":
+    case RELAY_SATELLITE:
       return new RelaySatellite(satelliteId, type, height, position);
     default:
-      return new StandardSatellite(satelliteId, "StandardSatellite", height, position);
+      return new StandardSatellite(satelliteId, EntityType.STANDARD_SATELLITE.getTypeName(), height, position);
     }
   }
 
   private Devices findDeviceById(String deviceId) {
-    for (Devices device : devices) {
-      if (device.getDeviceId().equals(deviceId)) {
-        return device;
+    return devices.get(deviceId);
+  }
+
+  private Satellite findSatelliteById(String satelliteId) {
+    return satellites.get(satelliteId);
+  }
+
+  /**
+   * Works out how many of the coming minutes have no events in them, which is
+   * the shortest stretch of uneventful minutes of any transfer in flight.
+   * Moving satellites are never events by themselves, since fast forwarding
+   * takes care of teleports and direction changes. Every event changes the
+   * bandwidth share of other transfers, so the next event is worked out again
+   * after each one rather than kept in a queue.
+   */
+  private int minutesUntilNextEvent() {
+    int quietMinutes = Integer.MAX_VALUE;
+    for (Files file : activeTransfers.getTransfers()) {
+      quietMinutes = Math.min(quietMinutes, file.minutesUntilNextEvent());
+      if (quietMinutes == 0) {
+        break;
       }
     }
-    return null;
+    return quietMinutes;
   }
 
-  private Satellite findSatelliteById(String satelliteId) {
-    for (Satellite satellite : satellites) {
-      if (satellite.getSatelliteId().equals(satelliteId)) {
-        return satellite;
+  /**
+   * Moves every satellite and transfer forward by a number of minutes that
+   * minutesUntilNextEvent says are uneventful.
+   */
+  private void fastForward(int minutes) {
+    List<Files> pendingFiles = activeTransfers.getTransfers();
+    metrics.recordFastForward(minutes);
+
+    for (Satellite satellite : satellites.values()) {
+      satellite.advance(minutes);
+      spatialIndex.update(satellite);
+    }
+
+    if (visibilityMatrix != null) {
+      buildVisibilityMatrix();
+    }
+
+    for (Files file : pendingFiles) {
+      file.fastForward(minutes);
+    }
+    notifyTickListeners(minutes);
+  }
+
+  private void notifyTickListeners(int minutes) {
+    for (TickListener listener : tickListeners) {
+      listener.ticked(this, minutes);
+    }
+  }
+
+  /**
+   * Simulates one minute using the simulation pool. It does this by: 1. moving
+   * every satellite in parallel, since a move only touches the satellite itself
+   * 2. taking every transfer in flight in the order the sequential loop would
+   * update them 3. grouping transfers that share a sender or reciever,
+   * since a transfer only reads and writes the files and bandwidth counters of
+   * its own sender and reciever 4. updating the groups in parallel while
+   * keeping the sequential order within each group. Each counter is then
+   * updated in the same order as it would be sequentially, so the results are
+   * identical.
+   */
+  private void simulateInParallel() {
+    long moveStart = System.nanoTime();
+    simulationPool.submit(() -> satellites.values().parallelStream().forEach(Satellite::moveByOneMinute)).join();
+    for (Satellite satellite : satellites.values()) {
+      spatialIndex.update(satellite);
+    }
+
+    if (visibilityMatrix != null) {
+      buildVisibilityMatrix();
+    }
+
+    long transfersStart = System.nanoTime();
+    metrics.recordMovePhase(transfersStart - moveStart);
+
+    List<List<Files>> groups = groupBySharedEntities(activeTransfers.getTransfers());
+    Queue<Files> finishedTransfers = new ConcurrentLinkedQueue<>();
+    simulationPool.submit(() -> groups.parallelStream().forEach(group -> {
+      for (Files file : group) {
+        TransferStatus status = file.updateFileTransfer();
+        if (status != TransferStatus.IN_PROGRESS) {
+          metrics.recordTransferFinished(status);
+          finishedTransfers.add(file);
+        }
       }
+    })).join();
+    metrics.recordParallelTransferPhase(System.nanoTime() - transfersStart);
+
+    for (Files file : finishedTransfers) {
+      activeTransfers.remove(file);
     }
-    return null;
+  }
+
+  /**
+   * Splits transfers into groups where no two groups share a sender or
+   * reciever, using union find over the entities. Groups and the transfers
+   * within them keep the order they appear in the given list.
+   */
+  private List<List<Files>> groupBySharedEntities(List<Files> transfers) {
+    Map<DeviceSatellite, DeviceSatellite> parents = new HashMap<>();
+    for (Files transfer : transfers) {
+      DeviceSatellite senderRoot = findRoot(parents, transfer.getSender());
+      DeviceSatellite recieverRoot = findRoot(parents, transfer.getReciever());
+      if (senderRoot != recieverRoot) {
+        parents.put(recieverRoot, senderRoot);
+      }
+    }
+
+    Map<DeviceSatellite, List<Files>> groups = new LinkedHashMap<>();
+    for (Files transfer : transfers) {
+      DeviceSatellite root = findRoot(parents, transfer.getSender());
+      groups.computeIfAbsent(root, key -> new ArrayList<>()).add(transfer);
+    }
+    return new ArrayList<>(groups.values());
+  }
+
+  private static DeviceSatellite findRoot(Map<DeviceSatellite, DeviceSatellite> parents, DeviceSatellite entity) {
+    DeviceSatellite root = entity;
+    DeviceSatellite parent = parents.get(root);
+    while (parent != null && parent != root) {
+      root = parent;
+      parent = parents.get(root);
+    }
+
+    // point everything on the path straight at the root so later finds are quick
+    DeviceSatellite current = entity;
+    while (current != root) {
+      DeviceSatellite next = parents.get(current);
+      parents.put(current, root);
+      current = next;
+    }
+    return root;
+  }
+
+  /**
+   * Gets every satellite followed by every device, in the order they were
+   * created.
+   */
+  List<DeviceSatellite> getEntities() {
+    List<DeviceSatellite> entities = new ArrayList<>(satellites.size() + devices.size());
+    entities.addAll(satellites.values());
+    entities.addAll(devices.values());
+    return entities;
+  }
+
+  /**
+   * Gets every transfer in flight, in the order they're updated.
+   */
+  List<Files> getTransfers() {
+    return activeTransfers.getTransfers();
+  }
+
+  /**
+   * Adds a device or satellite read back from a snapshot, after every one
+   * that was added before it.
+   */
+  void addRestored(DeviceSatellite entity) {
+    if (entity instanceof Satellite) {
+      satellites.put(entity.getId(), (Satellite) entity);
+    } else {
+      devices.put(entity.getId(), (Devices) entity);
+    }
+    viewSlots = null;
+    spatialIndex.add(entity);
+    activeTransfers.register(entity);
+    entity.setMetrics(metrics);
+  }
+
+  /**
+   * Adds a transfer read back from a snapshot, after every one to the same
+   * reciever that was added before it.
+   */
+  void addRestoredTransfer(Files transfer) {
+    activeTransfers.add(transfer);
+  }
+
+  /**
+   * Takes a device or satellite that has just been removed out of the
+   * simulation. It does this by: 1. cancelling every transfer it was sending or
+   * recieving, the same way a transfer that goes out of range is cancelled, so
+   * whoever is on the other end gets their bandwidth back 2. taking it out of
+   * the spatial index and the transfer order. Only an entity with transfers in
+   * flight has to look through them.
+   */
+  private void forget(DeviceSatellite entity) {
+    if (entity.getNumFilesUploading() > 0 || entity.getNumFilesDownloading() > 0) {
+      for (Files transfer : activeTransfers.getTransfers()) {
+        if (transfer.getSender() == entity || transfer.getReciever() == entity) {
+          cancelTransfer(transfer);
+        }
+      }
+    }
+    viewSlots = null;
+    spatialIndex.remove(entity);
+    activeTransfers.unregister(entity);
+  }
+
+  /**
+   * Cancels a transfer in flight, removing the partial file from its reciever
+   * and giving the bandwidth back to both ends.
+   */
+  private void cancelTransfer(Files transfer) {
+    transfer.getReciever().removeIncompleteFile(transfer, transfer.getReciever(), transfer.getSender());
+    activeTransfers.remove(transfer);
+    metrics.recordTransferFinished(TransferStatus.CANCELLED);
+  }
+
+  private void buildVisibilityMatrix() {
+    if (visibilityMatrix == null) {
+      visibilityMatrix = new VisibilityMatrix();
+    }
+    visibilityMatrix.rebuild(getEntities(), spatialIndex);
   }
 
   public DeviceSatellite getObject(String id) {
@@ -241,13 +745,11 @@ public class BlackoutController {
     }
   }
 
-  private void startDownloadUpload(DeviceSatellite getSender, DeviceSatellite getReciever, Files senderFile,
-      List<Files> recieverFilesList) {
-    Files fileToSend = new Files(senderFile.getFilename(), "", 0, senderFile.getFutureContent(), getSender,
-        getReciever);
-    recieverFilesList.add(fileToSend);
-    getReciever.setFiles(recieverFilesList);
+  private void startDownloadUpload(DeviceSatellite getSender, DeviceSatellite getReciever, Files senderFile) {
+    Files fileToSend = new Files(senderFile.getFilename(), 0, senderFile.getFutureContent(), getSender, getReciever);
+    getReciever.addFile(fileToSend);
     getReciever.setNumFilesDownloading(getReciever.getNumFilesDownloading() + 1);
     getSender.setNumFilesUploading(getSender.getNumFilesUploading() + 1);
+    activeTransfers.add(fileToSend);
   }
 }
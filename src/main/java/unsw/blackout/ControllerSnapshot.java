@@ -0,0 +1,430 @@
+package unsw.blackout;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import unsw.utils.Angle;
+
+/**
+ * Writes everything a simulation needs to carry on to bytes and reads it back,
+ * so a simulation can be put away and later carry on exactly where it was. A
+ * snapshot is: 1. the bytes 'B' 'S' 'N' 'P' and the version 2. the number of
+ * satellites and of devices 3. each satellite and then each device, being its
+ * kind, id, type, position in radians, height, how many files it's uploading
+ * and downloading and, for satellites, its direction and (for teleporting
+ * satellites) whether it has teleported 4. the files of each of them in the
+ * same order, being a count followed by each file's name, content, size, bytes
+ * transmitted, sender and reciever 5. the transfers in flight in the order
+ * they're updated, each being its reciever and its name.
+ *
+ * Whole numbers are unsigned LEB128 varints, except the file counts, which
+ * are zigzag encoded since nothing stops them going below 0. Positions and
+ * heights are big endian doubles. Types, file names and contents are written
+ * the first time as their index in the snapshot's table of strings followed
+ * by the string (a varint length in bytes and UTF-8), and after that as just
+ * the index, so the same content being sent to many places is only written
+ * once. A sender or reciever is 0 for none, 1 for whatever holds the file and
+ * otherwise 2 more than its position in the satellites and then devices.
+ *
+ * What the kind decides, like bandwidth and storage limits, isn't written, nor
+ * is anything that isn't the state of the simulation, like its metrics,
+ * listeners, simulation pool or visibility matrix.
+ */
+final class ControllerSnapshot {
+  private static final byte[] MAGIC = {'B', 'S', 'N', 'P'};
+  private static final int VERSION = 1;
+
+  private static final int HANDHELD_DEVICE = 1;
+  private static final int LAPTOP_DEVICE = 2;
+  private static final int DESKTOP_DEVICE = 3;
+  private static final int STANDARD_SATELLITE = 4;
+  private static final int TELEPORTING_SATELLITE = 5;
+  private static final int RELAY_SATELLITE = 6;
+
+  private static final int NO_ENTITY = 0;
+  private static final int HOLDER = 1;
+
+  private ControllerSnapshot() {
+  }
+
+  static void write(BlackoutController controller, OutputStream out) throws IOException {
+    new Writer(out).write(controller);
+  }
+
+  static BlackoutController read(ByteBuffer in) throws IOException {
+    try {
+      return new Reader(in).read();
+    } catch (BufferUnderflowException e) {
+      throw new EOFException("Snapshot ends too early");
+    }
+  }
+
+  /**
+   * Writes through its own buffer, since BufferedOutputStream takes a lock for
+   * every byte written.
+   */
+  private static final class Writer {
+    private final OutputStream out;
+    private final byte[] buffer = new byte[1 << 16];
+    private int size;
+    private final Map<String, Integer> strings = new HashMap<>();
+    private final Map<DeviceSatellite, Integer> indices = new IdentityHashMap<>();
+
+    Writer(OutputStream out) {
+      this.out = out;
+    }
+
+    void write(BlackoutController controller) throws IOException {
+      List<DeviceSatellite> entities = controller.getEntities();
+      int satelliteCount = 0;
+      for (DeviceSatellite entity : entities) {
+        indices.put(entity, indices.size());
+        if (entity instanceof Satellite) {
+          satelliteCount++;
+        }
+      }
+
+      writeBytes(MAGIC);
+      writeByte(VERSION);
+      writeVarint(satelliteCount);
+      writeVarint(entities.size() - satelliteCount);
+      for (DeviceSatellite entity : entities) {
+        writeEntity(entity);
+      }
+      for (DeviceSatellite entity : entities) {
+        writeFiles(entity);
+      }
+
+      // a transfer is found again by its name on its reciever, so one that
+      // isn't stored there anymore can't be brought back
+      List<Files> transfers = new ArrayList<>();
+      for (Files transfer : controller.getTransfers()) {
+        DeviceSatellite reciever = transfer.getReciever();
+        if (indices.containsKey(reciever) && reciever.findFileinList(transfer.getFilename()) == transfer) {
+          transfers.add(transfer);
+        }
+      }
+      writeVarint(transfers.size());
+      for (Files transfer : transfers) {
+        writeVarint(indices.get(transfer.getReciever()));
+        writeShared(transfer.getFilename());
+      }
+      flush();
+    }
+
+    private void writeEntity(DeviceSatellite entity) throws IOException {
+      writeByte(kindOf(entity));
+      writeString(entity.getId());
+      writeShared(entity.getType());
+      writeDouble(entity.getPositionRadians());
+      writeDouble(entity.getHeight());
+      writeZigzag(entity.getNumFilesUploading());
+      writeZigzag(entity.getNumFilesDownloading());
+      if (entity instanceof StandardSatellite) {
+        writeZigzag(((StandardSatellite) entity).getDirection());
+      } else if (entity instanceof RelaySatellite) {
+        writeZigzag(((RelaySatellite) entity).getDirection());
+      } else if (entity instanceof TeleportingSatellite) {
+        TeleportingSatellite satellite = (TeleportingSatellite) entity;
+        writeZigzag(satellite.getDirection());
+        writeByte(satellite.isTeleportIsComplete() ? 1 : 0);
+      }
+    }
+
+    private static int kindOf(DeviceSatellite entity) {
+      if (entity instanceof HandheldDevice) {
+        return HANDHELD_DEVICE;
+      } else if (entity instanceof LaptopDevice) {
+        return LAPTOP_DEVICE;
+      } else if (entity instanceof DesktopDevice) {
+        return DESKTOP_DEVICE;
+      } else if (entity instanceof StandardSatellite) {
+        return STANDARD_SATELLITE;
+      } else if (entity instanceof TeleportingSatellite) {
+        return TELEPORTING_SATELLITE;
+      } else if (entity instanceof RelaySatellite) {
+        return RELAY_SATELLITE;
+      }
+      throw new IllegalArgumentException("Can't snapshot a " + entity.getClass().getSimpleName());
+    }
+
+    private void writeFiles(DeviceSatellite holder) throws IOException {
+      writeVarint(holder.getNumberOfFiles());
+      for (Files file : holder.getFiles()) {
+        writeShared(file.getFilename());
+        writeShared(file.getFutureContent());
+        writeVarint(file.getSize());
+        writeVarint(file.getBytesTransmitted());
+        writeEntityReference(holder, file.getSender());
+        writeEntityReference(holder, file.getReciever());
+      }
+    }
+
+    private void writeEntityReference(DeviceSatellite holder, DeviceSatellite entity) throws IOException {
+      if (entity == holder) {
+        writeVarint(HOLDER);
+        return;
+      }
+
+      Integer index = indices.get(entity);
+      writeVarint(index == null ? NO_ENTITY : index + 2);
+    }
+
+    private void writeShared(String value) throws IOException {
+      Integer index = strings.get(value);
+      if (index != null) {
+        writeVarint(index);
+        return;
+      }
+
+      writeVarint(strings.size());
+      strings.put(value, strings.size());
+      writeString(value);
+    }
+
+    private void writeString(String value) throws IOException {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      writeVarint(bytes.length);
+      writeBytes(bytes);
+    }
+
+    private void writeZigzag(int value) throws IOException {
+      writeVarint((value << 1) ^ (value >> 31));
+    }
+
+    private void writeVarint(int value) throws IOException {
+      while ((value & ~0x7F) != 0) {
+        writeByte((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      writeByte(value);
+    }
+
+    private void writeDouble(double value) throws IOException {
+      long bits = Double.doubleToLongBits(value);
+      for (int shift = 56; shift >= 0; shift -= 8) {
+        writeByte((int) (bits >>> shift));
+      }
+    }
+
+    private void writeByte(int b) throws IOException {
+      if (size == buffer.length) {
+        flush();
+      }
+      buffer[size++] = (byte) b;
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+      if (bytes.length > buffer.length - size) {
+        flush();
+        if (bytes.length > buffer.length) {
+          out.write(bytes);
+          return;
+        }
+      }
+      System.arraycopy(bytes, 0, buffer, size, bytes.length);
+      size += bytes.length;
+    }
+
+    private void flush() throws IOException {
+      out.write(buffer, 0, size);
+      size = 0;
+    }
+  }
+
+  private static final class Reader {
+    private final ByteBuffer in;
+    private final List<String> strings = new ArrayList<>();
+    private byte[] scratch = new byte[64];
+    private DeviceSatellite[] entities;
+
+    Reader(ByteBuffer in) {
+      this.in = in;
+    }
+
+    BlackoutController read() throws IOException {
+      for (byte b : MAGIC) {
+        if (in.get() != b) {
+          throw new IOException("Not a snapshot");
+        }
+      }
+      int version = in.get();
+      if (version != VERSION) {
+        throw new IOException("Unknown snapshot version " + version);
+      }
+
+      int satelliteCount = readCount();
+      int deviceCount = readCount();
+      entities = new DeviceSatellite[readCount(satelliteCount + (long) deviceCount)];
+      BlackoutController controller = new BlackoutController();
+      controller.ensureCapacity(deviceCount, satelliteCount);
+      for (int i = 0; i < entities.length; i++) {
+        entities[i] = readEntity(i < satelliteCount);
+        controller.addRestored(entities[i]);
+      }
+      for (DeviceSatellite holder : entities) {
+        readFiles(holder);
+      }
+
+      int transferCount = readCount();
+      for (int i = 0; i < transferCount; i++) {
+        DeviceSatellite reciever = entities[readIndex(entities.length)];
+        Files transfer = reciever.findFileinList(readShared());
+        if (transfer == null) {
+          throw new IOException("Transfer to " + reciever.getId() + " has no file");
+        }
+        controller.addRestoredTransfer(transfer);
+      }
+      return controller;
+    }
+
+    private DeviceSatellite readEntity(boolean isSatellite) throws IOException {
+      int kind = in.get();
+      String id = readString();
+      String type = readShared();
+      Angle position = Angle.fromRadians(in.getDouble());
+      double height = in.getDouble();
+      int numFilesUploading = readZigzag();
+      int numFilesDownloading = readZigzag();
+
+      DeviceSatellite entity;
+      switch (kind) {
+      case HANDHELD_DEVICE:
+        entity = new HandheldDevice(id, type, position);
+        break;
+      case LAPTOP_DEVICE:
+        entity = new LaptopDevice(id, type, position);
+        break;
+      case DESKTOP_DEVICE:
+        entity = new DesktopDevice(id, type, position);
+        break;
+      case STANDARD_SATELLITE:
+        StandardSatellite standard = new StandardSatellite(id, type, height, position);
+        standard.setDirection(readZigzag());
+        entity = standard;
+        break;
+      case TELEPORTING_SATELLITE:
+        TeleportingSatellite teleporting = new TeleportingSatellite(id, type, height, position);
+        teleporting.setDirection(readZigzag());
+        teleporting.setTeleportIsComplete(in.get() != 0);
+        entity = teleporting;
+        break;
+      case RELAY_SATELLITE:
+        RelaySatellite relay = new RelaySatellite(id, type, height, position);
+        relay.setDirection(readZigzag());
+        entity = relay;
+        break;
+      default:
+        throw new IOException("Unknown kind " + kind + " of " + id);
+      }
+
+      if (isSatellite != (entity instanceof Satellite)) {
+        throw new IOException(id + " is in the wrong place for its kind");
+      }
+      if (entity.getHeight() != height) {
+        entity.setHeight(height);
+      }
+      entity.setNumFilesUploading(numFilesUploading);
+      entity.setNumFilesDownloading(numFilesDownloading);
+      return entity;
+    }
+
+    private void readFiles(DeviceSatellite holder) throws IOException {
+      int count = readCount();
+      for (int i = 0; i < count; i++) {
+        String filename = readShared();
+        String content = readShared();
+        int size = readVarint();
+        int bytesTransmitted = readVarint();
+        DeviceSatellite sender = readEntityReference(holder);
+        DeviceSatellite reciever = readEntityReference(holder);
+        Files file = new Files(filename, bytesTransmitted, content, sender, reciever);
+        if (file.getSize() != size) {
+          file.setSize(size);
+        }
+        holder.addFile(file);
+      }
+    }
+
+    private DeviceSatellite readEntityReference(DeviceSatellite holder) throws IOException {
+      int reference = readVarint();
+      if (reference == NO_ENTITY) {
+        return null;
+      } else if (reference == HOLDER) {
+        return holder;
+      }
+      return entities[readIndex(reference - 2L, entities.length)];
+    }
+
+    private String readShared() throws IOException {
+      int index = readVarint();
+      if (index == strings.size()) {
+        strings.add(readString());
+      } else if (index < 0 || index > strings.size()) {
+        throw new IOException("No string " + index);
+      }
+      return strings.get(index);
+    }
+
+    private String readString() throws IOException {
+      int length = readCount();
+      if (length > scratch.length) {
+        scratch = new byte[Math.max(length, scratch.length * 2)];
+      }
+      in.get(scratch, 0, length);
+      return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private int readIndex(int bound) throws IOException {
+      return readIndex(readVarint() & 0xFFFFFFFFL, bound);
+    }
+
+    private static int readIndex(long index, int bound) throws IOException {
+      if (index < 0 || index >= bound) {
+        throw new IOException("No device or satellite " + index);
+      }
+      return (int) index;
+    }
+
+    /**
+     * Reads a count of things, each of which takes at least a byte, so a
+     * broken snapshot fails here rather than by allocating too much.
+     */
+    private int readCount() throws IOException {
+      return readCount(readVarint() & 0xFFFFFFFFL);
+    }
+
+    private int readCount(long count) throws IOException {
+      if (count > in.remaining()) {
+        throw new EOFException("Snapshot ends too early");
+      }
+      return (int) count;
+    }
+
+    private int readZigzag() throws IOException {
+      int value = readVarint();
+      return (value >>> 1) ^ -(value & 1);
+    }
+
+    private int readVarint() throws IOException {
+      int value = 0;
+      for (int shift = 0; shift < 35; shift += 7) {
+        byte b = in.get();
+        value |= (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new IOException("Varint is too long");
+    }
+  }
+}
@@ -0,0 +1,152 @@
+package unsw.blackout;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import unsw.response.models.EntityDeltaResponse;
+import unsw.response.models.FileDeltaResponse;
+import unsw.utils.Angle;
+
+/**
+ * Remembers the position of every device and satellite and how far along each
+ * of their files are, so what changed since can be worked out without
+ * building the full info of anything. Only numbers and references are kept,
+ * so a file's data is only copied out when it has changed.
+ */
+public class DeltaTracker {
+  private static class FileState {
+    private final String content;
+    private final int bytesTransmitted;
+    private final int size;
+
+    FileState(Files file) {
+      this.content = file.getFutureContent();
+      this.bytesTransmitted = file.getBytesTransmitted();
+      this.size = file.getSize();
+    }
+  }
+
+  private static class EntityState {
+    private double positionRadians;
+    private Map<String, FileState> files = new HashMap<>();
+  }
+
+  private BlackoutController controller;
+  // in the order the changes are listed
+  private Map<DeviceSatellite, EntityState> entities = new LinkedHashMap<>();
+
+  /**
+   * Starts tracking the devices and satellites the simulation has now. Only
+   * these are tracked, so the tracker needs replacing if any are created or
+   * removed, which hasSameEntities checks for.
+   */
+  public DeltaTracker(BlackoutController controller) {
+    this.controller = controller;
+    for (DeviceSatellite entity : controller.getEntities()) {
+      EntityState state = new EntityState();
+      state.positionRadians = entity.getPositionRadians();
+      for (Files file : entity.getFiles()) {
+        state.files.put(file.getFilename(), new FileState(file));
+      }
+      this.entities.put(entity, state);
+    }
+  }
+
+  /**
+   * Checks whether the simulation still has exactly the devices and satellites
+   * that are being tracked.
+   */
+  public boolean hasSameEntities() {
+    List<DeviceSatellite> current = controller.getEntities();
+    if (current.size() != entities.size()) {
+      return false;
+    }
+
+    int i = 0;
+    for (DeviceSatellite entity : entities.keySet()) {
+      if (current.get(i++) != entity) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Works out what changed about every tracked device or satellite since the
+   * last time, and remembers their state for next time. It does this by: 1.
+   * comparing positions 2. for every file, checking whether it's new, or its
+   * content or progress changed 3. looking for files that have gone, which only
+   * happens if there are fewer files than remembered. Only files that changed
+   * are remembered again, so a minute where little happens costs little.
+   *
+   * @return the changes of every device or satellite that changed, by id
+   */
+  public Map<String, EntityDeltaResponse> update() {
+    Map<String, EntityDeltaResponse> deltas = new LinkedHashMap<>();
+    for (Map.Entry<DeviceSatellite, EntityState> entry : entities.entrySet()) {
+      EntityDeltaResponse delta = update(entry.getKey(), entry.getValue());
+      if (delta != null) {
+        deltas.put(entry.getKey().getId(), delta);
+      }
+    }
+    return deltas;
+  }
+
+  private static EntityDeltaResponse update(DeviceSatellite entity, EntityState state) {
+    Angle position = null;
+    if (entity.getPositionRadians() != state.positionRadians) {
+      position = entity.getPosition();
+      state.positionRadians = entity.getPositionRadians();
+    }
+
+    Map<String, FileDeltaResponse> changedFiles = null;
+    for (Files file : entity.getFiles()) {
+      FileDeltaResponse fileDelta = deltaOf(file, state.files.get(file.getFilename()));
+      if (fileDelta != null) {
+        if (changedFiles == null) {
+          changedFiles = new HashMap<>();
+        }
+        changedFiles.put(file.getFilename(), fileDelta);
+        state.files.put(file.getFilename(), new FileState(file));
+      }
+    }
+
+    // every current file is remembered now, so any extra ones have gone
+    List<String> removedFiles = null;
+    if (state.files.size() > entity.getNumberOfFiles()) {
+      removedFiles = new ArrayList<>();
+      for (String filename : new ArrayList<>(state.files.keySet())) {
+        if (entity.findFileinList(filename) == null) {
+          removedFiles.add(filename);
+          state.files.remove(filename);
+        }
+      }
+    }
+
+    if (position == null && changedFiles == null && removedFiles == null) {
+      return null;
+    }
+    return new EntityDeltaResponse(entity.getId(), position, changedFiles, removedFiles);
+  }
+
+  /**
+   * A file that only moved forward sends just the bytes transmitted since, while
+   * a new file or one whose content changed (like a teleport removing its t's)
+   * sends everything transmitted so far.
+   */
+  private static FileDeltaResponse deltaOf(Files file, FileState previous) {
+    boolean complete = file.getSize() == file.getBytesTransmitted();
+    if (previous == null || previous.content != file.getFutureContent() || previous.size != file.getSize()
+        || previous.bytesTransmitted > file.getBytesTransmitted()) {
+      return new FileDeltaResponse(file.getFilename(), 0, file.getPresentContent(), file.getSize(), complete);
+    } else if (previous.bytesTransmitted == file.getBytesTransmitted()) {
+      return null;
+    }
+
+    String newData = file.getFutureContent().substring(previous.bytesTransmitted, file.getBytesTransmitted());
+    return new FileDeltaResponse(file.getFilename(), previous.bytesTransmitted, newData, file.getSize(), complete);
+  }
+}
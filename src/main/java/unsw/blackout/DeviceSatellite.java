@@ -2,35 +2,51 @@ package unsw.blackout;
 
 import unsw.response.models.FileInfoResponse;
 import unsw.utils.Angle;
+import unsw.utils.MathsHelper;
 
-import static unsw.utils.MathsHelper.isVisible;
+import static unsw.utils.MathsHelper.isCartesianVisible;
 
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
-import static unsw.utils.MathsHelper.getDistance;
+import static unsw.utils.MathsHelper.getCartesianDistance;
 
 public class DeviceSatellite {
   private String id;
   private String type;
-  private Angle position;
+  private EntityType entityType;
+  // kept as radians rather than an Angle so moving doesn't allocate
+  private double positionRadians;
   private double height;
-  private List<Files> files;
+  // euclidean coordinates of position and height, recomputed only when either
+  // changes so range checks don't need to redo any trigonometry
+  private double x;
+  private double y;
+  // the range checks for the current tick, if the controller built one
+  private VisibilityMatrix visibilityMatrix;
+  private int visibilitySlot;
+  // where range checks are counted, if this belongs to a controller
+  private SimulationMetrics metrics;
+  // files keyed by name in the order they were added, along with the total
+  // size of all of them so storage checks don't have to add them up
+  private Map<String, Files> files = new LinkedHashMap<>();
+  private int storedBytes;
   private int uploadBandwith;
   private int downloadBandwith;
   private int maxFiles;
   private int maxBytes;
   private int numFilesUploading;
   private int numFilesDownloading;
-
-  private static final int STANDARD_SATELLITE_RANGE = 150000;
-  private static final int TELEPORTING_SATELLITE_RANGE = 200000;
-  private static final int RELAY_SATELLITE_RANGE = 300000;
-  private static final int HANDHELD_DEVICE_RANGE = 50000;
-  private static final int LAPTOP_DEVICE_RANGE = 100000;
-  private static final int DESKTOP_DEVICE_RANGE = 200000;
+  // the view of this, taken when something asks for it and thrown away
+  // (marking it dirty) whenever anything in the info changes. The files are
+  // kept apart, since moving doesn't change them. Both are volatile so a view
+  // taken under the read lock is handed over safely
+  private volatile EntityView view;
+  private volatile List<EntityView.FileView> fileViews;
 
   /**
    * Constructs a new DeviceSatellite object with the specified parameters.
@@ -53,10 +69,10 @@ public class DeviceSatellite {
   public DeviceSatellite(String id, String type, Angle position, double height, int maxFiles, int maxBytes,
       int uploadBandwith, int downloadBandwith, int numFilesUploading, int numFilesDownloading) {
     this.id = id;
-    this.type = type;
-    this.position = position;
+    setType(type);
+    this.positionRadians = position.toRadians();
     this.height = height;
-    this.setFiles(new ArrayList<Files>());
+    updateCartesianPosition();
     this.maxFiles = maxFiles;
     this.maxBytes = maxBytes;
     this.uploadBandwith = uploadBandwith;
@@ -119,30 +135,86 @@ public class DeviceSatellite {
 
   public void setId(String id) {
     this.id = id;
+    infoChanged();
   }
 
   public String getType() {
     return type;
   }
 
-  public List<Files> getFiles() {
-    return files;
+  public Collection<Files> getFiles() {
+    return Collections.unmodifiableCollection(files.values());
+  }
+
+  public int getNumberOfFiles() {
+    return files.size();
+  }
+
+  /**
+   * Gets the combined size of every file stored, including files that are still
+   * being recieved.
+   */
+  public int getStoredBytes() {
+    return storedBytes;
+  }
+
+  /**
+   * Stores a file, replacing any file that already has the same name. A file
+   * that is still being recieved has to have its transfer cancelled first, or
+   * the transfer keeps running and holding bandwidth for a file that is gone.
+   *
+   * @param file the file to store
+   */
+  public void addFile(Files file) {
+    Files replacedFile = files.put(file.getFilename(), file);
+    if (replacedFile != null) {
+      storedBytes -= replacedFile.getSize();
+    }
+    storedBytes += file.getSize();
+    infoChanged();
   }
 
-  public void setFiles(List<Files> files) {
-    this.files = files;
+  /**
+   * Changes the size of a file stored here, keeping the total stored bytes up
+   * to date. Files that aren't stored here just have their size set.
+   *
+   * @param file the file whose size has changed
+   * @param size the new size of the file
+   */
+  public void resizeFile(Files file, int size) {
+    if (files.get(file.getFilename()) == file) {
+      storedBytes += size - file.getSize();
+    }
+    file.setSize(size);
+    infoChanged();
   }
 
   public void setType(String type) {
     this.type = type;
+    this.entityType = this instanceof Devices ? EntityType.fromDeviceType(type) : EntityType.fromSatelliteType(type);
+    infoChanged();
+  }
+
+  public EntityType getEntityType() {
+    return entityType;
   }
 
   public Angle getPosition() {
-    return position;
+    return Angle.fromRadians(positionRadians);
   }
 
   public void setPosition(Angle position) {
-    this.position = position;
+    setPositionRadians(position.toRadians());
+  }
+
+  public double getPositionRadians() {
+    return positionRadians;
+  }
+
+  public void setPositionRadians(double positionRadians) {
+    this.positionRadians = positionRadians;
+    updateCartesianPosition();
+    positionChanged();
   }
 
   public double getHeight() {
@@ -151,66 +223,167 @@ public class DeviceSatellite {
 
   public void setHeight(double height) {
     this.height = height;
+    updateCartesianPosition();
+    positionChanged();
   }
 
-  public int getRangeOfDevice(DeviceSatellite objectOfInterest) {
-    switch (objectOfInterest.getType()) {
-    case "LaptopDevice":
-      return LAPTOP_DEVICE_RANGE;
-    case "DesktopDevice":
-      return DESKTOP_DEVICE_RANGE;
-    default:
-      return HANDHELD_DEVICE_RANGE;
-    }
+  public double getX() {
+    return x;
+  }
+
+  public double getY() {
+    return y;
+  }
+
+  public VisibilityMatrix getVisibilityMatrix() {
+    return visibilityMatrix;
+  }
+
+  public int getVisibilitySlot() {
+    return visibilitySlot;
+  }
+
+  public void setVisibilityMatrix(VisibilityMatrix visibilityMatrix, int visibilitySlot) {
+    this.visibilityMatrix = visibilityMatrix;
+    this.visibilitySlot = visibilitySlot;
+  }
+
+  public SimulationMetrics getMetrics() {
+    return metrics;
   }
 
-  public int getRangeOfSatellite(DeviceSatellite objectOfInterest) {
-    switch (objectOfInterest.getType()) {
-    case "TeleportingSatellite":
-      return TELEPORTING_SATELLITE_RANGE;
-    case "RelaySatellite":
-      return RELAY_SATELLITE_RANGE;
-    default:
-      return STANDARD_SATELLITE_RANGE;
+  public void setMetrics(SimulationMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Gets a view of this device or satellite as it is now, only taking it again
+   * if something changed since it was last taken.
+   */
+  EntityView getView() {
+    EntityView current = view;
+    if (current == null) {
+      List<EntityView.FileView> currentFiles = fileViews;
+      if (currentFiles == null) {
+        currentFiles = EntityView.filesOf(this);
+        fileViews = currentFiles;
+      }
+      current = new EntityView(this, currentFiles);
+      view = current;
     }
+    return current;
+  }
+
+  /**
+   * Marks the info as changed, which anything that changes the type or files
+   * of this device or satellite has to do.
+   */
+  void infoChanged() {
+    view = null;
+    fileViews = null;
+  }
+
+  /**
+   * Marks the position or height as changed, which leaves the files as they
+   * were.
+   */
+  private void positionChanged() {
+    view = null;
+  }
+
+  private void updateCartesianPosition() {
+    x = Math.cos(positionRadians) * height;
+    y = Math.sin(positionRadians) * height;
+  }
+
+  /**
+   * The range used when this device or satellite is the object of interest in
+   * a range check.
+   */
+  public int getRange() {
+    return entityType.getRange();
   }
 
   /**
    * Checks if the current device or satellite is within range of the specified
-   * object of interest by using the isVisibile and getDistance helper functions
-   * It does this by first if the object is a device we check if it is visible and
-   * compare the distance between the object and the current instance with the
-   * range The other instance is comparing the range of a satellite and device and
-   * finally we check satellite and satellite range
+   * object of interest by using the isCartesianVisible and getCartesianDistance
+   * helper functions on the cached euclidean coordinates of both objects. The
+   * distance is always compared against the range of the object of interest,
+   * and visibility is checked from the satellite when a device and satellite
+   * are involved
    *
    * @param objectOfInterest The object of interest to check the range against.
    * @return true if the current device or satellite is within range of the object
    *         of interest, false otherwise.
    */
   public boolean isInRange(DeviceSatellite objectOfInterest) {
-    if (objectOfInterest instanceof Devices) {
-      return (isVisible(getHeight(), getPosition(), objectOfInterest.getPosition()) && getDistance(getHeight(),
-          getPosition(), objectOfInterest.getPosition()) < objectOfInterest.getRangeOfDevice(objectOfInterest));
+    if (metrics != null) {
+      metrics.recordRangeCheck();
+    }
+    if (visibilityMatrix != null && visibilityMatrix.covers(this, objectOfInterest)) {
+      return visibilityMatrix.isInRange(this, objectOfInterest);
+    }
+
+    double distance = getCartesianDistance(getX(), getY(), objectOfInterest.getX(), objectOfInterest.getY());
+
+    if (distance >= objectOfInterest.getRange()) {
+      return false;
     } else if (objectOfInterest instanceof Satellite && this instanceof Devices) {
-      return (isVisible(objectOfInterest.getHeight(), objectOfInterest.getPosition(), getPosition())
-          && getDistance(objectOfInterest.getHeight(), objectOfInterest.getPosition(), position) < objectOfInterest
-              .getRangeOfSatellite(objectOfInterest));
+      return isCartesianVisible(objectOfInterest.getX(), objectOfInterest.getY(), getX(), getY());
     } else {
-      return (isVisible(getHeight(), getPosition(), objectOfInterest.getHeight(), objectOfInterest.getPosition())
-          && getDistance(getHeight(), getPosition(), objectOfInterest.getHeight(),
-              objectOfInterest.getPosition()) < objectOfInterest.getRangeOfSatellite(objectOfInterest));
+      return isCartesianVisible(getX(), getY(), objectOfInterest.getX(), objectOfInterest.getY());
+    }
+  }
+
+  /**
+   * Works out how many of the coming minutes this device or satellite is
+   * guaranteed to stay in range of the object of interest, assuming the only
+   * thing that moves is a satellite going around at its angular velocity. It
+   * does this by checking how long until: 1. the satellite could have moved far
+   * enough along its orbit to be out of range 2. the satellite could have
+   * dropped below the device's horizon. A minute is taken off both so rounding
+   * can never make us skip the minute the range check would fail.
+   *
+   * @param objectOfInterest The object of interest to check the range against.
+   * @return the number of minutes guaranteed to be in range, 0 if it's not in
+   *         range now or can't be worked out
+   */
+  public int minutesGuaranteedInRange(DeviceSatellite objectOfInterest) {
+    if (!isInRange(objectOfInterest)) {
+      return 0;
+    } else if (this instanceof Devices && objectOfInterest instanceof Devices) {
+      return Integer.MAX_VALUE;
+    } else if (this instanceof Satellite && objectOfInterest instanceof Satellite) {
+      return 0;
+    }
+
+    Satellite satellite = (Satellite) (this instanceof Satellite ? this : objectOfInterest);
+    DeviceSatellite device = this instanceof Satellite ? objectOfInterest : this;
+    double radiansPerMinute = Math.toRadians(satellite.getAngularVelocity());
+    if (satellite.getHeight() <= MathsHelper.RADIUS_OF_JUPITER || radiansPerMinute <= 0) {
+      return 0;
     }
+
+    double distance = getCartesianDistance(satellite.getX(), satellite.getY(), device.getX(), device.getY());
+    double distanceMinutes = (objectOfInterest.getRange() - distance) / (radiansPerMinute * satellite.getHeight());
+
+    double angleBetween = Math.abs(Math.IEEEremainder(
+        satellite.getPositionRadians() - device.getPositionRadians(), 2 * Math.PI));
+    double horizon = Math.acos(MathsHelper.RADIUS_OF_JUPITER / satellite.getHeight());
+    double visibleMinutes = (horizon - angleBetween) / radiansPerMinute;
+
+    return (int) Math.max(0, Math.floor(Math.min(distanceMinutes, visibleMinutes)) - 1);
   }
 
   public void setFilesList(String fileName, String content, DeviceSatellite sender, DeviceSatellite reciever) {
-    Files file = new Files(fileName, content, content.length(), content, sender, reciever);
-    files.add(file);
+    Files file = new Files(fileName, content.length(), content, sender, reciever);
+    addFile(file);
   }
 
   public Map<String, FileInfoResponse> mapGivenFile() {
     Map<String, FileInfoResponse> mapFiles = new HashMap<String, FileInfoResponse>();
 
-    for (Files file : files) {
+    for (Files file : files.values()) {
       mapFiles.put(file.getFilename(), new FileInfoResponse(file.getFilename(), file.getPresentContent(),
           file.getSize(), (file.getSize() == file.getBytesTransmitted())));
     }
@@ -218,14 +391,7 @@ public class DeviceSatellite {
   }
 
   public Files findFileinList(String fileName) {
-    List<Files> filesList = getFiles();
-
-    for (Files file : filesList) {
-      if (file.getFilename().equals(fileName)) {
-        return file;
-      }
-    }
-    return null;
+    return files.get(fileName);
   }
 
   public boolean checkDownload() {
@@ -248,36 +414,13 @@ public class DeviceSatellite {
     return getUploadBandwith() / getNumFilesUploading();
   }
 
-  /**
-   * Transfers files by updating the file transfer status for each file in the
-   * device's file list. Only files that have not been completely transmitted will
-   * be updated.
-   */
-  public void transferFiles() {
-    List<Files> filesToTransfer = getFiles();
-    List<Files> pendingFiles = new ArrayList<>();
-    filesToTransfer.stream().forEach((file) -> {
-      if (file.getSize() != file.getBytesTransmitted())
-        pendingFiles.add(file);
-    });
-
-    for (Files file : pendingFiles) {
-      file.updateFileTransfer();
-    }
-    setFiles(filesToTransfer);
-  }
-
   public void removeIncompleteFile(Files toDelete, DeviceSatellite getReciever, DeviceSatellite getSender) {
-    List<Files> filesInList = getFiles();
-
-    for (Files file : filesInList) {
-      if (toDelete == file) {
-        filesInList.remove(file);
-        getReciever.setNumFilesDownloading(getReciever.getNumFilesDownloading() - 1);
-        getSender.setNumFilesUploading(getSender.getNumFilesUploading() - 1);
-        break;
-      }
+    if (files.get(toDelete.getFilename()) == toDelete) {
+      files.remove(toDelete.getFilename());
+      storedBytes -= toDelete.getSize();
+      infoChanged();
+      getReciever.setNumFilesDownloading(getReciever.getNumFilesDownloading() - 1);
+      getSender.setNumFilesUploading(getSender.getNumFilesUploading() - 1);
     }
-    setFiles(filesInList);
   }
 }
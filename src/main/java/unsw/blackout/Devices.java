@@ -1,7 +1,5 @@
 package unsw.blackout;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 import unsw.utils.Angle;
@@ -65,15 +63,6 @@ public class Devices extends DeviceSatellite {
   }
 
   public boolean canCommunicate(DeviceSatellite object) {
-    return isInRange(object) && getSupportedSatellites().contains(object.getType());
-  }
-
-  public ArrayList<String> getSupportedSatellites() {
-    switch (getType()) {
-    case "DesktopDevice":
-      return new ArrayList<String>(Arrays.asList("TeleportingSatellite", "RelaySatellite"));
-    default:
-      return new ArrayList<String>(Arrays.asList("StandardSatellite", "TeleportingSatellite", "RelaySatellite"));
-    }
+    return getEntityType().canCommunicateWith(object.getEntityType()) && isInRange(object);
   }
 }
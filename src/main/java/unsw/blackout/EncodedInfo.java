@@ -0,0 +1,72 @@
+package unsw.blackout;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * The info of some devices and satellites, already turned into JSON. It's
+ * taken from their views and written out after, so a slow client never holds
+ * up the simulation. Each view keeps its JSON, and each device or satellite
+ * keeps its view until something about it changes, so taking the info of
+ * things that haven't changed since last time costs nothing more than a
+ * reference.
+ */
+public class EncodedInfo {
+  private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+
+  private final byte[][] ids;
+  private final byte[][] infos;
+
+  EncodedInfo(List<EntityView> entities) {
+    this.ids = new byte[entities.size()][];
+    this.infos = new byte[entities.size()][];
+    for (int i = 0; i < entities.size(); i++) {
+      EntityView entity = entities.get(i);
+      ids[i] = InfoJson.encode(entity.getId());
+      infos[i] = entity.getInfoJson();
+    }
+  }
+
+  public int size() {
+    return infos.length;
+  }
+
+  /**
+   * Writes the info as a JSON object by id, like a map of EntityInfoResponse.
+   */
+  public void writeObjectTo(OutputStream out) throws IOException {
+    out.write('{');
+    for (int i = 0; i < infos.length; i++) {
+      if (i > 0) {
+        out.write(',');
+      }
+      out.write(ids[i]);
+      out.write(':');
+      out.write(infos[i]);
+    }
+    out.write('}');
+  }
+
+  /**
+   * Writes the info as a JSON array, like a list of EntityInfoResponse.
+   */
+  public void writeArrayTo(OutputStream out) throws IOException {
+    out.write('[');
+    for (int i = 0; i < infos.length; i++) {
+      if (i > 0) {
+        out.write(',');
+      }
+      out.write(infos[i]);
+    }
+    out.write(']');
+  }
+
+  /**
+   * Writes the info of the only device or satellite, or null if there isn't
+   * one, like a single EntityInfoResponse.
+   */
+  public void writeSingleTo(OutputStream out) throws IOException {
+    out.write(infos.length == 0 ? NULL : infos[0]);
+  }
+}
@@ -0,0 +1,110 @@
+package unsw.blackout;
+
+/**
+ * The kinds of devices and satellites, along with their range and which other
+ * kinds they can communicate with. Entities still report their type as a
+ * string, this is worked out from it once so range checks don't have to compare
+ * strings or build lists.
+ */
+public enum EntityType {
+  HANDHELD_DEVICE("HandheldDevice", 50000),
+  LAPTOP_DEVICE("LaptopDevice", 100000),
+  DESKTOP_DEVICE("DesktopDevice", 200000),
+  // a device whose type string isn't one we know, which acts like a handheld
+  // but that no satellite supports
+  UNKNOWN_DEVICE(null, 50000),
+  STANDARD_SATELLITE("StandardSatellite", 150000),
+  TELEPORTING_SATELLITE("TeleportingSatellite", 200000),
+  RELAY_SATELLITE("RelaySatellite", 300000),
+  // a satellite whose type string isn't one we know, which acts like a
+  // standard satellite but that no device supports
+  UNKNOWN_SATELLITE(null, 150000);
+
+  private final String typeName;
+  private final int range;
+  // bit i is set if this type can communicate with the type whose ordinal is i
+  private int supportedTypes;
+
+  static {
+    int satellites = bits(STANDARD_SATELLITE, TELEPORTING_SATELLITE, RELAY_SATELLITE);
+    HANDHELD_DEVICE.supportedTypes = satellites;
+    LAPTOP_DEVICE.supportedTypes = satellites;
+    DESKTOP_DEVICE.supportedTypes = bits(TELEPORTING_SATELLITE, RELAY_SATELLITE);
+    UNKNOWN_DEVICE.supportedTypes = satellites;
+    STANDARD_SATELLITE.supportedTypes = satellites | bits(HANDHELD_DEVICE, LAPTOP_DEVICE);
+    TELEPORTING_SATELLITE.supportedTypes = satellites | bits(HANDHELD_DEVICE, LAPTOP_DEVICE, DESKTOP_DEVICE);
+    RELAY_SATELLITE.supportedTypes = TELEPORTING_SATELLITE.supportedTypes;
+    UNKNOWN_SATELLITE.supportedTypes = TELEPORTING_SATELLITE.supportedTypes;
+  }
+
+  EntityType(String typeName, int range) {
+    this.typeName = typeName;
+    this.range = range;
+  }
+
+  /**
+   * The type name used by the API, or null for unknown types.
+   */
+  public String getTypeName() {
+    return typeName;
+  }
+
+  public int getRange() {
+    return range;
+  }
+
+  /**
+   * Checks whether an entity of this type supports communicating with an
+   * entity of the other type.
+   */
+  public boolean canCommunicateWith(EntityType other) {
+    return (supportedTypes & (1 << other.ordinal())) != 0;
+  }
+
+  /**
+   * Gets the type of a device from its type name.
+   *
+   * @param typeName the type name given when the device was created
+   * @return the matching device type, or UNKNOWN_DEVICE if there isn't one
+   */
+  public static EntityType fromDeviceType(String typeName) {
+    switch (typeName) {
+    case "HandheldDevice":
+      return HANDHELD_DEVICE;
+    case "LaptopDevice":
+      return LAPTOP_DEVICE;
+    case "DesktopDevice":
+      return DESKTOP_DEVICE;
+    default:
+      return UNKNOWN_DEVICE;
+    }
+  }
+
+  /**
+   * Gets the type of a satellite from its type name.
+   *
+   * @param typeName the type name given when the satellite was created
+   * @return the matching satellite type, or UNKNOWN_SATELLITE if there isn't
+   *         one
+   */
+  public static EntityType fromSatelliteType(String typeName) {
+    switch (typeName) {
+    case "StandardSatellite":
+      return STANDARD_SATELLITE;
+    case "TeleportingSatellite":
+      return TELEPORTING_SATELLITE;
+    case "RelaySatellite":
+      return RELAY_SATELLITE;
+    default:
+      return UNKNOWN_SATELLITE;
+    }
+  }
+
+  private static int bits(EntityType... types) {
+    int bits = 0;
+    for (EntityType type : types) {
+      bits |= 1 << type.ordinal();
+    }
+    return bits;
+  }
+}
@@ -0,0 +1,167 @@
+package unsw.blackout;
+
+import static unsw.utils.MathsHelper.getCartesianDistance;
+import static unsw.utils.MathsHelper.isCartesianVisible;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import unsw.response.models.EntityInfoResponse;
+import unsw.response.models.FileInfoResponse;
+import unsw.utils.Angle;
+
+/**
+ * A device or satellite as it was at one moment, which never changes once it
+ * has been taken. A device or satellite keeps its view until something about
+ * it changes, so taking the views of things that haven't changed costs
+ * nothing more than a reference.
+ */
+public final class EntityView {
+  /**
+   * A file as it was when the view was taken.
+   */
+  static final class FileView {
+    private final String filename;
+    private final String content;
+    private final int size;
+    private final boolean complete;
+
+    FileView(Files file) {
+      this.filename = file.getFilename();
+      this.content = file.getPresentContent();
+      this.size = file.getSize();
+      this.complete = file.getSize() == file.getBytesTransmitted();
+    }
+
+    String getFilename() {
+      return filename;
+    }
+
+    String getContent() {
+      return content;
+    }
+
+    int getSize() {
+      return size;
+    }
+
+    boolean isComplete() {
+      return complete;
+    }
+  }
+
+  private final String id;
+  private final String type;
+  private final EntityType entityType;
+  private final boolean satellite;
+  private final double positionRadians;
+  private final double height;
+  private final double x;
+  private final double y;
+  private final List<FileView> files;
+  // the info as JSON, built the first time something asks for it. Any number
+  // of readers can build it at once, so it's volatile to hand the whole array
+  // over safely
+  private volatile byte[] infoJson;
+
+  EntityView(DeviceSatellite entity, List<FileView> files) {
+    this.id = entity.getId();
+    this.type = entity.getType();
+    this.entityType = entity.getEntityType();
+    this.satellite = entity instanceof Satellite;
+    this.positionRadians = entity.getPositionRadians();
+    this.height = entity.getHeight();
+    this.x = entity.getX();
+    this.y = entity.getY();
+    this.files = files;
+  }
+
+  /**
+   * Takes the files of a device or satellite in the order they were added.
+   * These only change when a file does, so they're kept apart from the rest
+   * of the view and shared while the device or satellite moves.
+   */
+  static List<FileView> filesOf(DeviceSatellite entity) {
+    List<FileView> files = new ArrayList<>(entity.getNumberOfFiles());
+    for (Files file : entity.getFiles()) {
+      files.add(new FileView(file));
+    }
+    return Collections.unmodifiableList(files);
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getType() {
+    return type;
+  }
+
+  public boolean isSatellite() {
+    return satellite;
+  }
+
+  public double getPositionRadians() {
+    return positionRadians;
+  }
+
+  public double getHeight() {
+    return height;
+  }
+
+  List<FileView> getFiles() {
+    return files;
+  }
+
+  /**
+   * Builds the same info as BlackoutController.getInfo gave when the view was
+   * taken.
+   */
+  public EntityInfoResponse getInfo() {
+    Map<String, FileInfoResponse> mapFiles = new HashMap<>();
+    for (FileView file : files) {
+      mapFiles.put(file.filename, new FileInfoResponse(file.filename, file.content, file.size, file.complete));
+    }
+    return new EntityInfoResponse(id, Angle.fromRadians(positionRadians), height, type, mapFiles);
+  }
+
+  /**
+   * Gets the info as JSON, building it the first time it's asked for.
+   */
+  byte[] getInfoJson() {
+    byte[] json = infoJson;
+    if (json == null) {
+      json = InfoJson.encode(this);
+      infoJson = json;
+    }
+    return json;
+  }
+
+  /**
+   * Checks whether this could communicate with the object of interest, by the
+   * same rules as Satellite.canCommunicate and Devices.canCommunicate: 1. the
+   * types have to be able to talk to each other 2. a satellite never talks to
+   * itself 3. it has to be within the range of the object of interest 4. it
+   * has to be visible, looking from the satellite when a device and satellite
+   * are involved.
+   */
+  boolean canCommunicate(EntityView objectOfInterest) {
+    if (!entityType.canCommunicateWith(objectOfInterest.entityType)) {
+      return false;
+    } else if (satellite && id.equals(objectOfInterest.id)) {
+      return false;
+    }
+
+    double distance = getCartesianDistance(x, y, objectOfInterest.x, objectOfInterest.y);
+    if (distance >= objectOfInterest.entityType.getRange()) {
+      return false;
+    } else if (objectOfInterest.satellite && !satellite) {
+      return isCartesianVisible(objectOfInterest.x, objectOfInterest.y, x, y);
+    } else {
+      return isCartesianVisible(x, y, objectOfInterest.x, objectOfInterest.y);
+    }
+  }
+}
@@ -2,6 +2,8 @@ package unsw.blackout;
 
 public class Files {
   private String filename;
+  // the transmitted prefix of futureContent, only built when something asks
+  // for it and thrown away whenever bytesTransmitted or futureContent change
   private String presentContent;
   private int size;
   private int bytesTransmitted;
@@ -14,8 +16,6 @@ public class Files {
    * to a reciever.
    *
    * @param filename         The name of the file.
-   * @param presentContent   The content of the file that has already been
-   *                         transmitted.
    * @param bytesTransmitted The number of bytes of the file that have been
    *                         transmitted.
    * @param futureContent    The remaining content of the file that is yet to be
@@ -23,10 +23,9 @@ public class Files {
    * @param sender           The device or satellite that is sending the file.
    * @param receiver         The device or satellite that is receiving the file.
    */
-  public Files(String filename, String presentContent, int bytesTransmitted, String futureContent,
-      DeviceSatellite sender, DeviceSatellite reciever) {
+  public Files(String filename, int bytesTransmitted, String futureContent, DeviceSatellite sender,
+      DeviceSatellite reciever) {
     this.filename = filename;
-    this.presentContent = presentContent;
     this.size = futureContent.length();
     this.bytesTransmitted = bytesTransmitted;
     this.futureContent = futureContent;
@@ -40,6 +39,7 @@ public class Files {
 
   public void setFilename(String filename) {
     this.filename = filename;
+    recieverInfoChanged();
   }
 
   public int getBytesTransmitted() {
@@ -48,6 +48,8 @@ public class Files {
 
   public void setBytesTransmitted(int bytesTransmitted) {
     this.bytesTransmitted = bytesTransmitted;
+    this.presentContent = null;
+    recieverInfoChanged();
   }
 
   public String getFutureContent() {
@@ -56,6 +58,8 @@ public class Files {
 
   public void setFutureContent(String futureContent) {
     this.futureContent = futureContent;
+    this.presentContent = null;
+    recieverInfoChanged();
   }
 
   public DeviceSatellite getSender() {
@@ -74,12 +78,21 @@ public class Files {
     this.reciever = reciever;
   }
 
+  /**
+   * Gets the content of the file that has been transmitted so far. A file in
+   * flight is only stored as its full content and the number of bytes sent, so
+   * the transmitted part is cut out the first time it's asked for and reused
+   * until the transfer moves on.
+   *
+   * @return the first bytesTransmitted characters of the content
+   */
   public String getPresentContent() {
-    return presentContent;
-  }
-
-  public void setPresentContent(String presentContent) {
-    this.presentContent = presentContent;
+    String content = presentContent;
+    if (content == null) {
+      content = futureContent.substring(0, bytesTransmitted);
+      presentContent = content;
+    }
+    return content;
   }
 
   public int getSize() {
@@ -88,6 +101,16 @@ public class Files {
 
   public void setSize(int size) {
     this.size = size;
+    recieverInfoChanged();
+  }
+
+  /**
+   * A file is always stored on its reciever, so that's whose info changes.
+   */
+  private void recieverInfoChanged() {
+    if (reciever != null) {
+      reciever.infoChanged();
+    }
   }
 
   /**
@@ -105,50 +128,57 @@ public class Files {
    * @param getReceiver The device or satellite that is receiving the file.
    */
   public void removeTsRemainingAfterTeleport(DeviceSatellite getSender, DeviceSatellite getReciever) {
-    String remainingContent = getFutureContent().substring(getPresentContent().length());
-    String updatedContent = presentContent + remainingContent.replace("t", "");
+    String remainingContent = getFutureContent().substring(getBytesTransmitted());
+    String updatedContent = getPresentContent() + remainingContent.replace("t", "");
 
-    setPresentContent(updatedContent);
     setFutureContent(updatedContent);
     setBytesTransmitted(updatedContent.length());
-    setSize(updatedContent.length());
+    reciever.resizeFile(this, updatedContent.length());
+    recordTeleportStrip();
 
     getReciever.setNumFilesDownloading(getReciever.getNumFilesDownloading() - 1);
     getSender.setNumFilesUploading(getSender.getNumFilesUploading() - 1);
   }
 
   /**
-   * Removes the remaining content that is yet to be transferred from a sender to
-   * the receiver. It does this by: 1. Getting the future content 2. The final
-   * content will be future content but removing the t's 3. This method updates
-   * the present content, future content, bytes transmitted, and size of the file
-   * being transferred. 4. It also adjusts the number of files downloading for the
-   * receiver and the number of files uploading for the sender by decrementing
-   * both since the file has been downloaded and uploaded.
-   *
-   * @param getSender   The device or satellite that is sending the file.
-   * @param getReceiver The device or satellite that is receiving the file.
+   * Removes every t from a device's copy of a file after the teleporting
+   * satellite it was uploading to teleported. It does this by: 1. Getting the
+   * future content 2. The final content will be future content but removing the
+   * t's 3. This method updates the present content, future content, bytes
+   * transmitted, and size of the file. The number of files downloading and
+   * uploading isn't touched here, since removing the partial file from the
+   * satellite already gave that bandwidth back.
    */
-  public void removeAllTsAfterTeleport(DeviceSatellite getSender, DeviceSatellite getReciever) {
+  public void removeAllTsAfterTeleport() {
     String updatedContent = getFutureContent();
     updatedContent = updatedContent.replace("t", "");
 
-    setPresentContent(updatedContent);
     setFutureContent(updatedContent);
     setBytesTransmitted(updatedContent.length());
-    setSize(updatedContent.length());
+    reciever.resizeFile(this, updatedContent.length());
+    recordTeleportStrip();
+  }
 
-    getReciever.setNumFilesDownloading(getReciever.getNumFilesDownloading() - 1);
-    getSender.setNumFilesUploading(getSender.getNumFilesUploading() - 1);
+  private void recordTeleportStrip() {
+    SimulationMetrics metrics = reciever.getMetrics();
+    if (metrics != null) {
+      metrics.recordTeleportStrip();
+    }
   }
 
   /**
-   * Updates the file transfer progress between a sender and a receiver.
+   * Updates the file transfer progress between a sender and a receiver. Files
+   * that have already been completely transmitted are left alone.
    *
+   * @return what happened to the transfer in this update
    * @see DeviceSatellite
    * @see TeleportingSatellite
    */
-  public void updateFileTransfer() {
+  public TransferStatus updateFileTransfer() {
+    if (getBytesTransmitted() == getSize()) {
+      return TransferStatus.COMPLETED;
+    }
+
     int downloadSpeed = 0;
     int uploadSpeed = 0;
     DeviceSatellite getSender = getSender();
@@ -169,8 +199,8 @@ public class Files {
       if (teleportingReciever.isTeleportIsComplete()) {
         getReciever.removeIncompleteFile(this, getReciever, getSender);
         Files fileOfInterest = getSender.findFileinList(getFilename());
-        fileOfInterest.removeAllTsAfterTeleport(getSender, getReciever);
-        return;
+        fileOfInterest.removeAllTsAfterTeleport();
+        return TransferStatus.CANCELLED;
       }
     }
 
@@ -181,7 +211,7 @@ public class Files {
     if (teleportingSender != null && getReciever instanceof Devices) {
       if (teleportingSender.isTeleportIsComplete()) {
         removeTsRemainingAfterTeleport(getSender, getReciever);
-        return;
+        return TransferStatus.TELEPORTED;
       }
     }
 
@@ -194,10 +224,10 @@ public class Files {
         || (teleportingReciever != null && getSender instanceof Satellite)) {
       if (teleportingSender != null && teleportingSender.isTeleportIsComplete()) {
         removeTsRemainingAfterTeleport(getSender, getReciever);
-        return;
+        return TransferStatus.TELEPORTED;
       } else if (teleportingReciever != null && teleportingReciever.isTeleportIsComplete()) {
         removeTsRemainingAfterTeleport(getSender, getReciever);
-        return;
+        return TransferStatus.TELEPORTED;
       }
     }
 
@@ -205,7 +235,7 @@ public class Files {
         && ((getSender instanceof Devices) || (getReciever instanceof Devices))) {
       // remove File and exit
       getReciever.removeIncompleteFile(this, getReciever, getSender);
-      return;
+      return TransferStatus.CANCELLED;
     } else {
       downloadSpeed = getReciever.downloadSpeed();
       uploadSpeed = getSender.uploadSpeed();
@@ -213,7 +243,70 @@ public class Files {
 
     updateContentTransmitted(downloadSpeed, uploadSpeed);
 
-    checkFinishedDownloadUpload(getSender, getReciever);
+    return checkFinishedDownloadUpload(getSender, getReciever);
+  }
+
+  /**
+   * Works out how many of the coming minutes are guaranteed to be uneventful
+   * for this transfer, meaning every update in those minutes just adds the same
+   * number of bytes. An event is anything that changes more than that: 1. the
+   * transfer finishing, which frees up bandwidth 2. a teleporting sender or
+   * reciever teleporting, which strips the t's 3. a device and satellite going
+   * out of range of each other, which cancels the transfer.
+   *
+   * @return the number of uneventful minutes, 0 if the next minute could have
+   *         an event
+   */
+  public int minutesUntilNextEvent() {
+    DeviceSatellite getSender = getSender();
+    DeviceSatellite getReciever = getReciever();
+    int quietMinutes = Integer.MAX_VALUE;
+
+    if (getSender instanceof TeleportingSatellite) {
+      quietMinutes = Math.min(quietMinutes, minutesBeforeTeleport((TeleportingSatellite) getSender));
+    }
+    if (getReciever instanceof TeleportingSatellite) {
+      quietMinutes = Math.min(quietMinutes, minutesBeforeTeleport((TeleportingSatellite) getReciever));
+    }
+
+    if (getReciever.getNumFilesDownloading() <= 0 || getSender.getNumFilesUploading() <= 0) {
+      return 0;
+    }
+    int byteRate = Math.min(getReciever.downloadSpeed(), getSender.uploadSpeed());
+    if (byteRate > 0) {
+      long minutesToFinish = (getSize() - getBytesTransmitted() + (long) byteRate - 1) / byteRate;
+      quietMinutes = (int) Math.min(quietMinutes, minutesToFinish - 1);
+    }
+
+    if ((getSender instanceof Devices) || (getReciever instanceof Devices)) {
+      quietMinutes = Math.min(quietMinutes, getReciever.minutesGuaranteedInRange(getSender));
+    }
+    return Math.max(0, quietMinutes);
+  }
+
+  /**
+   * Moves the transfer forward by a number of minutes that are known to be
+   * uneventful, which is the same as calling updateFileTransfer once for each
+   * of them.
+   *
+   * @param minutes the number of minutes to move forward, no more than
+   *                minutesUntilNextEvent
+   */
+  public void fastForward(int minutes) {
+    int byteRate = Math.min(getReciever().downloadSpeed(), getSender().uploadSpeed());
+    int bytesToTransmit = (int) Math.min((long) byteRate * minutes, getSize() - getBytesTransmitted());
+    updateContentTransmitted(bytesToTransmit, bytesToTransmit);
+  }
+
+  /**
+   * A teleport is only predicted to the nearest minute, so we stop a minute
+   * early to be safe.
+   */
+  private static int minutesBeforeTeleport(TeleportingSatellite satellite) {
+    if (satellite.isTeleportIsComplete()) {
+      return 0;
+    }
+    return Math.max(0, satellite.minutesUntilTeleport() - 2);
   }
 
   /**
@@ -224,12 +317,15 @@ public class Files {
    *
    * @param getSender   The device or satellite that is sending the file.
    * @param getReceiver The device or satellite that is receiving the file.
+   * @return COMPLETED if the file has been transferred, IN_PROGRESS otherwise
    */
-  private void checkFinishedDownloadUpload(DeviceSatellite getSender, DeviceSatellite getReciever) {
+  private TransferStatus checkFinishedDownloadUpload(DeviceSatellite getSender, DeviceSatellite getReciever) {
     if (getBytesTransmitted() == getSize()) {
       getReciever.setNumFilesDownloading(getReciever.getNumFilesDownloading() - 1);
       getSender.setNumFilesUploading(getSender.getNumFilesUploading() - 1);
+      return TransferStatus.COMPLETED;
     }
+    return TransferStatus.IN_PROGRESS;
   }
 
   /**
@@ -237,15 +333,27 @@ public class Files {
    * download and upload speeds. if the download or upload speed are not equal we
    * calculate the transmittedByteRate using the bottleneck. We then set the bytes
    * transmitted by making sure the transmittedByteRate doesn't exceed the size of
-   * the file and append the present content based on the bytes we have recieved
+   * the file. The present content isn't rebuilt here, it's worked out from the
+   * bytes transmitted when it's next asked for. A transfer can never go
+   * backwards, so a negative speed (from a sender or reciever whose file counts
+   * have gone wrong) fails before anything is changed.
    *
    * @param downloadSpeed The download speed for the file transfer.
    * @param uploadSpeed   The upload speed for the file transfer.
    */
   private void updateContentTransmitted(int downloadSpeed, int uploadSpeed) {
-    int transmittedByteRate = getBytesTransmitted() + Math.min(downloadSpeed, uploadSpeed);
+    int byteRate = Math.min(downloadSpeed, uploadSpeed);
+    if (byteRate < 0) {
+      throw new IllegalStateException("Can't transmit " + filename + " at " + byteRate + " bytes a minute");
+    }
+    int transmittedByteRate = getBytesTransmitted() + byteRate;
+    int bytesBefore = getBytesTransmitted();
     setBytesTransmitted(Math.min(transmittedByteRate, getSize()));
-    setPresentContent(new String(getFutureContent().toCharArray(), 0, getBytesTransmitted()));
+
+    SimulationMetrics metrics = reciever.getMetrics();
+    if (metrics != null) {
+      metrics.recordBytesTransferred(getBytesTransmitted() - bytesBefore);
+    }
   }
 
 }
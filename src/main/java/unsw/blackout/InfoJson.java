@@ -0,0 +1,65 @@
+package unsw.blackout;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Writes the info of a device or satellite as JSON straight from its view,
+ * without building an EntityInfoResponse first. The JSON is the same as Gson
+ * would write for its EntityInfoResponse, with the position in radians.
+ */
+final class InfoJson {
+  private InfoJson() {
+  }
+
+  static byte[] encode(EntityView entity) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (JsonWriter writer = newWriter(bytes)) {
+      writer.beginObject();
+      writer.name("id").value(entity.getId());
+      writer.name("position").value(entity.getPositionRadians());
+      writer.name("height").value(entity.getHeight());
+      writer.name("type").value(entity.getType());
+      writer.name("files").beginObject();
+      for (EntityView.FileView file : entity.getFiles()) {
+        writer.name(file.getFilename()).beginObject();
+        writer.name("filename").value(file.getFilename());
+        writer.name("data").value(file.getContent());
+        writer.name("fileSize").value(file.getSize());
+        writer.name("isFileComplete").value(file.isComplete());
+        writer.endObject();
+      }
+      writer.endObject();
+      writer.endObject();
+    } catch (IOException e) {
+      // nothing here can fail to write to a byte array
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  static byte[] encode(String value) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (JsonWriter writer = newWriter(bytes)) {
+      writer.value(value);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Escapes and leaves out nulls the same way Gson does by default.
+   */
+  private static JsonWriter newWriter(ByteArrayOutputStream bytes) {
+    JsonWriter writer = new JsonWriter(new OutputStreamWriter(bytes, StandardCharsets.UTF_8));
+    writer.setHtmlSafe(true);
+    writer.setSerializeNulls(false);
+    return writer;
+  }
+}
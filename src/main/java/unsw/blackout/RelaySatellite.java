@@ -10,6 +10,9 @@ public class RelaySatellite extends Satellite {
   private static final int UPPER_BOUNDARY = 190;
   private static final int LOWER_BOUNDARY = 140;
   private static final int THRESHOLD = 345;
+  private static final double UPPER_BOUNDARY_RADIANS = Math.toRadians(UPPER_BOUNDARY);
+  private static final double LOWER_BOUNDARY_RADIANS = Math.toRadians(LOWER_BOUNDARY);
+  private static final double THRESHOLD_RADIANS = Math.toRadians(THRESHOLD);
 
   public RelaySatellite(String satelliteId, String type, double height, Angle position) {
     super(satelliteId, type, height, position, 0, 0, Integer.MAX_VALUE, Integer.MAX_VALUE, 0, 0);
@@ -26,8 +29,7 @@ public class RelaySatellite extends Satellite {
 
   @Override
   public void moveByOneMinute() {
-    Angle currentPosition = getPosition();
-    Angle updatedPosition;
+    double currentPosition = getPositionRadians();
 
     // if the currentPosition is greater than the upper boundary and
     // currentPosition is less than the threshold then we subtract
@@ -36,22 +38,97 @@ public class RelaySatellite extends Satellite {
     // if the currentPosition is less than the lower boundary or greater than
     // or equal to the threshold we add and set the direction to anticlockwise
     // as per the specification
-    if ((currentPosition.compareTo(Angle.fromDegrees(UPPER_BOUNDARY)) > 0)
-        && (currentPosition.compareTo(Angle.fromDegrees(THRESHOLD)) < 0)) {
-      updatedPosition = currentPosition.subtract(Angle.fromDegrees(getAngularVelocity()));
+    if (currentPosition > UPPER_BOUNDARY_RADIANS && currentPosition < THRESHOLD_RADIANS) {
       setDirection(MathsHelper.CLOCKWISE);
-    } else if ((currentPosition.compareTo(Angle.fromDegrees(LOWER_BOUNDARY)) < 0)
-        || (currentPosition.compareTo(Angle.fromDegrees(THRESHOLD)) >= 0)) {
-      updatedPosition = currentPosition.add(Angle.fromDegrees(getAngularVelocity()));
+    } else if (currentPosition < LOWER_BOUNDARY_RADIANS || currentPosition >= THRESHOLD_RADIANS) {
       setDirection(MathsHelper.ANTI_CLOCKWISE);
     }
 
     if (getDirection() == MathsHelper.CLOCKWISE) {
-      updatedPosition = currentPosition.subtract(Angle.fromDegrees(getAngularVelocity()));
+      setPositionRadians(currentPosition - Math.toRadians(getAngularVelocity()));
     } else {
-      updatedPosition = currentPosition.add(Angle.fromDegrees(getAngularVelocity()));
+      setPositionRadians(currentPosition + Math.toRadians(getAngularVelocity()));
+    }
+  }
+
+  @Override
+  public Angle positionAt(int minutes) {
+    if (minutes == 0) {
+      return getPosition();
+    }
+    return Angle.fromDegrees(new Orbit(minutes).position);
+  }
+
+  @Override
+  public void advance(int minutes) {
+    if (minutes == 0) {
+      return;
+    }
+    Orbit orbit = new Orbit(minutes);
+    setPositionRadians(Math.toRadians(orbit.position));
+    setDirection(orbit.direction);
+  }
+
+  /**
+   * Where the satellite would be after a number of minutes without stepping
+   * through them. Every move is the same size, so the satellite only ever sits
+   * on positions a whole number of steps away from where it is now. Once it
+   * turns around it bounces between the last of those positions below the lower
+   * boundary and the first one above the upper boundary. So it works out: 1. how
+   * many steps it takes to reach the first turning point 2. how far through the
+   * bounce it is after that, by taking the remainder of the minutes left over.
+   * Past the threshold the satellite keeps going anticlockwise forever.
+   */
+  private final class Orbit {
+    private double position;
+    private int direction;
+
+    Orbit(int minutes) {
+      double start = Math.toDegrees(getPositionRadians());
+      double angularVelocity = getAngularVelocity();
+
+      if (start >= THRESHOLD) {
+        position = start + minutes * angularVelocity;
+        direction = MathsHelper.ANTI_CLOCKWISE;
+        return;
+      }
+
+      int firstDirection = getDirection();
+      if (start > UPPER_BOUNDARY) {
+        firstDirection = MathsHelper.CLOCKWISE;
+      } else if (start < LOWER_BOUNDARY) {
+        firstDirection = MathsHelper.ANTI_CLOCKWISE;
+      }
+
+      // the turning points, as a number of steps away from the start
+      long lowest = (long) Math.ceil((LOWER_BOUNDARY - start) / angularVelocity) - 1;
+      long highest = (long) Math.floor((UPPER_BOUNDARY - start) / angularVelocity) + 1;
+      long bounce = highest - lowest;
+      long steps;
+
+      if (firstDirection == MathsHelper.CLOCKWISE) {
+        if (minutes <= -lowest) {
+          steps = -minutes;
+          direction = MathsHelper.CLOCKWISE;
+        } else {
+          long stepsIntoBounce = (minutes + lowest) % (2 * bounce);
+          steps = stepsIntoBounce <= bounce ? lowest + stepsIntoBounce : highest - (stepsIntoBounce - bounce);
+          direction = stepsIntoBounce > 0 && stepsIntoBounce <= bounce ? MathsHelper.ANTI_CLOCKWISE
+              : MathsHelper.CLOCKWISE;
+        }
+      } else {
+        if (minutes <= highest) {
+          steps = minutes;
+          direction = MathsHelper.ANTI_CLOCKWISE;
+        } else {
+          long stepsIntoBounce = (minutes - highest) % (2 * bounce);
+          steps = stepsIntoBounce <= bounce ? highest - stepsIntoBounce : lowest + (stepsIntoBounce - bounce);
+          direction = stepsIntoBounce > 0 && stepsIntoBounce <= bounce ? MathsHelper.CLOCKWISE
+              : MathsHelper.ANTI_CLOCKWISE;
+        }
+      }
+      position = start + steps * angularVelocity;
     }
-    setPosition(updatedPosition);
   }
 
   @Override
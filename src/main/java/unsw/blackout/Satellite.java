@@ -1,7 +1,5 @@
 package unsw.blackout;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 import unsw.utils.Angle;
@@ -63,17 +61,6 @@ public abstract class Satellite extends DeviceSatellite {
     super.setPosition(position);
   }
 
-  public ArrayList<String> getSupportedDevices() {
-    switch (getType()) {
-    case "StandardSatellite":
-      return new ArrayList<String>(Arrays.asList("HandheldDevice", "LaptopDevice", "StandardSatellite",
-          "TeleportingSatellite", "RelaySatellite"));
-    default:
-      return new ArrayList<String>(Arrays.asList("HandheldDevice", "LaptopDevice", "DesktopDevice", "StandardSatellite",
-          "TeleportingSatellite", "RelaySatellite"));
-    }
-  }
-
   public Satellite findSatelliteById(String satelliteId, List<Satellite> satellites) {
     for (Satellite satellite : satellites) {
       if (satellite.getSatelliteId().equals(satelliteId)) {
@@ -84,10 +71,30 @@ public abstract class Satellite extends DeviceSatellite {
   }
 
   public boolean canCommunicate(DeviceSatellite object) {
-    return isInRange(object) && getSupportedDevices().contains(object.getType()) && !getId().equals(object.getId());
+    return getEntityType().canCommunicateWith(object.getEntityType()) && !getId().equals(object.getId())
+        && isInRange(object);
   }
 
   public abstract void moveByOneMinute();
 
+  /**
+   * Works out where the satellite will be after the given number of minutes
+   * without moving it. This is worked out directly rather than by stepping
+   * through each minute, and matches calling moveByOneMinute that many times up
+   * to rounding.
+   *
+   * @param minutes the number of minutes from now
+   * @return the position the satellite will be at
+   */
+  public abstract Angle positionAt(int minutes);
+
+  /**
+   * Moves the satellite forward by the given number of minutes, updating its
+   * position and any other state its movement depends on, in constant time.
+   *
+   * @param minutes the number of minutes to move by
+   */
+  public abstract void advance(int minutes);
+
   public abstract double getAngularVelocity();
 }
@@ -0,0 +1,189 @@
+package unsw.blackout;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+import unsw.utils.Histogram;
+
+/**
+ * Counts what a simulation has been doing and how long each phase of a tick
+ * takes. Everything is a LongAdder or a Histogram, so recording never locks
+ * and can be left on all the time, and metrics can be read from any thread
+ * while the simulation is running.
+ */
+public class SimulationMetrics {
+  // the histogram buckets exported go up in steps of 4x, from 2^10 - 1 ns
+  // (about a microsecond) to 2^34 - 1 ns (about 17 seconds)
+  private static final long[] EXPORTED_NANOS_BOUNDS = Histogram.powerOfTwoBounds(10, 34, 2);
+  private static final double NANOS_PER_SECOND = 1e9;
+  private static final AtomicLong NEXT_SIMULATION_ID = new AtomicLong(1);
+
+  private final long simulationId = NEXT_SIMULATION_ID.getAndIncrement();
+  private final LongAdder ticks = new LongAdder();
+  private final LongAdder fastForwardedMinutes = new LongAdder();
+  private final LongAdder rangeChecks = new LongAdder();
+  private final LongAdder bytesTransferred = new LongAdder();
+  private final LongAdder transfersCompleted = new LongAdder();
+  private final LongAdder transfersCancelled = new LongAdder();
+  private final LongAdder teleportStrips = new LongAdder();
+  private final Histogram movePhase = new Histogram();
+  private final Histogram deviceTransferPhase = new Histogram();
+  private final Histogram satelliteTransferPhase = new Histogram();
+  // parallel ticks update both kinds of transfer at once, so only the whole
+  // transfer phase can be timed
+  private final Histogram parallelTransferPhase = new Histogram();
+
+  /**
+   * A number that tells the metrics of different simulations apart when they
+   * are exported together, unlike a session id it's safe to publish.
+   */
+  public long getSimulationId() {
+    return simulationId;
+  }
+
+  public void recordTick() {
+    ticks.increment();
+  }
+
+  public void recordFastForward(int minutes) {
+    fastForwardedMinutes.add(minutes);
+  }
+
+  public void recordRangeCheck() {
+    rangeChecks.increment();
+  }
+
+  public void recordBytesTransferred(int bytes) {
+    bytesTransferred.add(bytes);
+  }
+
+  public void recordTeleportStrip() {
+    teleportStrips.increment();
+  }
+
+  /**
+   * Counts a transfer that has finished for the given reason. Transfers still
+   * in progress aren't counted.
+   */
+  public void recordTransferFinished(TransferStatus status) {
+    if (status == TransferStatus.COMPLETED) {
+      transfersCompleted.increment();
+    } else if (status == TransferStatus.CANCELLED) {
+      transfersCancelled.increment();
+    }
+  }
+
+  public void recordMovePhase(long nanos) {
+    movePhase.record(nanos);
+  }
+
+  public void recordDeviceTransferPhase(long nanos) {
+    deviceTransferPhase.record(nanos);
+  }
+
+  public void recordSatelliteTransferPhase(long nanos) {
+    satelliteTransferPhase.record(nanos);
+  }
+
+  public void recordParallelTransferPhase(long nanos) {
+    parallelTransferPhase.record(nanos);
+  }
+
+  public long getTicks() {
+    return ticks.sum();
+  }
+
+  public long getFastForwardedMinutes() {
+    return fastForwardedMinutes.sum();
+  }
+
+  public long getRangeChecks() {
+    return rangeChecks.sum();
+  }
+
+  public long getBytesTransferred() {
+    return bytesTransferred.sum();
+  }
+
+  public long getTransfersCompleted() {
+    return transfersCompleted.sum();
+  }
+
+  public long getTransfersCancelled() {
+    return transfersCancelled.sum();
+  }
+
+  public long getTeleportStrips() {
+    return teleportStrips.sum();
+  }
+
+  public Histogram getMovePhase() {
+    return movePhase;
+  }
+
+  public Histogram getDeviceTransferPhase() {
+    return deviceTransferPhase;
+  }
+
+  public Histogram getSatelliteTransferPhase() {
+    return satelliteTransferPhase;
+  }
+
+  public Histogram getParallelTransferPhase() {
+    return parallelTransferPhase;
+  }
+
+  /**
+   * Writes the metrics of every given simulation in the Prometheus text
+   * format, with each simulation told apart by a simulation label. Each metric
+   * is written once with a line for every simulation under it, as the format
+   * requires.
+   *
+   * @param simulations the metrics to export
+   * @return the exported metrics
+   */
+  public static String toPrometheus(List<SimulationMetrics> simulations) {
+    StringBuilder out = new StringBuilder();
+    writeCounter(out, simulations, "blackout_ticks_total", "Minutes simulated one at a time.", m -> m.getTicks());
+    writeCounter(out, simulations, "blackout_fast_forwarded_minutes_total",
+        "Minutes skipped over because nothing happened in them.", m -> m.getFastForwardedMinutes());
+    writeCounter(out, simulations, "blackout_range_checks_total", "Range checks between two entities.",
+        m -> m.getRangeChecks());
+    writeCounter(out, simulations, "blackout_bytes_transferred_total", "Bytes sent by file transfers.",
+        m -> m.getBytesTransferred());
+    writeCounter(out, simulations, "blackout_transfers_completed_total", "File transfers that finished.",
+        m -> m.getTransfersCompleted());
+    writeCounter(out, simulations, "blackout_transfers_cancelled_total",
+        "File transfers whose partial file was deleted.", m -> m.getTransfersCancelled());
+    writeCounter(out, simulations, "blackout_teleport_strips_total",
+        "Times a teleport removed the t's from a file.", m -> m.getTeleportStrips());
+
+    String name = "blackout_tick_phase_seconds";
+    out.append("# HELP ").append(name).append(" Time spent in each phase of a tick.\n");
+    out.append("# TYPE ").append(name).append(" histogram\n");
+    for (SimulationMetrics metrics : simulations) {
+      String labels = "simulation=\"" + metrics.getSimulationId() + "\",phase=";
+      metrics.getMovePhase().writePrometheus(out, name, labels + "\"move\"", EXPORTED_NANOS_BOUNDS,
+          NANOS_PER_SECOND);
+      metrics.getDeviceTransferPhase().writePrometheus(out, name, labels + "\"device_transfers\"",
+          EXPORTED_NANOS_BOUNDS, NANOS_PER_SECOND);
+      metrics.getSatelliteTransferPhase().writePrometheus(out, name, labels + "\"satellite_transfers\"",
+          EXPORTED_NANOS_BOUNDS, NANOS_PER_SECOND);
+      metrics.getParallelTransferPhase().writePrometheus(out, name, labels + "\"parallel_transfers\"",
+          EXPORTED_NANOS_BOUNDS, NANOS_PER_SECOND);
+    }
+    return out.toString();
+  }
+
+  private static void writeCounter(StringBuilder out, List<SimulationMetrics> simulations, String name,
+      String help, ToLongFunction<SimulationMetrics> counter) {
+    out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    out.append("# TYPE ").append(name).append(" counter\n");
+    for (SimulationMetrics metrics : simulations) {
+      out.append(name).append("{simulation=\"").append(metrics.getSimulationId()).append("\"} ")
+          .append(counter.applyAsLong(metrics)).append('\n');
+    }
+  }
+}
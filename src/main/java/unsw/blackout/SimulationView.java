@@ -0,0 +1,122 @@
+package unsw.blackout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import unsw.response.models.EntityInfoResponse;
+
+/**
+ * Every device and satellite of a simulation as they were at one moment,
+ * which never changes once it has been taken. Anything that only looks at the
+ * simulation can answer from a view without holding the simulation's lock, so
+ * it never has to wait for a long simulation to finish.
+ *
+ * Ids are listed and searched in the same order as the controller does:
+ * satellites before devices, each in the order they were created.
+ */
+public final class SimulationView {
+  private final EntityView[] entities;
+  private final int satelliteCount;
+  // the slot of every id, which is shared with the views before and after this
+  // one for as long as nothing is created or removed
+  private final Map<String, Integer> slots;
+
+  SimulationView(EntityView[] entities, int satelliteCount, Map<String, Integer> slots) {
+    this.entities = entities;
+    this.satelliteCount = satelliteCount;
+    this.slots = slots;
+  }
+
+  /**
+   * Works out the slot of every id, for a view with different devices and
+   * satellites to the last one.
+   */
+  static Map<String, Integer> slotsOf(EntityView[] entities) {
+    Map<String, Integer> slots = new HashMap<>(BlackoutController.capacityFor(entities.length));
+    for (int i = 0; i < entities.length; i++) {
+      slots.put(entities[i].getId(), i);
+    }
+    return Collections.unmodifiableMap(slots);
+  }
+
+  public List<String> listDeviceIds() {
+    return idsOf(satelliteCount, entities.length);
+  }
+
+  public List<String> listSatelliteIds() {
+    return idsOf(0, satelliteCount);
+  }
+
+  /**
+   * Gets the view of a device or satellite, or null if there isn't one with
+   * the given id.
+   */
+  public EntityView get(String id) {
+    Integer slot = slots.get(id);
+    return slot == null ? null : entities[slot];
+  }
+
+  /**
+   * Gets the info of a device or satellite, or null if there isn't one with the
+   * given id.
+   */
+  public EntityInfoResponse getInfo(String id) {
+    EntityView entity = get(id);
+    return entity == null ? null : entity.getInfo();
+  }
+
+  /**
+   * Gets the info of the given devices and satellites as JSON. Ids that aren't
+   * a device or satellite are left out.
+   */
+  public EncodedInfo encodeInfo(List<String> ids) {
+    List<EntityView> found = new ArrayList<>(ids.size());
+    for (String id : ids) {
+      EntityView entity = get(id);
+      if (entity != null) {
+        found.add(entity);
+      }
+    }
+    return new EncodedInfo(found);
+  }
+
+  /**
+   * Gets the info of every satellite and then every device as JSON.
+   */
+  public EncodedInfo encodeAllInfo() {
+    return new EncodedInfo(Arrays.asList(entities));
+  }
+
+  /**
+   * Lists the ids of everything the given device or satellite can communicate
+   * with, the same as BlackoutController.communicableEntitiesInRange did when
+   * the view was taken. A view has no spatial index, so this checks every
+   * device and satellite in it.
+   */
+  public List<String> communicableEntitiesInRange(String id) {
+    List<String> communicableEntityIds = new ArrayList<>();
+    EntityView object = get(id);
+    if (object == null) {
+      return communicableEntityIds;
+    }
+
+    for (EntityView candidate : entities) {
+      if (candidate.canCommunicate(object)) {
+        communicableEntityIds.add(candidate.getId());
+      }
+    }
+    return communicableEntityIds;
+  }
+
+  private List<String> idsOf(int from, int to) {
+    List<String> ids = new ArrayList<>(to - from);
+    for (int i = from; i < to; i++) {
+      ids.add(entities[i].getId());
+    }
+    return ids;
+  }
+}
@@ -0,0 +1,203 @@
+package unsw.blackout;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import unsw.utils.MathsHelper;
+
+/**
+ * Buckets devices and satellites into rings of height and sectors of angle so
+ * range queries only have to look at the buckets that could possibly hold an
+ * entity within range, instead of every entity in the simulation.
+ */
+public class SpatialIndex {
+  private static final int SECTOR_COUNT = 360;
+  private static final double SECTOR_WIDTH = 2 * Math.PI / SECTOR_COUNT;
+  private static final double RING_WIDTH = 10000;
+  // widens the searched arc slightly so rounding can never exclude a bucket
+  private static final double ANGLE_TOLERANCE = 1e-9;
+
+  private Map<Integer, Ring> rings = new HashMap<>();
+  private Map<DeviceSatellite, Placement> placements = new HashMap<>();
+
+  /**
+   * All entities whose height falls in the same band. The smallest and largest
+   * heights ever placed in the ring are kept so queries can bound the distance
+   * to anything inside it.
+   */
+  private static class Ring {
+    private List<Set<DeviceSatellite>> sectors = new ArrayList<>(SECTOR_COUNT);
+    private double minHeight = Double.MAX_VALUE;
+    private double maxHeight = -Double.MAX_VALUE;
+
+    Ring() {
+      for (int i = 0; i < SECTOR_COUNT; i++) {
+        sectors.add(null);
+      }
+    }
+
+    Set<DeviceSatellite> getSector(int sector) {
+      Set<DeviceSatellite> entities = sectors.get(sector);
+      if (entities == null) {
+        entities = new LinkedHashSet<>();
+        sectors.set(sector, entities);
+      }
+      return entities;
+    }
+  }
+
+  /**
+   * The bucket an entity is currently stored in.
+   */
+  private static class Placement {
+    private int ring;
+    private int sector;
+
+    Placement(int ring, int sector) {
+      this.ring = ring;
+      this.sector = sector;
+    }
+  }
+
+  public void add(DeviceSatellite entity) {
+    remove(entity);
+    int ring = ringOf(entity.getHeight());
+    int sector = sectorOf(entity.getPositionRadians());
+    placeInBucket(entity, ring, sector);
+    placements.put(entity, new Placement(ring, sector));
+  }
+
+  /**
+   * Makes room for the given number of devices and satellites in total, so
+   * adding many at once doesn't grow the map over and over.
+   */
+  public void ensureCapacity(int entities) {
+    if (entities > placements.size()) {
+      Map<DeviceSatellite, Placement> resized = new HashMap<>(BlackoutController.capacityFor(entities));
+      resized.putAll(placements);
+      placements = resized;
+    }
+  }
+
+  public void remove(DeviceSatellite entity) {
+    Placement placement = placements.remove(entity);
+    if (placement != null) {
+      rings.get(placement.ring).getSector(placement.sector).remove(entity);
+    }
+  }
+
+  /**
+   * Moves an entity to the bucket matching its current position and height.
+   * Entities that haven't left their bucket are left untouched.
+   *
+   * @param entity the device or satellite that may have moved
+   */
+  public void update(DeviceSatellite entity) {
+    Placement placement = placements.get(entity);
+    if (placement == null) {
+      add(entity);
+      return;
+    }
+
+    int ring = ringOf(entity.getHeight());
+    int sector = sectorOf(entity.getPositionRadians());
+    if (ring != placement.ring || sector != placement.sector) {
+      rings.get(placement.ring).getSector(placement.sector).remove(entity);
+      placeInBucket(entity, ring, sector);
+      placement.ring = ring;
+      placement.sector = sector;
+    }
+  }
+
+  /**
+   * Finds every entity that could be closer than the given range to the object
+   * of interest. It does this by: 1. working out for each ring the widest angle
+   * at which any height in that ring could still be within range using the law
+   * of cosines 2. skipping rings where no angle is close enough 3. collecting
+   * the sectors of the ring that overlap that arc. The result may include
+   * entities that are out of range, so callers still need to do the exact check.
+   *
+   * @param objectOfInterest the entity at the centre of the query
+   * @param range            the distance that candidates have to be within
+   * @return the candidate entities bucket by bucket, in no particular order,
+   *         possibly including the object itself
+   */
+  public List<DeviceSatellite> findCandidates(DeviceSatellite objectOfInterest, double range) {
+    List<DeviceSatellite> candidates = new ArrayList<>();
+    double height = objectOfInterest.getHeight();
+    double angle = normalise(objectOfInterest.getPositionRadians());
+
+    for (Ring ring : rings.values()) {
+      double maxAngle = maxAngleInRange(height, range, ring.minHeight, ring.maxHeight);
+      if (maxAngle < 0) {
+        continue;
+      }
+
+      int firstSector = (int) Math.floor((angle - maxAngle - ANGLE_TOLERANCE) / SECTOR_WIDTH);
+      int lastSector = (int) Math.floor((angle + maxAngle + ANGLE_TOLERANCE) / SECTOR_WIDTH);
+      if (lastSector - firstSector + 1 >= SECTOR_COUNT) {
+        firstSector = 0;
+        lastSector = SECTOR_COUNT - 1;
+      }
+
+      for (int sector = firstSector; sector <= lastSector; sector++) {
+        Set<DeviceSatellite> entities = ring.sectors.get(Math.floorMod(sector, SECTOR_COUNT));
+        if (entities != null) {
+          candidates.addAll(entities);
+        }
+      }
+    }
+    return candidates;
+  }
+
+  private void placeInBucket(DeviceSatellite entity, int ringIndex, int sector) {
+    Ring ring = rings.computeIfAbsent(ringIndex, index -> new Ring());
+    ring.getSector(sector).add(entity);
+    ring.minHeight = Math.min(ring.minHeight, entity.getHeight());
+    ring.maxHeight = Math.max(ring.maxHeight, entity.getHeight());
+  }
+
+  /**
+   * Works out the largest angle between the query and a point with a height
+   * between minHeight and maxHeight where the two can be closer than range. A
+   * point at height r and angle t from the query is within range when cos(t) >
+   * (h^2 + r^2 - range^2) / 2hr, so we find the height in the ring that
+   * minimises the right hand side.
+   *
+   * @return the widest angle in radians, or -1 if nothing in the ring can be in
+   *         range
+   */
+  private static double maxAngleInRange(double height, double range, double minHeight, double maxHeight) {
+    if (minHeight <= 0) {
+      return Math.PI;
+    }
+
+    double bestHeight = height > range ? Math.sqrt(height * height - range * range) : minHeight;
+    bestHeight = Math.max(minHeight, Math.min(maxHeight, bestHeight));
+    double minCosine = (height * height + bestHeight * bestHeight - range * range) / (2 * height * bestHeight);
+
+    if (minCosine > 1 + ANGLE_TOLERANCE) {
+      return -1;
+    } else if (minCosine <= -1) {
+      return Math.PI;
+    }
+    return Math.acos(Math.min(1, minCosine));
+  }
+
+  private static int ringOf(double height) {
+    return (int) Math.max(0, (height - MathsHelper.RADIUS_OF_JUPITER) / RING_WIDTH);
+  }
+
+  private static int sectorOf(double radians) {
+    return Math.min(SECTOR_COUNT - 1, (int) (normalise(radians) / SECTOR_WIDTH));
+  }
+
+  private static double normalise(double radians) {
+    double normalised = radians % (2 * Math.PI);
+    return normalised < 0 ? normalised + 2 * Math.PI : normalised;
+  }
+}
@@ -15,9 +15,27 @@ public class StandardSatellite extends Satellite {
 
   @Override
   public void moveByOneMinute() {
-    double angularVelocity = getAngularVelocity();
-    double updatedPosition = getPosition().toDegrees() - (angularVelocity);
-    setPosition(Angle.fromDegrees(updatedPosition));
+    setPositionRadians(Math.toRadians(degreesAfter(1)));
+  }
+
+  @Override
+  public Angle positionAt(int minutes) {
+    if (minutes == 0) {
+      return getPosition();
+    }
+    return Angle.fromDegrees(degreesAfter(minutes));
+  }
+
+  @Override
+  public void advance(int minutes) {
+    if (minutes == 0) {
+      return;
+    }
+    setPositionRadians(Math.toRadians(degreesAfter(minutes)));
+  }
+
+  private double degreesAfter(int minutes) {
+    return Math.toDegrees(getPositionRadians()) - minutes * getAngularVelocity();
   }
 
   public int getDirection() {
@@ -5,6 +5,8 @@ import unsw.utils.MathsHelper;
 
 public class TeleportingSatellite extends Satellite {
   private static final int TELEPORTING_SATELLITE_SPEED = 1000;
+  private static final double FULL_CIRCLE = Math.toRadians(360);
+  private static final double HALF_CIRCLE = Math.toRadians(180);
   private int direction;
   private boolean teleportIsComplete;
 
@@ -32,44 +34,148 @@ public class TeleportingSatellite extends Satellite {
 
   @Override
   public void moveByOneMinute() {
-    double angularVelocity = getAngularVelocity();
-    Angle currentPosition = getPosition();
-    Angle updatedPosition;
+    double angularVelocity = Math.toRadians(getAngularVelocity());
+    double updatedPosition;
 
     if (getDirection() == MathsHelper.ANTI_CLOCKWISE) {
-      updatedPosition = currentPosition.add(Angle.fromDegrees(angularVelocity));
+      updatedPosition = getPositionRadians() + angularVelocity;
 
       // if the position exceedds 360 degrees subtract 360 to make sure
       // we stay in the valid zone
-      if (updatedPosition.compareTo(Angle.fromDegrees(360)) > 0) {
-        updatedPosition = updatedPosition.subtract(Angle.fromDegrees(360));
+      if (updatedPosition > FULL_CIRCLE) {
+        updatedPosition -= FULL_CIRCLE;
       }
 
       // if the updatedPosition is greater than 180, set the position to
       // 0 and change the direction as a result of a sucessful teleportation
-      if (updatedPosition.compareTo(Angle.fromDegrees(180)) > 0) {
-        updatedPosition = Angle.fromDegrees(0);
+      if (updatedPosition > HALF_CIRCLE) {
+        updatedPosition = 0;
         setDirection(MathsHelper.CLOCKWISE);
         setTeleportIsComplete(true);
       }
     } else {
-      updatedPosition = getPosition().subtract(Angle.fromDegrees(angularVelocity));
+      updatedPosition = getPositionRadians() - angularVelocity;
 
       // if our position is in the negatives add 360 to bring it
       // to the valid range
-      if (updatedPosition.compareTo(Angle.fromDegrees(0)) < 0) {
-        updatedPosition = updatedPosition.add(Angle.fromDegrees(360));
+      if (updatedPosition < 0) {
+        updatedPosition += FULL_CIRCLE;
       }
 
       // if the position is less than 180 then teleport to 0
       // changing the direction as a result of a successful teleportation
-      if (updatedPosition.compareTo(Angle.fromDegrees(180)) < 0) {
-        updatedPosition = Angle.fromDegrees(0);
+      if (updatedPosition < HALF_CIRCLE) {
+        updatedPosition = 0;
         setDirection(MathsHelper.ANTI_CLOCKWISE);
         setTeleportIsComplete(true);
       }
     }
-    setPosition(updatedPosition);
+    setPositionRadians(updatedPosition);
+  }
+
+  @Override
+  public Angle positionAt(int minutes) {
+    if (minutes == 0) {
+      return getPosition();
+    }
+    return Angle.fromDegrees(new Orbit(minutes).position);
+  }
+
+  @Override
+  public void advance(int minutes) {
+    if (minutes == 0) {
+      return;
+    }
+    Orbit orbit = new Orbit(minutes);
+    setPositionRadians(Math.toRadians(orbit.position));
+    setDirection(orbit.direction);
+    setTeleportIsComplete(isTeleportIsComplete() || orbit.teleported);
+  }
+
+  /**
+   * Works out how many calls to moveByOneMinute it takes until the satellite
+   * next teleports.
+   *
+   * @return the number of minutes until the next teleport, at least 1
+   */
+  public int minutesUntilTeleport() {
+    return minutesUntilTeleport(Math.toDegrees(getPositionRadians()), getDirection());
+  }
+
+  /**
+   * Works out how many steps it takes to teleport from the given position and
+   * direction. It does this by taking the first step the same way
+   * moveByOneMinute does, since that is the only step that can wrap past 360 or
+   * 0, and then counting how many more steps it takes to pass 180.
+   */
+  private int minutesUntilTeleport(double position, int direction) {
+    double angularVelocity = getAngularVelocity();
+
+    if (direction == MathsHelper.ANTI_CLOCKWISE) {
+      double firstStep = position + angularVelocity;
+      if (firstStep > 360) {
+        firstStep -= 360;
+      }
+      return firstStep > 180 ? 1 : (int) Math.floor((180 - firstStep) / angularVelocity) + 2;
+    } else {
+      double firstStep = position - angularVelocity;
+      if (firstStep < 0) {
+        firstStep += 360;
+      }
+      return firstStep < 180 ? 1 : (int) Math.floor((firstStep - 180) / angularVelocity) + 2;
+    }
+  }
+
+  /**
+   * Where the satellite would be after a number of minutes without stepping
+   * through them. After its first teleport the satellite is always on the same
+   * cycle: from 0 it goes one way until it passes 180 and teleports back to 0,
+   * then the other way until it passes 180 again. So it works out: 1. whether
+   * the satellite gets to its first teleport at all 2. how far it is into the
+   * cycle after that, by taking the remainder of the minutes left over 3. how
+   * far it has moved from 0 in that part of the cycle.
+   */
+  private final class Orbit {
+    private double position;
+    private int direction;
+    private boolean teleported;
+
+    Orbit(int minutes) {
+      int firstTeleport = minutesUntilTeleport();
+      if (minutes < firstTeleport) {
+        position = positionWithoutTeleport(Math.toDegrees(getPositionRadians()), getDirection(), minutes);
+        direction = getDirection();
+        teleported = false;
+        return;
+      }
+
+      int minutesInCycle = minutes - firstTeleport;
+      direction = -getDirection();
+      int firstHalf = minutesUntilTeleport(0, direction);
+      int secondHalf = minutesUntilTeleport(0, -direction);
+      minutesInCycle %= firstHalf + secondHalf;
+      if (minutesInCycle >= firstHalf) {
+        minutesInCycle -= firstHalf;
+        direction = -direction;
+      }
+      position = positionWithoutTeleport(0, direction, minutesInCycle);
+      teleported = true;
+    }
+
+    private double positionWithoutTeleport(double start, int direction, int minutes) {
+      if (minutes == 0) {
+        return start;
+      }
+
+      double angularVelocity = getAngularVelocity();
+      if (direction == MathsHelper.ANTI_CLOCKWISE) {
+        double updatedPosition = start + minutes * angularVelocity;
+        return start + angularVelocity > 360 ? updatedPosition - 360 : updatedPosition;
+      } else {
+        double updatedPosition = start - minutes * angularVelocity;
+        return start - angularVelocity < 0 ? updatedPosition + 360 : updatedPosition;
+      }
+    }
   }
 
   @Override
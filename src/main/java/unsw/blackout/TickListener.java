@@ -0,0 +1,16 @@
+package unsw.blackout;
+
+/**
+ * Something that wants to know whenever a simulation moves forward.
+ */
+public interface TickListener {
+  /**
+   * Called straight after the simulation has moved forward, on the thread that
+   * moved it, so the simulation won't change while this runs.
+   *
+   * @param controller the simulation that moved forward
+   * @param minutes    how many minutes it moved forward by, which is more than
+   *                   one when uneventful minutes were skipped over
+   */
+  void ticked(BlackoutController controller, int minutes);
+}
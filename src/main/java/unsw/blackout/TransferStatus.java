@@ -0,0 +1,25 @@
+package unsw.blackout;
+
+/**
+ * What happened to a file transfer after it was updated for a minute.
+ */
+public enum TransferStatus {
+  /**
+   * The transfer still has bytes left to send.
+   */
+  IN_PROGRESS,
+  /**
+   * Every byte of the file has been sent.
+   */
+  COMPLETED,
+  /**
+   * The partial file was deleted, because the device and satellite went out of
+   * range or the teleporting satellite recieving it teleported.
+   */
+  CANCELLED,
+  /**
+   * The sender or reciever teleported, so the rest of the file arrived at once
+   * with its t's removed.
+   */
+  TELEPORTED
+}
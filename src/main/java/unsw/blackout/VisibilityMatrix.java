@@ -0,0 +1,208 @@
+package unsw.blackout;
+
+import static unsw.utils.MathsHelper.getCartesianDistance;
+import static unsw.utils.MathsHelper.isCartesianVisible;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Answers every range check between the devices and satellites it was built
+ * from with a lookup. It is rebuilt once per tick after everything has moved,
+ * reusing the arrays of the tick before.
+ *
+ * Distance and visibility are the same in both directions, so each unordered
+ * pair is only worked out once. Only the range differs by direction, because a
+ * range check uses the range of the object of interest. So every pair within
+ * the longer of its two ranges is kept, along with whether it is within the
+ * shorter one too. Pairs that aren't kept are out of range both ways, so only
+ * pairs the spatial index finds near each other take up any space.
+ *
+ * Each entity's row lists the pairs it is part of, sorted by the slot of the
+ * other entity. An entry is that slot shifted left by one, with the lowest bit
+ * set if the pair is within the shorter range.
+ */
+public class VisibilityMatrix {
+  // past this many entries the matrix isn't built, and range checks are worked
+  // out directly instead, so a dense constellation can't take all the memory
+  private static final int MAX_ENTRIES = 1 << 24;
+  // entries keep a slot in all but their lowest bit
+  private static final int MAX_SLOTS = 1 << 30;
+
+  private DeviceSatellite[] slots = new DeviceSatellite[0];
+  private int size;
+  private boolean built;
+
+  // each pair found in range, as its first slot then its entry in that row
+  private int[] pairs = new int[0];
+  private int pairCount;
+
+  // row slot is entries[rowStarts[slot]] up to entries[rowStarts[slot + 1]]
+  private int[] rowStarts = new int[0];
+  private int[] entries = new int[0];
+
+  /**
+   * Builds the matrix for the given entities. It does this by: 1. giving every
+   * entity a slot in the matrix 2. asking the spatial index for the candidates
+   * within the longest range of any entity, since nothing further away can be
+   * in range 3. working out the distance and visibility of each candidate pair
+   * once, keeping it if it's within the longer range 4. sorting the pairs kept
+   * into a row for each entity. If there would be too many entries, the matrix
+   * is left empty and covers nothing.
+   *
+   * @param entities     every device and satellite in the simulation
+   * @param spatialIndex an up to date index over the same entities
+   */
+  public void rebuild(List<DeviceSatellite> entities, SpatialIndex spatialIndex) {
+    built = false;
+    size = 0;
+    pairCount = 0;
+    if (entities.size() > MAX_SLOTS) {
+      return;
+    }
+
+    if (slots.length < entities.size()) {
+      slots = new DeviceSatellite[entities.size()];
+    } else {
+      Arrays.fill(slots, entities.size(), slots.length, null);
+    }
+    int longestRange = 0;
+    for (DeviceSatellite entity : entities) {
+      entity.setVisibilityMatrix(this, size);
+      slots[size++] = entity;
+      longestRange = Math.max(longestRange, entity.getRange());
+    }
+
+    for (int slot = 0; slot < size; slot++) {
+      for (DeviceSatellite candidate : spatialIndex.findCandidates(slots[slot], longestRange)) {
+        if (isSlotted(candidate) && candidate.getVisibilitySlot() > slot
+            && !recordPair(slot, candidate.getVisibilitySlot())) {
+          // too many pairs in range, so every check is worked out directly
+          size = 0;
+          return;
+        }
+      }
+    }
+    buildRows();
+    built = true;
+  }
+
+  /**
+   * Checks whether both entities were part of this matrix when it was last
+   * built.
+   */
+  public boolean covers(DeviceSatellite first, DeviceSatellite second) {
+    return built && first != second && isSlotted(first) && isSlotted(second);
+  }
+
+  /**
+   * The equivalent of {@link DeviceSatellite#isInRange(DeviceSatellite)} for two
+   * entities this matrix covers.
+   *
+   * @param entity           the device or satellite doing the check
+   * @param objectOfInterest the object whose range is used
+   * @return true if the two were in range when the matrix was built
+   */
+  public boolean isInRange(DeviceSatellite entity, DeviceSatellite objectOfInterest) {
+    int row = entity.getVisibilitySlot();
+    int other = objectOfInterest.getVisibilitySlot();
+    int low = rowStarts[row];
+    int high = rowStarts[row + 1] - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int slot = entries[middle] >>> 1;
+      if (slot < other) {
+        low = middle + 1;
+      } else if (slot > other) {
+        high = middle - 1;
+      } else if (objectOfInterest.getRange() <= entity.getRange()) {
+        return (entries[middle] & 1) != 0;
+      } else {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean isSlotted(DeviceSatellite entity) {
+    int slot = entity.getVisibilitySlot();
+    return entity.getVisibilityMatrix() == this && slot < size && slots[slot] == entity;
+  }
+
+  /**
+   * Keeps a pair if it's in range.
+   *
+   * @return false if the pair should be kept but there's no room for it
+   */
+  private boolean recordPair(int first, int second) {
+    DeviceSatellite entity = slots[first];
+    DeviceSatellite other = slots[second];
+    int shorterRange = Math.min(entity.getRange(), other.getRange());
+    int longerRange = Math.max(entity.getRange(), other.getRange());
+
+    double distance = getCartesianDistance(entity.getX(), entity.getY(), other.getX(), other.getY());
+    if (distance >= longerRange || !isVisible(entity, other)) {
+      return true;
+    }
+
+    // both rows get an entry, so there are twice as many entries as pairs
+    if (pairCount >= MAX_ENTRIES / 2) {
+      return false;
+    }
+    if (pairs.length < 2 * (pairCount + 1)) {
+      pairs = Arrays.copyOf(pairs, Math.max(64, 2 * pairs.length));
+    }
+    pairs[2 * pairCount] = first;
+    pairs[2 * pairCount + 1] = second << 1 | (distance < shorterRange ? 1 : 0);
+    pairCount++;
+    return true;
+  }
+
+  /**
+   * Sorts the pairs into rows. It does this by: 1. counting the entries of
+   * each row 2. adding the counts up into where each row starts 3. putting
+   * each entry straight into place, moving its row's start along 4. moving the
+   * starts back, since each one is now where the next row starts.
+   */
+  private void buildRows() {
+    if (rowStarts.length < size + 1) {
+      rowStarts = new int[size + 1];
+    }
+    Arrays.fill(rowStarts, 0, size + 1, 0);
+    for (int pair = 0; pair < pairCount; pair++) {
+      rowStarts[pairs[2 * pair] + 1]++;
+      rowStarts[(pairs[2 * pair + 1] >>> 1) + 1]++;
+    }
+    for (int slot = 0; slot < size; slot++) {
+      rowStarts[slot + 1] += rowStarts[slot];
+    }
+
+    if (entries.length < 2 * pairCount) {
+      entries = new int[2 * pairCount];
+    }
+    for (int pair = 0; pair < pairCount; pair++) {
+      int first = pairs[2 * pair];
+      int second = pairs[2 * pair + 1] >>> 1;
+      int shorter = pairs[2 * pair + 1] & 1;
+      entries[rowStarts[first]++] = second << 1 | shorter;
+      entries[rowStarts[second]++] = first << 1 | shorter;
+    }
+    System.arraycopy(rowStarts, 0, rowStarts, 1, size);
+    rowStarts[0] = 0;
+
+    for (int slot = 0; slot < size; slot++) {
+      Arrays.sort(entries, rowStarts[slot], rowStarts[slot + 1]);
+    }
+  }
+
+  /**
+   * Matches the order isInRange passes points to the visibility check, which
+   * always looks from the satellite when one side is a device.
+   */
+  private static boolean isVisible(DeviceSatellite entity, DeviceSatellite other) {
+    if (entity instanceof Devices && other instanceof Satellite) {
+      return isCartesianVisible(other.getX(), other.getY(), entity.getX(), entity.getY());
+    }
+    return isCartesianVisible(entity.getX(), entity.getY(), other.getX(), other.getY());
+  }
+}
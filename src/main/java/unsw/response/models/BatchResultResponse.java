@@ -0,0 +1,37 @@
+package unsw.response.models;
+
+/**
+ * Represents what happened to one command of a batch. A command that failed
+ * has the exception it failed with, in the same form as /api/sendFile/ gives
+ * it, and every other command has no error.
+ */
+public final class BatchResultResponse {
+    private final boolean ok;
+    private final String error;
+
+    private BatchResultResponse(boolean ok, String error) {
+        this.ok = ok;
+        this.error = error;
+    }
+
+    public static BatchResultResponse succeeded() {
+        return new BatchResultResponse(true, null);
+    }
+
+    public static BatchResultResponse failed(Exception exception) {
+        return new BatchResultResponse(false, exception.getClass().getSimpleName() + ":" + exception.getMessage());
+    }
+
+    public final boolean isOk() {
+        return ok;
+    }
+
+    public final String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResultResponse [ok=" + ok + ", error=" + error + "]";
+    }
+}
@@ -0,0 +1,69 @@
+package unsw.response.models;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import unsw.utils.Angle;
+
+/**
+ * Represents how a device or satellite changed over a minute. Anything that
+ * didn't change is left out: the position is null if it didn't move, and the
+ * files and removed files are null if none were changed or removed.
+ */
+public final class EntityDeltaResponse {
+    private final String id;
+    private final Angle position;
+    private final Map<String, FileDeltaResponse> files;
+    private final List<String> removedFiles;
+
+    public EntityDeltaResponse(String id, Angle position, Map<String, FileDeltaResponse> files,
+            List<String> removedFiles) {
+        this.id = id;
+        this.position = position;
+        this.files = files;
+        this.removedFiles = removedFiles;
+    }
+
+    public final String getDeviceId() {
+        return id;
+    }
+
+    public final Angle getPosition() {
+        return position;
+    }
+
+    public final Map<String, FileDeltaResponse> getFiles() {
+        return files;
+    }
+
+    public final List<String> getRemovedFiles() {
+        return removedFiles;
+    }
+
+    /**
+     * Applies this delta to the entity as it was before the minute.
+     *
+     * @param previous the entity before the minute
+     * @return the entity after the minute
+     */
+    public final EntityInfoResponse applyTo(EntityInfoResponse previous) {
+        Map<String, FileInfoResponse> newFiles = new HashMap<>(previous.getFiles());
+        for (String filename : removedFiles == null ? new ArrayList<String>() : removedFiles) {
+            newFiles.remove(filename);
+        }
+        if (files != null) {
+            files.forEach((filename, delta) -> newFiles.put(filename, delta.applyTo(newFiles.get(filename))));
+        }
+
+        Angle newPosition = position == null ? previous.getPosition() : position;
+        return new EntityInfoResponse(id, newPosition, previous.getHeight(), previous.getType(), newFiles);
+    }
+
+    @Override
+    public String toString() {
+        return "EntityDeltaResponse [files=" + files + ", id=" + id + ", position=" + position + ", removedFiles="
+                + removedFiles + "]";
+    }
+}
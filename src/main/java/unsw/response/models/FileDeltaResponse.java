@@ -0,0 +1,92 @@
+package unsw.response.models;
+
+import java.util.Objects;
+
+/**
+ * Represents how a file changed over a minute. The file's data is the old data
+ * up to offset, followed by this delta's data, so a transfer that moved
+ * forward only sends the bytes it just transmitted. A new file, or one whose
+ * earlier data changed, has an offset of 0 and all of its data.
+ */
+public final class FileDeltaResponse {
+    private final String filename;
+
+    /**
+     * How much of the old data is kept.
+     */
+    private final int offset;
+
+    /**
+     * The data that comes after the kept part of the old data.
+     */
+    private final String data;
+
+    private final int fileSize;
+
+    private final boolean isFileComplete;
+
+    public FileDeltaResponse(String filename, int offset, String data, int fileSize, boolean isFileComplete) {
+        this.filename = filename;
+        this.offset = offset;
+        this.data = data;
+        this.fileSize = fileSize;
+        this.isFileComplete = isFileComplete;
+    }
+
+    public final String getFilename() {
+        return filename;
+    }
+
+    public final int getOffset() {
+        return offset;
+    }
+
+    public final String getData() {
+        return data;
+    }
+
+    public final int getFileSize() {
+        return fileSize;
+    }
+
+    public final boolean isFileComplete() {
+        return isFileComplete;
+    }
+
+    /**
+     * Applies this delta to the file as it was before the minute.
+     *
+     * @param previous the file before the minute, or null if it's new
+     * @return the file after the minute
+     */
+    public final FileInfoResponse applyTo(FileInfoResponse previous) {
+        String kept = previous == null ? "" : previous.getData().substring(0, offset);
+        return new FileInfoResponse(filename, kept + data, fileSize, isFileComplete);
+    }
+
+    @Override
+    public String toString() {
+        return "FileDeltaResponse [data=" + data + ", fileSize=" + fileSize + ", filename=" + filename
+                + ", isFileComplete=" + isFileComplete + ", offset=" + offset + "]";
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(data, fileSize, filename, isFileComplete, offset);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+
+        FileDeltaResponse other = (FileDeltaResponse) obj;
+        return Objects.equals(data, other.data) && fileSize == other.fileSize
+                && Objects.equals(filename, other.filename) && isFileComplete == other.isFileComplete
+                && offset == other.offset;
+    }
+}
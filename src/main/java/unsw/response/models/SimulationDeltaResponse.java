@@ -0,0 +1,46 @@
+package unsw.response.models;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents a run of simulated minutes as the state of every device and
+ * satellite before the first minute, followed by what changed in each minute.
+ * A minute only has the devices and satellites that changed in it.
+ */
+public final class SimulationDeltaResponse {
+    private final Map<String, EntityInfoResponse> initial;
+    private final List<Map<String, EntityDeltaResponse>> minutes;
+
+    public SimulationDeltaResponse(Map<String, EntityInfoResponse> initial,
+            List<Map<String, EntityDeltaResponse>> minutes) {
+        this.initial = initial;
+        this.minutes = minutes;
+    }
+
+    public final Map<String, EntityInfoResponse> getInitial() {
+        return initial;
+    }
+
+    public final List<Map<String, EntityDeltaResponse>> getMinutes() {
+        return minutes;
+    }
+
+    /**
+     * Rebuilds the full state of every device and satellite after each minute,
+     * which is what simulating without deltas responds with.
+     */
+    public final List<Map<String, EntityInfoResponse>> toSnapshots() {
+        List<Map<String, EntityInfoResponse>> snapshots = new ArrayList<>();
+        Map<String, EntityInfoResponse> state = initial;
+        for (Map<String, EntityDeltaResponse> minute : minutes) {
+            Map<String, EntityInfoResponse> next = new HashMap<>(state);
+            minute.forEach((id, delta) -> next.put(id, delta.applyTo(next.get(id))));
+            snapshots.add(next);
+            state = next;
+        }
+        return snapshots;
+    }
+}
@@ -0,0 +1,78 @@
+package unsw.response.models;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents how far along a simulation job is, along with the minutes it has
+ * simulated since the client last asked. Minutes are counted from 0, so the
+ * deltas are of minutes from, from + 1, and so on. The state before the first
+ * of the deltas is only included when asking from minute 0, or when the client
+ * fell so far behind that the minutes it asked for were replaced with it.
+ */
+public final class SimulationJobResponse {
+    private final String id;
+    private final String state;
+    private final int minutes;
+    private final int completedMinutes;
+    private final String error;
+    private final int from;
+    private final Map<String, EntityInfoResponse> initial;
+    private final List<Map<String, EntityDeltaResponse>> deltas;
+
+    public SimulationJobResponse(String id, String state, int minutes, int completedMinutes, String error, int from,
+            Map<String, EntityInfoResponse> initial, List<Map<String, EntityDeltaResponse>> deltas) {
+        this.id = id;
+        this.state = state;
+        this.minutes = minutes;
+        this.completedMinutes = completedMinutes;
+        this.error = error;
+        this.from = from;
+        this.initial = initial;
+        this.deltas = deltas;
+    }
+
+    public final String getId() {
+        return id;
+    }
+
+    /**
+     * One of QUEUED, RUNNING, DONE, CANCELLED or FAILED.
+     */
+    public final String getState() {
+        return state;
+    }
+
+    /**
+     * How many minutes the job was asked to simulate.
+     */
+    public final int getMinutes() {
+        return minutes;
+    }
+
+    public final int getCompletedMinutes() {
+        return completedMinutes;
+    }
+
+    /**
+     * Why the job failed, or null if it didn't.
+     */
+    public final String getError() {
+        return error;
+    }
+
+    /**
+     * The minute the first of the deltas is of.
+     */
+    public final int getFrom() {
+        return from;
+    }
+
+    public final Map<String, EntityInfoResponse> getInitial() {
+        return initial;
+    }
+
+    public final List<Map<String, EntityDeltaResponse>> getDeltas() {
+        return deltas;
+    }
+}
@@ -0,0 +1,28 @@
+package unsw.response.models;
+
+import java.util.Map;
+
+/**
+ * Represents what changed when a simulation moved forward, as it's streamed
+ * to clients. Only the devices and satellites that changed are included.
+ */
+public final class TickDeltaResponse {
+    private final int minutes;
+    private final Map<String, EntityDeltaResponse> entities;
+
+    public TickDeltaResponse(int minutes, Map<String, EntityDeltaResponse> entities) {
+        this.minutes = minutes;
+        this.entities = entities;
+    }
+
+    /**
+     * How many minutes the simulation moved forward by.
+     */
+    public final int getMinutes() {
+        return minutes;
+    }
+
+    public final Map<String, EntityDeltaResponse> getEntities() {
+        return entities;
+    }
+}
@@ -0,0 +1,165 @@
+package unsw.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of non negative values (usually durations in nanoseconds) that
+ * is cheap enough to record into on every tick from any number of threads.
+ *
+ * Values are put into buckets the same way HdrHistogram does: every power of
+ * two is split into a fixed number of equally sized sub buckets, so a bucket
+ * is found with a couple of bit operations and is never more than 1/32 wider
+ * than the values in it, which keeps percentiles within about 3% of the true
+ * value. Nothing is allocated or locked when recording.
+ */
+public final class Histogram {
+    // each power of two is split into 2^SUB_BUCKET_BITS sub buckets
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // values below this are counted exactly, one bucket each
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+    private static final int BUCKETS = LINEAR_LIMIT + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Records a value, clamping negative values to 0.
+     */
+    public void record(long value) {
+        long clamped = Math.max(0, value);
+        // counted before the bucket, so a reader that reads the buckets and
+        // then the count never sees more in a bucket than in total
+        count.increment();
+        sum.add(clamped);
+        counts.incrementAndGet(bucketOf(clamped));
+    }
+
+    /**
+     * The number of values recorded.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * The total of every value recorded.
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Counts the values recorded that are no more than the given bound. This is
+     * exact when the bound is one less than a power of two, which is what
+     * cumulative buckets for export should use.
+     */
+    public long getCountAtOrBelow(long bound) {
+        if (bound < 0) {
+            return 0;
+        }
+
+        long total = 0;
+        int last = bucketOf(bound);
+        for (int i = 0; i <= last; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Estimates the value that the given percentage of recorded values are no
+     * more than.
+     *
+     * @param percentile a percentage between 0 and 100
+     * @return the upper bound of the bucket the percentile falls in, or 0 if
+     *         nothing has been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return upperBoundOf(i);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Writes this histogram in the Prometheus text format, with a cumulative
+     * bucket for every bound in the given list. The HELP and TYPE lines aren't
+     * written, since they're shared by every histogram with the same name.
+     *
+     * @param out    where to write the histogram to
+     * @param name   the name of the metric
+     * @param labels the labels that tell this histogram apart, e.g. route="/"
+     * @param bounds the bucket bounds in recorded units, ideally each one less
+     *               than a power of two so the counts are exact
+     * @param unit   how many recorded units make up one exported unit, e.g. 1e9
+     *               to export nanoseconds as seconds
+     */
+    public void writePrometheus(StringBuilder out, String name, String labels, long[] bounds, double unit) {
+        for (long bound : bounds) {
+            out.append(name).append("_bucket{").append(labels).append(",le=\"").append(bound / unit).append("\"} ")
+                    .append(getCountAtOrBelow(bound)).append('\n');
+        }
+        // read the count last, so it's never less than a bucket read before it
+        long total = getCount();
+        out.append(name).append("_bucket{").append(labels).append(",le=\"+Inf\"} ").append(total).append('\n');
+        out.append(name).append("_sum{").append(labels).append("} ").append(getSum() / unit).append('\n');
+        out.append(name).append("_count{").append(labels).append("} ").append(total).append('\n');
+    }
+
+    /**
+     * Makes bucket bounds for writePrometheus that are each one less than a
+     * power of two, so the exported counts are exact.
+     *
+     * @param smallestPower the power of two of the first bound
+     * @param largestPower  the power of two of the last bound
+     * @param step          how many powers of two apart the bounds are
+     * @return the bounds, smallest first
+     */
+    public static long[] powerOfTwoBounds(int smallestPower, int largestPower, int step) {
+        long[] bounds = new long[(largestPower - smallestPower) / step + 1];
+        for (int i = 0; i < bounds.length; i++) {
+            bounds[i] = (1L << (smallestPower + i * step)) - 1;
+        }
+        return bounds;
+    }
+
+    private static int bucketOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_LIMIT + (magnitude - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int magnitude = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+        long subBucket = (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+        long width = 1L << (magnitude - SUB_BUCKET_BITS);
+        if (magnitude == 62 && subBucket == SUB_BUCKETS - 1) {
+            return Long.MAX_VALUE;
+        }
+        return (1L << magnitude) + (subBucket + 1) * width - 1;
+    }
+}
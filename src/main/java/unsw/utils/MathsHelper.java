@@ -19,12 +19,29 @@ public final class MathsHelper {
      */
     public static double getDistance(double satelliteHeight, Angle satelliteAngle, double otherHeight,
             Angle otherAngle) {
+        return getDistance(satelliteHeight, satelliteAngle.toRadians(), otherHeight, otherAngle.toRadians());
+    }
+
+    /**
+     * Determine the distance between a satellite and another satellite, with
+     * both angles given in radians.
+     */
+    public static double getDistance(double satelliteHeight, double satelliteRadians, double otherHeight,
+            double otherRadians) {
         // convert to euclidean
-        double satX = Math.cos(satelliteAngle.toRadians()) * satelliteHeight;
-        double satY = Math.sin(satelliteAngle.toRadians()) * satelliteHeight;
-        double otherX = Math.cos(otherAngle.toRadians()) * otherHeight;
+        double satX = Math.cos(satelliteRadians) * satelliteHeight;
+        double satY = Math.sin(satelliteRadians) * satelliteHeight;
+        double otherX = Math.cos(otherRadians) * otherHeight;
+
+        double otherY = Math.sin(otherRadians) * otherHeight;
+        return getCartesianDistance(satX, satY, otherX, otherY);
+    }
 
-        double otherY = Math.sin(otherAngle.toRadians()) * otherHeight;
+    /**
+     * Determine the distance between two points that have already been
+     * converted to euclidean coordinates.
+     */
+    public static double getCartesianDistance(double satX, double satY, double otherX, double otherY) {
         // find length of line between euclidean points
         double length = Math.sqrt((satX - otherX) * (satX - otherX) + (satY - otherY) * (satY - otherY));
         return length;
@@ -34,14 +51,30 @@ public final class MathsHelper {
      * Determine the distance between a satellite and a device.
      */
     public static double getDistance(double satelliteHeight, Angle satelliteAngle, Angle deviceAngle) {
-        return getDistance(satelliteHeight, satelliteAngle, RADIUS_OF_JUPITER, deviceAngle);
+        return getDistance(satelliteHeight, satelliteAngle.toRadians(), deviceAngle.toRadians());
+    }
+
+    /**
+     * Determine the distance between a satellite and a device, with both angles
+     * given in radians.
+     */
+    public static double getDistance(double satelliteHeight, double satelliteRadians, double deviceRadians) {
+        return getDistance(satelliteHeight, satelliteRadians, RADIUS_OF_JUPITER, deviceRadians);
     }
 
     /**
      * Determine if a satellite is visible to a device.
      */
     public static boolean isVisible(double satelliteHeight, Angle satelliteAngle, Angle deviceAngle) {
-        return isVisible(satelliteHeight, satelliteAngle, RADIUS_OF_JUPITER, deviceAngle);
+        return isVisible(satelliteHeight, satelliteAngle.toRadians(), deviceAngle.toRadians());
+    }
+
+    /**
+     * Determine if a satellite is visible to a device, with both angles given in
+     * radians.
+     */
+    public static boolean isVisible(double satelliteHeight, double satelliteRadians, double deviceRadians) {
+        return isVisible(satelliteHeight, satelliteRadians, RADIUS_OF_JUPITER, deviceRadians);
     }
 
     /**
@@ -49,11 +82,28 @@ public final class MathsHelper {
      */
     public static boolean isVisible(double satelliteHeight, Angle satelliteAngle, double otherHeight,
             Angle otherAngle) {
+        return isVisible(satelliteHeight, satelliteAngle.toRadians(), otherHeight, otherAngle.toRadians());
+    }
+
+    /**
+     * Determine if a satellite is visible to another satellite, with both angles
+     * given in radians.
+     */
+    public static boolean isVisible(double satelliteHeight, double satelliteRadians, double otherHeight,
+            double otherRadians) {
         // convert to euclidean
-        double satX = Math.cos(satelliteAngle.toRadians()) * satelliteHeight;
-        double satY = Math.sin(satelliteAngle.toRadians()) * satelliteHeight;
-        double otherX = Math.cos(otherAngle.toRadians()) * otherHeight;
+        double satX = Math.cos(satelliteRadians) * satelliteHeight;
+        double satY = Math.sin(satelliteRadians) * satelliteHeight;
+        double otherX = Math.cos(otherRadians) * otherHeight;
+        double otherY = Math.sin(otherRadians) * otherHeight;
+        return isCartesianVisible(satX, satY, otherX, otherY);
+    }
 
+    /**
+     * Determine if a point is visible from another point when both have already
+     * been converted to euclidean coordinates.
+     */
+    public static boolean isCartesianVisible(double satX, double satY, double otherX, double otherY) {
         // now is the *fun* part since we have to determine visibility to other
         // satellites this is much more complicated
         // (if it's just to things that always lie on the circle it's just dist <
@@ -93,7 +143,6 @@ public final class MathsHelper {
          *
          */
 
-        double otherY = Math.sin(otherAngle.toRadians()) * otherHeight;
         double ax = satX;
         double ay = satY;
         double bx = otherX;
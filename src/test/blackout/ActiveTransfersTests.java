@@ -0,0 +1,114 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import unsw.blackout.ActiveTransfers;
+import unsw.blackout.DeviceSatellite;
+import unsw.blackout.Files;
+import unsw.blackout.HandheldDevice;
+import unsw.blackout.LaptopDevice;
+import unsw.blackout.RelaySatellite;
+import unsw.blackout.StandardSatellite;
+import unsw.utils.Angle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static unsw.utils.MathsHelper.RADIUS_OF_JUPITER;
+
+import java.util.List;
+
+@TestInstance(value = Lifecycle.PER_CLASS)
+public class ActiveTransfersTests {
+  private final DeviceSatellite satellite1 = new StandardSatellite("Satellite1", "StandardSatellite",
+      1000 + RADIUS_OF_JUPITER, Angle.fromDegrees(320));
+  private final DeviceSatellite deviceA = new HandheldDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(320));
+  private final DeviceSatellite satellite2 = new RelaySatellite("Satellite2", "RelaySatellite",
+      2000 + RADIUS_OF_JUPITER, Angle.fromDegrees(150));
+  private final DeviceSatellite deviceB = new LaptopDevice("DeviceB", "LaptopDevice", Angle.fromDegrees(10));
+
+  private ActiveTransfers createTransfers() {
+    ActiveTransfers transfers = new ActiveTransfers();
+    // created in a mix of devices and satellites
+    List.of(satellite1, deviceA, satellite2, deviceB).forEach(transfers::register);
+    return transfers;
+  }
+
+  private static Files transfer(String filename, DeviceSatellite sender, DeviceSatellite reciever) {
+    return new Files(filename, 0, "Hello there", sender, reciever);
+  }
+
+  @Test
+  public void testDevicesComeBeforeSatellitesInCreationOrder() {
+    ActiveTransfers transfers = createTransfers();
+    Files toSatellite2 = transfer("File1", deviceA, satellite2);
+    Files toDeviceB = transfer("File2", satellite1, deviceB);
+    Files toSatellite1 = transfer("File3", deviceA, satellite1);
+    Files toDeviceA = transfer("File4", satellite1, deviceA);
+    Files secondToDeviceB = transfer("File5", satellite2, deviceB);
+    List.of(toSatellite2, toDeviceB, toSatellite1, toDeviceA, secondToDeviceB).forEach(transfers::add);
+
+    assertEquals(List.of(toDeviceA, toDeviceB, secondToDeviceB, toSatellite1, toSatellite2),
+        transfers.getTransfers());
+  }
+
+  @Test
+  public void testTransfersOfOneRecieverStayInTheOrderTheyStarted() {
+    ActiveTransfers transfers = createTransfers();
+    Files first = transfer("File1", deviceA, satellite1);
+    Files second = transfer("File2", deviceB, satellite1);
+    Files third = transfer("File3", deviceA, satellite1);
+    List.of(first, second, third).forEach(transfers::add);
+
+    transfers.remove(second);
+    Files fourth = transfer("File4", deviceB, satellite1);
+    transfers.add(fourth);
+    assertEquals(List.of(first, third, fourth), transfers.getTransfers());
+  }
+
+  @Test
+  public void testTransfersCanBeRemovedWhileGoingThroughThem() {
+    ActiveTransfers transfers = createTransfers();
+    List.of(transfer("File1", deviceA, satellite1), transfer("File2", satellite1, deviceA),
+        transfer("File3", deviceA, satellite2)).forEach(transfers::add);
+    assertFalse(transfers.isEmpty());
+
+    for (Files transfer : transfers.getTransfers()) {
+      transfers.remove(transfer);
+    }
+    assertTrue(transfers.isEmpty());
+    assertTrue(transfers.getTransfers().isEmpty());
+  }
+
+  @Test
+  public void testUnregisteringARecieverDropsItsTransfers() {
+    ActiveTransfers transfers = createTransfers();
+    Files toSatellite1 = transfer("File1", deviceA, satellite1);
+    Files toDeviceA = transfer("File2", satellite1, deviceA);
+    Files secondToDeviceA = transfer("File3", satellite2, deviceA);
+    List.of(toSatellite1, toDeviceA, secondToDeviceA).forEach(transfers::add);
+
+    transfers.unregister(deviceA);
+    assertEquals(List.of(toSatellite1), transfers.getTransfers());
+    transfers.remove(toSatellite1);
+    assertTrue(transfers.isEmpty());
+  }
+
+  @Test
+  public void testTransfersOfUnregisteredRecieversAreIgnored() {
+    ActiveTransfers transfers = createTransfers();
+    Files toDeviceA = transfer("File1", satellite1, deviceA);
+    transfers.add(toDeviceA);
+    transfers.unregister(deviceA);
+
+    // neither throws, and nothing is left behind
+    transfers.remove(toDeviceA);
+    transfers.add(transfer("File2", satellite2, deviceA));
+    transfers.add(transfer("File3", deviceB, new StandardSatellite("Satellite3", "StandardSatellite",
+        1000 + RADIUS_OF_JUPITER, Angle.fromDegrees(10))));
+    assertTrue(transfers.isEmpty());
+    assertTrue(transfers.getTransfers().isEmpty());
+  }
+}
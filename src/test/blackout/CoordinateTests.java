@@ -0,0 +1,71 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import unsw.blackout.HandheldDevice;
+import unsw.blackout.StandardSatellite;
+import unsw.utils.Angle;
+import unsw.utils.MathsHelper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static unsw.utils.MathsHelper.RADIUS_OF_JUPITER;
+
+@TestInstance(value = Lifecycle.PER_CLASS)
+public class CoordinateTests {
+  private static final double DELTA = 1e-6;
+
+  @Test
+  public void testCoordinatesFollowPositionAndHeight() {
+    StandardSatellite satellite = new StandardSatellite("Satellite1", "StandardSatellite", 1000 + RADIUS_OF_JUPITER,
+        Angle.fromDegrees(90));
+    assertEquals(0, satellite.getX(), DELTA);
+    assertEquals(1000 + RADIUS_OF_JUPITER, satellite.getY(), DELTA);
+
+    satellite.setPosition(Angle.fromDegrees(180));
+    assertEquals(-(1000 + RADIUS_OF_JUPITER), satellite.getX(), DELTA);
+    assertEquals(0, satellite.getY(), DELTA);
+
+    satellite.setHeight(2000 + RADIUS_OF_JUPITER);
+    assertEquals(-(2000 + RADIUS_OF_JUPITER), satellite.getX(), DELTA);
+    assertEquals(0, satellite.getY(), DELTA);
+
+    satellite.setPositionRadians(Math.PI / 4);
+    assertEquals(Math.sqrt(0.5) * (2000 + RADIUS_OF_JUPITER), satellite.getX(), DELTA);
+    assertEquals(Math.sqrt(0.5) * (2000 + RADIUS_OF_JUPITER), satellite.getY(), DELTA);
+  }
+
+  @Test
+  public void testCachedCoordinatesAgreeWithPolarHelpers() {
+    HandheldDevice device = new HandheldDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(30));
+    StandardSatellite satellite = new StandardSatellite("Satellite1", "StandardSatellite", 1000 + RADIUS_OF_JUPITER,
+        Angle.fromDegrees(0));
+    for (int degrees = 0; degrees < 360; degrees += 7) {
+      satellite.setPosition(Angle.fromDegrees(degrees));
+      satellite.setHeight(RADIUS_OF_JUPITER + 500 + 300 * (degrees % 5));
+
+      assertEquals(MathsHelper.getDistance(satellite.getHeight(), Angle.fromDegrees(degrees), Angle.fromDegrees(30)),
+          MathsHelper.getCartesianDistance(satellite.getX(), satellite.getY(), device.getX(), device.getY()), DELTA);
+      assertEquals(MathsHelper.isVisible(satellite.getHeight(), Angle.fromDegrees(degrees), Angle.fromDegrees(30)),
+          MathsHelper.isCartesianVisible(satellite.getX(), satellite.getY(), device.getX(), device.getY()));
+    }
+  }
+
+  @Test
+  public void testRangeChecksSeeMovesStraightAway() {
+    HandheldDevice device = new HandheldDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(30));
+    StandardSatellite satellite = new StandardSatellite("Satellite1", "StandardSatellite", 1000 + RADIUS_OF_JUPITER,
+        Angle.fromDegrees(30));
+    assertTrue(device.isInRange(satellite));
+
+    satellite.setPosition(Angle.fromDegrees(210));
+    assertFalse(device.isInRange(satellite));
+
+    satellite.setPosition(Angle.fromDegrees(30));
+    satellite.setHeight(200000 + RADIUS_OF_JUPITER);
+    assertFalse(device.isInRange(satellite));
+  }
+}
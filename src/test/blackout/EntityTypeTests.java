@@ -0,0 +1,75 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import unsw.blackout.EntityType;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static unsw.blackout.EntityType.DESKTOP_DEVICE;
+import static unsw.blackout.EntityType.HANDHELD_DEVICE;
+import static unsw.blackout.EntityType.LAPTOP_DEVICE;
+import static unsw.blackout.EntityType.RELAY_SATELLITE;
+import static unsw.blackout.EntityType.STANDARD_SATELLITE;
+import static unsw.blackout.EntityType.TELEPORTING_SATELLITE;
+import static unsw.blackout.EntityType.UNKNOWN_DEVICE;
+import static unsw.blackout.EntityType.UNKNOWN_SATELLITE;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+@TestInstance(value = Lifecycle.PER_CLASS)
+public class EntityTypeTests {
+  @Test
+  public void testTypeNamesAndRanges() {
+    Map<EntityType, Integer> ranges = Map.of(HANDHELD_DEVICE, 50000, LAPTOP_DEVICE, 100000, DESKTOP_DEVICE, 200000,
+        UNKNOWN_DEVICE, 50000, STANDARD_SATELLITE, 150000, TELEPORTING_SATELLITE, 200000, RELAY_SATELLITE, 300000,
+        UNKNOWN_SATELLITE, 150000);
+    for (EntityType type : EntityType.values()) {
+      assertEquals((int) ranges.get(type), type.getRange());
+    }
+
+    assertEquals(HANDHELD_DEVICE, EntityType.fromDeviceType("HandheldDevice"));
+    assertEquals(LAPTOP_DEVICE, EntityType.fromDeviceType("LaptopDevice"));
+    assertEquals(DESKTOP_DEVICE, EntityType.fromDeviceType("DesktopDevice"));
+    assertEquals(UNKNOWN_DEVICE, EntityType.fromDeviceType("StandardSatellite"));
+    assertEquals(STANDARD_SATELLITE, EntityType.fromSatelliteType("StandardSatellite"));
+    assertEquals(TELEPORTING_SATELLITE, EntityType.fromSatelliteType("TeleportingSatellite"));
+    assertEquals(RELAY_SATELLITE, EntityType.fromSatelliteType("RelaySatellite"));
+    assertEquals(UNKNOWN_SATELLITE, EntityType.fromSatelliteType("HandheldDevice"));
+
+    for (EntityType type : EntityType.values()) {
+      if (type.getTypeName() != null) {
+        EntityType parsed = type.name().endsWith("DEVICE") ? EntityType.fromDeviceType(type.getTypeName())
+            : EntityType.fromSatelliteType(type.getTypeName());
+        assertEquals(type, parsed);
+      }
+    }
+  }
+
+  @Test
+  public void testWhoCanCommunicateWithWhom() {
+    Set<EntityType> satellites = EnumSet.of(STANDARD_SATELLITE, TELEPORTING_SATELLITE, RELAY_SATELLITE);
+    Set<EntityType> withEverything = EnumSet.of(HANDHELD_DEVICE, LAPTOP_DEVICE, DESKTOP_DEVICE, STANDARD_SATELLITE,
+        TELEPORTING_SATELLITE, RELAY_SATELLITE);
+    Map<EntityType, Set<EntityType>> supported = Map.of(
+        HANDHELD_DEVICE, satellites,
+        LAPTOP_DEVICE, satellites,
+        DESKTOP_DEVICE, EnumSet.of(TELEPORTING_SATELLITE, RELAY_SATELLITE),
+        UNKNOWN_DEVICE, satellites,
+        STANDARD_SATELLITE, EnumSet.of(HANDHELD_DEVICE, LAPTOP_DEVICE, STANDARD_SATELLITE, TELEPORTING_SATELLITE,
+            RELAY_SATELLITE),
+        TELEPORTING_SATELLITE, withEverything,
+        RELAY_SATELLITE, withEverything,
+        UNKNOWN_SATELLITE, withEverything);
+
+    for (EntityType type : EntityType.values()) {
+      for (EntityType other : EntityType.values()) {
+        assertEquals(supported.get(type).contains(other), type.canCommunicateWith(other),
+            type + " talking to " + other);
+      }
+    }
+  }
+}
@@ -0,0 +1,90 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import unsw.FrameDictionary;
+import unsw.FrameReader;
+import unsw.FrameWriter;
+import unsw.blackout.BlackoutController;
+import unsw.response.models.EntityInfoResponse;
+import unsw.response.models.SimulationDeltaResponse;
+import unsw.utils.Angle;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static unsw.utils.MathsHelper.RADIUS_OF_JUPITER;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+@TestInstance(value = Lifecycle.PER_CLASS)
+public class FrameTests {
+  private BlackoutController createScenario() {
+    BlackoutController controller = new BlackoutController();
+    controller.createSatellite("Satellite1", "StandardSatellite", 1000 + RADIUS_OF_JUPITER, Angle.fromDegrees(320));
+    controller.createSatellite("Teleport1", "TeleportingSatellite", 2000 + RADIUS_OF_JUPITER, Angle.fromDegrees(100));
+    controller.createDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(320));
+    controller.createDevice("DeviceB", "LaptopDevice", Angle.fromDegrees(100));
+    controller.addFileToDevice("DeviceA", "FileA", "Hey there");
+    controller.addFileToDevice("DeviceB", "FileB", "the ttt teleporting file");
+    assertDoesNotThrow(() -> controller.sendFile("FileA", "DeviceA", "Satellite1"));
+    assertDoesNotThrow(() -> controller.sendFile("FileB", "DeviceB", "Teleport1"));
+    return controller;
+  }
+
+  private static Map<String, EntityInfoResponse> snapshotOf(BlackoutController controller) {
+    Map<String, EntityInfoResponse> snapshot = new HashMap<>();
+    controller.listSatelliteIds().forEach(id -> snapshot.put(id, controller.getInfo(id)));
+    controller.listDeviceIds().forEach(id -> snapshot.put(id, controller.getInfo(id)));
+    return snapshot;
+  }
+
+  private static byte[] bytesOf(FrameWriter frame) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    frame.writeTo(out);
+    return out.toByteArray();
+  }
+
+  @Test
+  public void testSimulationFramesRebuildEveryMinute() throws IOException {
+    BlackoutController controller = createScenario();
+    SimulationDeltaResponse simulation = controller.simulateWithDeltas(60);
+
+    FrameWriter frame = new FrameWriter(new FrameDictionary(), null);
+    frame.writeSimulation(simulation);
+    SimulationDeltaResponse read = new FrameReader().readSimulation(bytesOf(frame));
+
+    assertEquals(simulation.getInitial(), read.getInitial());
+    assertEquals(simulation.toSnapshots(), read.toSnapshots());
+  }
+
+  @Test
+  public void testDictionaryIsOnlySentOnce() throws IOException {
+    BlackoutController controller = createScenario();
+    FrameDictionary dictionary = new FrameDictionary();
+    FrameReader reader = new FrameReader();
+
+    FrameWriter first = new FrameWriter(dictionary, reader.getDictionaryHeader());
+    first.writeEntities(snapshotOf(controller).values());
+    byte[] firstBytes = bytesOf(first);
+    assertEquals(snapshotOf(controller), reader.readEntities(firstBytes));
+
+    controller.simulate();
+    FrameWriter second = new FrameWriter(dictionary, reader.getDictionaryHeader());
+    second.writeEntities(snapshotOf(controller).values());
+    byte[] secondBytes = bytesOf(second);
+    assertTrue(secondBytes.length < firstBytes.length);
+    assertEquals(snapshotOf(controller), reader.readEntities(secondBytes));
+
+    // a client with another dictionary gets every entry again
+    FrameReader otherReader = new FrameReader();
+    FrameWriter third = new FrameWriter(dictionary, "1:" + dictionary.size());
+    third.writeEntities(snapshotOf(controller).values());
+    assertEquals(snapshotOf(controller), otherReader.readEntities(bytesOf(third)));
+  }
+}
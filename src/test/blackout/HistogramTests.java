@@ -0,0 +1,125 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import unsw.utils.Histogram;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+@TestInstance(value = Lifecycle.PER_CLASS)
+public class HistogramTests {
+  @Test
+  public void testSmallValuesAreCountedExactly() {
+    Histogram histogram = new Histogram();
+    for (long value = 0; value < 8; value++) {
+      histogram.record(value);
+    }
+    // negative values count as 0
+    histogram.record(-5);
+
+    assertEquals(9, histogram.getCount());
+    assertEquals(28, histogram.getSum());
+    assertEquals(0, histogram.getCountAtOrBelow(-1));
+    assertEquals(2, histogram.getCountAtOrBelow(0));
+    assertEquals(5, histogram.getCountAtOrBelow(3));
+    assertEquals(0, histogram.getValueAtPercentile(10));
+    assertEquals(3, histogram.getValueAtPercentile(50));
+    assertEquals(7, histogram.getValueAtPercentile(100));
+  }
+
+  @Test
+  public void testCountsAreExactAtBoundsOneBelowAPowerOfTwo() {
+    Histogram histogram = new Histogram();
+    Random random = new Random(1);
+    long[] values = new long[10000];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = (long) Math.exp(random.nextDouble() * 40);
+      histogram.record(values[i]);
+    }
+
+    for (long bound : Histogram.powerOfTwoBounds(0, 60, 1)) {
+      long expected = Arrays.stream(values).filter(value -> value <= bound).count();
+      assertEquals(expected, histogram.getCountAtOrBelow(bound), "values up to " + bound);
+    }
+  }
+
+  @Test
+  public void testPercentilesAreWithinAThirtySecondOfTheTrueValue() {
+    Histogram histogram = new Histogram();
+    Random random = new Random(2);
+    List<Long> values = new ArrayList<>();
+    for (int i = 0; i < 10000; i++) {
+      long value = (long) Math.exp(random.nextDouble() * 30);
+      values.add(value);
+      histogram.record(value);
+    }
+    values.sort(null);
+
+    for (double percentile : new double[] {1, 25, 50, 90, 99, 99.9, 100}) {
+      long actual = values.get((int) Math.ceil(values.size() * percentile / 100) - 1);
+      long estimate = histogram.getValueAtPercentile(percentile);
+      assertTrue(estimate >= actual, percentile + "th percentile " + estimate + " is below " + actual);
+      assertTrue(estimate <= actual + actual / 32,
+          percentile + "th percentile " + estimate + " is far above " + actual);
+    }
+  }
+
+  @Test
+  public void testEmptyAndHugeValues() {
+    Histogram histogram = new Histogram();
+    assertEquals(0, histogram.getValueAtPercentile(50));
+
+    histogram.record(Long.MAX_VALUE);
+    assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(50));
+    assertEquals(0, histogram.getCountAtOrBelow(Long.MAX_VALUE / 2));
+    assertEquals(1, histogram.getCountAtOrBelow(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void testPrometheusBucketsAreCumulative() {
+    Histogram histogram = new Histogram();
+    List.of(0L, 1L, 2L, 3L, 100L).forEach(histogram::record);
+    long[] bounds = Histogram.powerOfTwoBounds(0, 4, 2);
+    assertArrayEquals(new long[] {0, 3, 15}, bounds);
+
+    StringBuilder out = new StringBuilder();
+    histogram.writePrometheus(out, "test", "route=\"/\"", bounds, 1);
+    assertEquals(String.join("\n",
+        "test_bucket{route=\"/\",le=\"0.0\"} 1",
+        "test_bucket{route=\"/\",le=\"3.0\"} 4",
+        "test_bucket{route=\"/\",le=\"15.0\"} 4",
+        "test_bucket{route=\"/\",le=\"+Inf\"} 5",
+        "test_sum{route=\"/\"} 106.0",
+        "test_count{route=\"/\"} 5", ""), out.toString());
+  }
+
+  @Test
+  public void testRecordingFromManyThreads() throws InterruptedException {
+    Histogram histogram = new Histogram();
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      threads.add(new Thread(() -> {
+        for (long value = 0; value < 10000; value++) {
+          histogram.record(value);
+        }
+      }));
+    }
+    threads.forEach(Thread::start);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(40000, histogram.getCount());
+    assertEquals(4 * (9999L * 10000 / 2), histogram.getSum());
+    assertEquals(40000, histogram.getCountAtOrBelow(16383));
+  }
+}
@@ -0,0 +1,129 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import spark.Request;
+import unsw.HttpMetrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@TestInstance(value = Lifecycle.PER_CLASS)
+public class HttpMetricsTests {
+  /**
+   * Just enough of a request for the metrics to find its route and keep their
+   * attributes on it.
+   */
+  private static final class FakeRequest extends Request {
+    private final String method;
+    private final String path;
+    private final Map<String, Object> attributes = new HashMap<>();
+
+    FakeRequest(String method, String path) {
+      this.method = method;
+      this.path = path;
+    }
+
+    @Override
+    public String requestMethod() {
+      return method;
+    }
+
+    @Override
+    public String pathInfo() {
+      return path;
+    }
+
+    @Override
+    public void attribute(String attribute, Object value) {
+      attributes.put(attribute, value);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T attribute(String attribute) {
+      return (T) attributes.get(attribute);
+    }
+  }
+
+  private static void handle(HttpMetrics metrics, String method, String path) {
+    Request request = new FakeRequest(method, path);
+    metrics.requestStarted(request);
+    metrics.recordLockWait(request, 1000);
+    metrics.recordHandler(request, 2000);
+    metrics.requestFinished(request);
+  }
+
+  @Test
+  public void testRequestsAreTimedByRoute() {
+    HttpMetrics metrics = new HttpMetrics();
+    metrics.registerRoute("GET", "/api/device/");
+    metrics.registerRoute("POST", "/api/device/");
+    handle(metrics, "GET", "/api/device/");
+    handle(metrics, "GET", "/api/device/");
+    handle(metrics, "POST", "/api/device/");
+    handle(metrics, "GET", "/index.html");
+
+    Map<String, HttpMetrics.RouteMetrics> routes = metrics.getRoutes();
+    assertEquals(3, routes.size());
+    assertEquals(2, routes.get("GET /api/device/").getLatency().getCount());
+    assertEquals(2000, routes.get("GET /api/device/").getLockWait().getSum());
+    assertEquals(4000, routes.get("GET /api/device/").getHandler().getSum());
+    assertEquals(1, routes.get("POST /api/device/").getLatency().getCount());
+    // paths that aren't registered routes are all counted together
+    assertEquals(1, routes.get("other").getLatency().getCount());
+  }
+
+  @Test
+  public void testInFlightRequestsAreCounted() {
+    HttpMetrics metrics = new HttpMetrics();
+    metrics.registerRoute("GET", "/api/simulate/");
+    Request first = new FakeRequest("GET", "/api/simulate/");
+    Request second = new FakeRequest("GET", "/api/simulate/");
+    metrics.requestStarted(first);
+    metrics.requestStarted(second);
+    assertEquals(2, metrics.getRoutes().get("GET /api/simulate/").getInFlight());
+
+    metrics.requestFinished(first);
+    assertEquals(1, metrics.getRoutes().get("GET /api/simulate/").getInFlight());
+    // a request the before filter never saw isn't counted at all
+    metrics.requestFinished(new FakeRequest("GET", "/api/simulate/"));
+    assertEquals(1, metrics.getRoutes().get("GET /api/simulate/").getInFlight());
+  }
+
+  @Test
+  public void testOnlyRegisteredRoutesAreTrackedSeparately() {
+    HttpMetrics metrics = new HttpMetrics();
+    metrics.registerRoute("GET", "/api/device/all/");
+    for (int i = 0; i < 1000; i++) {
+      handle(metrics, "GET", "/api/" + i);
+    }
+    handle(metrics, "GET", "/api/device/all/");
+    // the same path with another method isn't the registered route
+    handle(metrics, "POST", "/api/device/all/");
+
+    Map<String, HttpMetrics.RouteMetrics> routes = metrics.getRoutes();
+    assertEquals(2, routes.size());
+    assertEquals(1, routes.get("GET /api/device/all/").getLatency().getCount());
+    assertEquals(1001, routes.get("other").getLatency().getCount());
+  }
+
+  @Test
+  public void testExportQuotesRouteLabels() {
+    HttpMetrics metrics = new HttpMetrics();
+    metrics.registerRoute("GET", "/api/\"quoted\"\\");
+    handle(metrics, "GET", "/api/\"quoted\"\\");
+    String exported = metrics.toPrometheus();
+
+    assertTrue(exported.contains("blackout_http_requests_in_flight{route=\"GET /api/\\\"quoted\\\"\\\\\"} 0\n"),
+        exported);
+    assertTrue(exported.contains("blackout_http_lock_wait_seconds_count{route=\"GET /api/\\\"quoted\\\"\\\\\"} 1\n"),
+        exported);
+    assertTrue(exported.contains("timing=\"handler\",quantile=\"0.5\"} "), exported);
+  }
+}
@@ -0,0 +1,143 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import unsw.blackout.RelaySatellite;
+import unsw.blackout.Satellite;
+import unsw.blackout.StandardSatellite;
+import unsw.blackout.TeleportingSatellite;
+import unsw.utils.Angle;
+import unsw.utils.MathsHelper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static unsw.utils.MathsHelper.RADIUS_OF_JUPITER;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+@TestInstance(value = Lifecycle.PER_CLASS)
+public class MotionTests {
+  private static final double DELTA = 1e-9;
+  private static final int MINUTES = 2000;
+  private static final List<Double> HEIGHTS = List.of(RADIUS_OF_JUPITER + 1000, RADIUS_OF_JUPITER + 35000,
+      RADIUS_OF_JUPITER + 90000);
+  private static final List<Double> STARTS = List.of(0.0, 100.0, 150.0, 185.0, 200.0, 350.0, 359.9);
+
+  /**
+   * Where a satellite is after one minute, worked out with angles the way
+   * every satellite used to move.
+   */
+  private static final class Reference {
+    private Angle position;
+    private int direction;
+
+    Reference(Angle position, int direction) {
+      this.position = position;
+      this.direction = direction;
+    }
+  }
+
+  private static void moveStandard(Reference reference, double angularVelocity) {
+    reference.position = Angle.fromDegrees(reference.position.toDegrees() - angularVelocity);
+  }
+
+  private static void moveRelay(Reference reference, double angularVelocity) {
+    if (reference.position.compareTo(Angle.fromDegrees(190)) > 0
+        && reference.position.compareTo(Angle.fromDegrees(345)) < 0) {
+      reference.direction = MathsHelper.CLOCKWISE;
+    } else if (reference.position.compareTo(Angle.fromDegrees(140)) < 0
+        || reference.position.compareTo(Angle.fromDegrees(345)) >= 0) {
+      reference.direction = MathsHelper.ANTI_CLOCKWISE;
+    }
+    if (reference.direction == MathsHelper.CLOCKWISE) {
+      reference.position = reference.position.subtract(Angle.fromDegrees(angularVelocity));
+    } else {
+      reference.position = reference.position.add(Angle.fromDegrees(angularVelocity));
+    }
+  }
+
+  private static void moveTeleporting(Reference reference, double angularVelocity) {
+    if (reference.direction == MathsHelper.ANTI_CLOCKWISE) {
+      reference.position = reference.position.add(Angle.fromDegrees(angularVelocity));
+      if (reference.position.compareTo(Angle.fromDegrees(360)) > 0) {
+        reference.position = reference.position.subtract(Angle.fromDegrees(360));
+      }
+      if (reference.position.compareTo(Angle.fromDegrees(180)) > 0) {
+        reference.position = Angle.fromDegrees(0);
+        reference.direction = MathsHelper.CLOCKWISE;
+      }
+    } else {
+      reference.position = reference.position.subtract(Angle.fromDegrees(angularVelocity));
+      if (reference.position.compareTo(Angle.fromDegrees(0)) < 0) {
+        reference.position = reference.position.add(Angle.fromDegrees(360));
+      }
+      if (reference.position.compareTo(Angle.fromDegrees(180)) < 0) {
+        reference.position = Angle.fromDegrees(0);
+        reference.direction = MathsHelper.ANTI_CLOCKWISE;
+      }
+    }
+  }
+
+  private static void assertMovesLikeReference(BiFunction<Double, Angle, Satellite> create, int direction,
+      BiConsumer<Reference, Double> move) {
+    for (double height : HEIGHTS) {
+      for (double start : STARTS) {
+        Satellite satellite = create.apply(height, Angle.fromDegrees(start));
+        Reference reference = new Reference(Angle.fromDegrees(start), direction);
+        for (int minute = 1; minute <= MINUTES; minute++) {
+          satellite.moveByOneMinute();
+          move.accept(reference, satellite.getAngularVelocity());
+          assertEquals(reference.position.toRadians(), satellite.getPositionRadians(), DELTA,
+              satellite.getType() + " from " + start + " at minute " + minute);
+        }
+      }
+    }
+  }
+
+  private static void assertAdvanceMatchesSteps(BiFunction<Double, Angle, Satellite> create) {
+    for (double height : HEIGHTS) {
+      for (double start : STARTS) {
+        Satellite stepped = create.apply(height, Angle.fromDegrees(start));
+        Satellite advanced = create.apply(height, Angle.fromDegrees(start));
+        for (int minutes : List.of(1, 7, 150, 1999)) {
+          for (int minute = 0; minute < minutes; minute++) {
+            stepped.moveByOneMinute();
+          }
+          advanced.advance(minutes);
+          assertEquals(stepped.getPositionRadians(), advanced.getPositionRadians(), DELTA,
+              stepped.getType() + " from " + start + " after " + minutes + " more minutes");
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testStandardSatellitesMoveLikeBefore() {
+    assertMovesLikeReference((height, position) -> new StandardSatellite("Satellite1", "StandardSatellite", height,
+        position), MathsHelper.CLOCKWISE, MotionTests::moveStandard);
+  }
+
+  @Test
+  public void testRelaySatellitesMoveLikeBefore() {
+    assertMovesLikeReference((height, position) -> new RelaySatellite("Relay1", "RelaySatellite", height, position),
+        MathsHelper.CLOCKWISE, MotionTests::moveRelay);
+  }
+
+  @Test
+  public void testTeleportingSatellitesMoveLikeBefore() {
+    assertMovesLikeReference((height, position) -> new TeleportingSatellite("Teleporter1", "TeleportingSatellite",
+        height, position), MathsHelper.ANTI_CLOCKWISE, MotionTests::moveTeleporting);
+  }
+
+  @Test
+  public void testAdvancingManyMinutesMatchesSteppingThroughThem() {
+    assertAdvanceMatchesSteps((height, position) -> new StandardSatellite("Satellite1", "StandardSatellite", height,
+        position));
+    assertAdvanceMatchesSteps((height, position) -> new RelaySatellite("Relay1", "RelaySatellite", height, position));
+    assertAdvanceMatchesSteps((height, position) -> new TeleportingSatellite("Teleporter1", "TeleportingSatellite",
+        height, position));
+  }
+}
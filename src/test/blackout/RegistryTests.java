@@ -0,0 +1,157 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import unsw.blackout.BlackoutController;
+import unsw.response.models.EntityInfoResponse;
+import unsw.response.models.FileInfoResponse;
+import unsw.utils.Angle;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static unsw.utils.MathsHelper.RADIUS_OF_JUPITER;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@TestInstance(value = Lifecycle.PER_CLASS)
+public class RegistryTests {
+  @Test
+  public void testIdsAreListedInTheOrderTheyWereCreated() {
+    BlackoutController controller = new BlackoutController();
+    controller.createDevice("Zeta", "HandheldDevice", Angle.fromDegrees(10));
+    controller.createDevice("Alpha", "LaptopDevice", Angle.fromDegrees(20));
+    controller.createDevice("Mid", "DesktopDevice", Angle.fromDegrees(30));
+    controller.createSatellite("Satellite9", "StandardSatellite", 1000 + RADIUS_OF_JUPITER, Angle.fromDegrees(40));
+    controller.createSatellite("Satellite1", "RelaySatellite", 1000 + RADIUS_OF_JUPITER, Angle.fromDegrees(50));
+
+    assertEquals(List.of("Zeta", "Alpha", "Mid"), controller.listDeviceIds());
+    assertEquals(List.of("Satellite9", "Satellite1"), controller.listSatelliteIds());
+  }
+
+  @Test
+  public void testRemovingKeepsTheOrderOfTheRest() {
+    BlackoutController controller = new BlackoutController();
+    controller.createDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(10));
+    controller.createDevice("DeviceB", "LaptopDevice", Angle.fromDegrees(20));
+    controller.createDevice("DeviceC", "DesktopDevice", Angle.fromDegrees(30));
+
+    controller.removeDevice("DeviceB");
+    controller.removeDevice("NoSuchDevice");
+    assertEquals(List.of("DeviceA", "DeviceC"), controller.listDeviceIds());
+
+    controller.createDevice("DeviceB", "LaptopDevice", Angle.fromDegrees(20));
+    assertEquals(List.of("DeviceA", "DeviceC", "DeviceB"), controller.listDeviceIds());
+  }
+
+  @Test
+  public void testCreatingAnExistingIdReplacesIt() {
+    BlackoutController controller = new BlackoutController();
+    controller.createDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(10));
+    controller.createDevice("DeviceB", "LaptopDevice", Angle.fromDegrees(20));
+    controller.addFileToDevice("DeviceA", "FileA", "Hello");
+
+    controller.createDevice("DeviceA", "DesktopDevice", Angle.fromDegrees(30));
+    assertEquals(List.of("DeviceB", "DeviceA"), controller.listDeviceIds());
+    assertEquals(new EntityInfoResponse("DeviceA", Angle.fromDegrees(30), RADIUS_OF_JUPITER, "DesktopDevice"),
+        controller.getInfo("DeviceA"));
+    assertTrue(controller.getInfo("DeviceA").getFiles().isEmpty());
+
+    controller.createSatellite("Satellite1", "StandardSatellite", 1000 + RADIUS_OF_JUPITER, Angle.fromDegrees(40));
+    controller.createSatellite("Satellite1", "RelaySatellite", 2000 + RADIUS_OF_JUPITER, Angle.fromDegrees(50));
+    assertEquals(List.of("Satellite1"), controller.listSatelliteIds());
+    assertEquals(new EntityInfoResponse("Satellite1", Angle.fromDegrees(50), 2000 + RADIUS_OF_JUPITER,
+        "RelaySatellite"), controller.getInfo("Satellite1"));
+  }
+
+  @Test
+  public void testEntitiesAreSimulatedWhateverOrderTheyWereCreatedIn() {
+    BlackoutController forwards = new BlackoutController();
+    BlackoutController backwards = new BlackoutController();
+    forwards.createDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(320));
+    forwards.createSatellite("Satellite1", "StandardSatellite", 1000 + RADIUS_OF_JUPITER, Angle.fromDegrees(320));
+    backwards.createSatellite("Satellite1", "StandardSatellite", 1000 + RADIUS_OF_JUPITER, Angle.fromDegrees(320));
+    backwards.createDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(320));
+    for (BlackoutController controller : List.of(forwards, backwards)) {
+      assertTrue(controller.communicableEntitiesInRange("DeviceA").contains("Satellite1"));
+    }
+
+    forwards.simulate(5);
+    backwards.simulate(5);
+    assertEquals(forwards.getInfo("Satellite1"), backwards.getInfo("Satellite1"));
+    assertEquals(forwards.getInfo("DeviceA"), backwards.getInfo("DeviceA"));
+  }
+
+  @Test
+  public void testReplacingARecieverGivesTheSenderItsBandwidthBack() {
+    BlackoutController controller = new BlackoutController();
+    controller.createSatellite("Satellite1", "StandardSatellite", 1000 + RADIUS_OF_JUPITER, Angle.fromDegrees(320));
+    controller.createDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(320));
+    controller.addFileToDevice("DeviceA", "FileA", "Hi");
+    assertDoesNotThrow(() -> controller.sendFile("FileA", "DeviceA", "Satellite1"));
+    controller.simulate();
+    assertEquals(1, controller.getObject("DeviceA").getNumFilesUploading());
+
+    controller.createSatellite("Satellite1", "StandardSatellite", 1000 + RADIUS_OF_JUPITER, Angle.fromDegrees(320));
+    assertEquals(0, controller.getObject("DeviceA").getNumFilesUploading());
+    assertTrue(controller.getInfo("Satellite1").getFiles().isEmpty());
+
+    // the upload starts again at full speed
+    assertDoesNotThrow(() -> controller.sendFile("FileA", "DeviceA", "Satellite1"));
+    controller.simulate(2);
+    assertEquals(new FileInfoResponse("FileA", "Hi", 2, true),
+        controller.getInfo("Satellite1").getFiles().get("FileA"));
+  }
+
+  @Test
+  public void testRemovingASenderCancelsWhatItWasSending() {
+    BlackoutController controller = new BlackoutController();
+    controller.createSatellite("Satellite1", "StandardSatellite", 1000 + RADIUS_OF_JUPITER, Angle.fromDegrees(320));
+    controller.createDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(320));
+    controller.createDevice("DeviceB", "HandheldDevice", Angle.fromDegrees(320));
+    controller.addFileToDevice("DeviceA", "FileA", "Hello there");
+    controller.addFileToDevice("DeviceB", "FileB", "Hi");
+    assertDoesNotThrow(() -> controller.sendFile("FileA", "DeviceA", "Satellite1"));
+    controller.simulate();
+
+    controller.removeDevice("DeviceA");
+    assertNull(controller.getInfo("Satellite1").getFiles().get("FileA"));
+    assertEquals(0, controller.getObject("Satellite1").getNumFilesDownloading());
+
+    // the satellite only downloads one file at a time, so it has to be free
+    assertDoesNotThrow(() -> controller.sendFile("FileB", "DeviceB", "Satellite1"));
+    controller.simulate(2);
+    assertEquals(new FileInfoResponse("FileB", "Hi", 2, true),
+        controller.getInfo("Satellite1").getFiles().get("FileB"));
+  }
+
+  @Test
+  public void testEntitiesInRangeAreListedInTheOrderTheyWereCreated() {
+    BlackoutController controller = new BlackoutController();
+    // heights and angles chosen so creation order is nothing like bucket order
+    controller.createSatellite("Satellite1", "StandardSatellite", 90000 + RADIUS_OF_JUPITER, Angle.fromDegrees(350));
+    controller.createSatellite("Satellite2", "RelaySatellite", 1000 + RADIUS_OF_JUPITER, Angle.fromDegrees(2));
+    controller.createSatellite("Satellite3", "TeleportingSatellite", 40000 + RADIUS_OF_JUPITER,
+        Angle.fromDegrees(175));
+    controller.createSatellite("Satellite4", "StandardSatellite", 20000 + RADIUS_OF_JUPITER, Angle.fromDegrees(5));
+    controller.createDevice("DeviceC", "DesktopDevice", Angle.fromDegrees(4));
+    controller.createDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(358));
+    controller.createDevice("DeviceB", "LaptopDevice", Angle.fromDegrees(1));
+
+    List<String> ids = new ArrayList<>(controller.listSatelliteIds());
+    ids.addAll(controller.listDeviceIds());
+    for (int minute = 0; minute < 60; minute++) {
+      for (String id : ids) {
+        List<String> inRange = controller.communicableEntitiesInRange(id);
+        List<String> expected = new ArrayList<>(ids);
+        expected.retainAll(inRange);
+        assertEquals(expected, inRange);
+      }
+      controller.simulate();
+    }
+  }
+}
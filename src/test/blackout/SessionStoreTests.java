@@ -0,0 +1,211 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import unsw.BinarySessionCodec;
+import unsw.DirectorySessionSpill;
+import unsw.Session;
+import unsw.SessionSpill;
+import unsw.SessionStore;
+import unsw.blackout.BlackoutController;
+import unsw.utils.Angle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static unsw.utils.MathsHelper.RADIUS_OF_JUPITER;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@TestInstance(value = Lifecycle.PER_CLASS)
+public class SessionStoreTests {
+  private static SessionStore createSpillingStore(long idleTimeToLive, TimeUnit unit) throws IOException {
+    Path directory = Files.createTempDirectory("sessions");
+    directory.toFile().deleteOnExit();
+    SessionStore store = new SessionStore(idleTimeToLive, unit, 2);
+    store.setSpill(new DirectorySessionSpill(directory, new BinarySessionCodec()));
+    return store;
+  }
+
+  @Test
+  public void testLeastRecentlyUsedSessionIsEvicted() throws InterruptedException {
+    SessionStore store = new SessionStore(30, TimeUnit.MINUTES, 2);
+    List<Session> evicted = new ArrayList<>();
+    store.addEvictionListener(evicted::add);
+
+    Session first = store.get("first");
+    Thread.sleep(1);
+    Session second = store.get("second");
+    Thread.sleep(1);
+    // using the first session makes the second the least recently used
+    store.get("first");
+    store.get("third");
+    // requests never evict anything themselves, that's left to the sweep
+    assertEquals(3, store.size());
+    assertTrue(evicted.isEmpty());
+
+    store.sweep();
+    assertEquals(2, store.size());
+    assertEquals(List.of(second), evicted);
+    assertTrue(second.isClosed());
+    assertFalse(first.isClosed());
+    assertSame(first, store.get("first"));
+  }
+
+  @Test
+  public void testIdleSessionsAreSwept() throws InterruptedException {
+    SessionStore store = new SessionStore(50, TimeUnit.MILLISECONDS, 10);
+    Session idle = store.get("idle");
+    Thread.sleep(100);
+    Session used = store.get("used");
+
+    store.sweep();
+    assertEquals(1, store.size());
+    assertTrue(idle.isClosed());
+    assertSame(used, store.get("used"));
+    // an evicted session without a spill starts again
+    assertNotEquals(idle, store.get("idle"));
+    assertTrue(store.get("idle").getController().listDeviceIds().isEmpty());
+  }
+
+  @Test
+  public void testEvictedSessionsComeBackFromTheSpill() throws IOException, InterruptedException {
+    SessionStore store = createSpillingStore(50, TimeUnit.MILLISECONDS);
+    Session session = store.get("session");
+    session.getController().createDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(320));
+    session.getController().createSatellite("Satellite1", "StandardSatellite", 1000 + RADIUS_OF_JUPITER,
+        Angle.fromDegrees(320));
+    session.getController().simulate(3);
+    Object info = session.getController().getInfo("Satellite1");
+
+    Thread.sleep(100);
+    store.sweep();
+    assertEquals(0, store.size());
+
+    Session restored = store.get("session");
+    assertNotEquals(session, restored);
+    assertEquals(List.of("DeviceA"), restored.getController().listDeviceIds());
+    assertEquals(info, restored.getController().getInfo("Satellite1"));
+  }
+
+  @Test
+  public void testLateWritersGetTheRestoredSession() throws IOException {
+    SessionStore store = createSpillingStore(1, TimeUnit.NANOSECONDS);
+    Session session = store.get("session");
+    session.getController().createDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(320));
+
+    // the session is evicted after the writer got it but before it took the
+    // lock, so the writer finds it closed and has to get it again
+    AtomicBoolean swept = new AtomicBoolean();
+    Session locked = store.lock("session", current -> {
+      if (swept.compareAndSet(false, true)) {
+        store.sweep();
+      }
+      return current.getLock().writeLock();
+    });
+    try {
+      locked.getController().createDevice("DeviceB", "LaptopDevice", Angle.fromDegrees(100));
+    } finally {
+      locked.unlockWrite();
+    }
+
+    assertTrue(session.isClosed());
+    assertNotEquals(session, locked);
+    assertSame(locked, store.get("session"));
+    assertEquals(List.of("DeviceA", "DeviceB"), locked.getController().listDeviceIds());
+  }
+
+  @Test
+  public void testSessionsInUseAreNotEvicted() throws InterruptedException {
+    SessionStore store = new SessionStore(1, TimeUnit.NANOSECONDS, 1);
+    Session busy = store.get("busy");
+    Thread.sleep(1);
+    store.get("idle");
+
+    // another request is in the middle of using the busy session
+    CountDownLatch locked = new CountDownLatch(1);
+    CountDownLatch finish = new CountDownLatch(1);
+    Thread request = new Thread(() -> {
+      Session session = store.lock("busy", current -> current.getLock().writeLock());
+      locked.countDown();
+      try {
+        finish.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        session.unlockWrite();
+      }
+    });
+    request.start();
+    assertTrue(locked.await(10, TimeUnit.SECONDS));
+
+    store.sweep();
+    assertFalse(busy.isClosed());
+    assertEquals(1, store.size());
+    finish.countDown();
+    request.join();
+
+    store.sweep();
+    assertTrue(busy.isClosed());
+    assertEquals(0, store.size());
+  }
+
+  @Test
+  public void testBringingBackOneSessionDoesntHoldUpAnother() throws InterruptedException {
+    SessionStore store = new SessionStore(30, TimeUnit.MINUTES, 10);
+    CountDownLatch loadStarted = new CountDownLatch(1);
+    CountDownLatch finishLoad = new CountDownLatch(1);
+    store.setSpill(new SessionSpill() {
+      @Override
+      public void save(String sessionId, BlackoutController controller) {
+      }
+
+      @Override
+      public BlackoutController load(String sessionId) {
+        if (sessionId.equals("slow")) {
+          loadStarted.countDown();
+          try {
+            finishLoad.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+        return null;
+      }
+    });
+
+    List<Session> slow = new CopyOnWriteArrayList<>();
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      threads.add(new Thread(() -> slow.add(store.get("slow"))));
+    }
+    threads.forEach(Thread::start);
+    assertTrue(loadStarted.await(10, TimeUnit.SECONDS));
+
+    // both slow requests are waiting, but other sessions are got straight away
+    Session fast = store.get("fast");
+    assertSame(fast, store.get("fast"));
+    assertTrue(slow.isEmpty());
+
+    finishLoad.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    // the session was only brought back once
+    assertEquals(2, slow.size());
+    assertSame(slow.get(0), slow.get(1));
+    assertSame(slow.get(0), store.get("slow"));
+  }
+}
@@ -0,0 +1,148 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import unsw.Session;
+import unsw.SessionStore;
+import unsw.blackout.BlackoutController;
+import unsw.blackout.SimulationView;
+import unsw.utils.Angle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static unsw.utils.MathsHelper.RADIUS_OF_JUPITER;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+@TestInstance(value = Lifecycle.PER_CLASS)
+public class SessionTests {
+  private SessionStore createStore() {
+    SessionStore store = new SessionStore(30, TimeUnit.MINUTES, 10);
+    BlackoutController controller = store.get("session").getController();
+    controller.createSatellite("Satellite1", "StandardSatellite", 1000 + RADIUS_OF_JUPITER, Angle.fromDegrees(320));
+    controller.createDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(320));
+    return store;
+  }
+
+  private static Session lockForWriting(SessionStore store) {
+    return store.lock("session", session -> session.getLock().writeLock());
+  }
+
+  private static void simulate(SessionStore store, int minutes,
+      Function<BlackoutController, Consumer<BlackoutController>> start) {
+    Session session = lockForWriting(store);
+    try {
+      session.simulate(minutes, start);
+    } finally {
+      session.getLock().writeLock().unlock();
+    }
+  }
+
+  @Test
+  public void testNothingChangesASimulationPartWayThrough() throws InterruptedException {
+    SessionStore store = createStore();
+    Session session = store.get("session");
+    CountDownLatch started = new CountDownLatch(1);
+    Thread writer = new Thread(() -> {
+      try {
+        started.await();
+      } catch (InterruptedException e) {
+        return;
+      }
+      Session locked = lockForWriting(store);
+      try {
+        locked.getController().createDevice("DeviceB", "LaptopDevice", Angle.fromDegrees(100));
+      } finally {
+        locked.getLock().writeLock().unlock();
+      }
+    });
+    writer.start();
+
+    List<Integer> devicesEachMinute = new ArrayList<>();
+    simulate(store, 20, controller -> {
+      started.countDown();
+      return after -> {
+        // make sure the writer is waiting before going on, so it would get in
+        // between minutes if it could
+        while (!session.getLock().hasQueuedThreads()) {
+          Thread.yield();
+        }
+        devicesEachMinute.add(after.listDeviceIds().size());
+      };
+    });
+    writer.join();
+
+    assertEquals(20, devicesEachMinute.size());
+    assertTrue(devicesEachMinute.stream().allMatch(devices -> devices == 1));
+    assertEquals(2, session.getController().listDeviceIds().size());
+  }
+
+  @Test
+  public void testSimulationsOfOneSessionTakeTurns() throws InterruptedException {
+    SessionStore store = createStore();
+    List<String> minutes = new ArrayList<>();
+    List<Thread> threads = new ArrayList<>();
+    for (String name : List.of("A", "B", "C")) {
+      threads.add(new Thread(() -> simulate(store, 50, controller -> after -> minutes.add(name))));
+    }
+    threads.forEach(Thread::start);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    // each simulation's minutes are all together
+    assertEquals(150, minutes.size());
+    for (int i = 0; i < minutes.size(); i += 50) {
+      String name = minutes.get(i);
+      assertTrue(minutes.subList(i, i + 50).stream().allMatch(name::equals), "simulations were interleaved");
+    }
+  }
+
+  @Test
+  public void testReadersSeeEachMinuteWithoutWaitingForTheLock() throws InterruptedException {
+    SessionStore store = createStore();
+    Session session = lockForWriting(store);
+    session.unlockWrite();
+    SimulationView before = session.getView();
+    assertEquals(List.of("DeviceA"), before.listDeviceIds());
+
+    CountDownLatch halfway = new CountDownLatch(1);
+    CountDownLatch finish = new CountDownLatch(1);
+    List<Double> positions = new ArrayList<>();
+    List<String> inRangeHalfway = new ArrayList<>();
+    Thread writer = new Thread(() -> simulate(store, 10, controller -> after -> {
+      positions.add(after.getInfo("Satellite1").getPosition().toRadians());
+      if (positions.size() == 5) {
+        inRangeHalfway.addAll(after.communicableEntitiesInRange("DeviceA"));
+        halfway.countDown();
+        try {
+          finish.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }));
+    writer.start();
+
+    // the simulation still holds the write lock, but the minute it just
+    // finished has been published
+    assertTrue(halfway.await(10, TimeUnit.SECONDS));
+    assertTrue(session.getLock().isWriteLocked());
+    SimulationView during = session.getView();
+    assertEquals(positions.get(4), during.getInfo("Satellite1").getPosition().toRadians(), 1e-9);
+    assertEquals(inRangeHalfway, during.communicableEntitiesInRange("DeviceA"));
+    finish.countDown();
+    writer.join();
+
+    assertEquals(positions.get(9), session.getView().getInfo("Satellite1").getPosition().toRadians(), 1e-9);
+    // views taken before are left as they were
+    assertEquals(positions.get(4), during.getInfo("Satellite1").getPosition().toRadians(), 1e-9);
+  }
+}
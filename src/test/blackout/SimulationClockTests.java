@@ -0,0 +1,78 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import unsw.Session;
+import unsw.SimulationClock;
+import unsw.blackout.BlackoutController;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@TestInstance(value = Lifecycle.PER_CLASS)
+public class SimulationClockTests {
+  private static void awaitStopped(SimulationClock clock, Session session) throws InterruptedException {
+    long deadline = System.nanoTime() + 10_000_000_000L;
+    while (clock.isRunning(session)) {
+      assertTrue(System.nanoTime() < deadline, "the clock never stopped");
+      Thread.sleep(1);
+    }
+  }
+
+  @Test
+  public void testSettingTheRateAtOnceLeavesOneClock() throws InterruptedException {
+    AtomicInteger ticks = new AtomicInteger();
+    SimulationClock clock = new SimulationClock(4, session -> ticks.incrementAndGet());
+    Session session = new Session("session", new BlackoutController());
+
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      threads.add(new Thread(() -> {
+        for (int j = 0; j < 50; j++) {
+          clock.setRate(session, 1000);
+        }
+      }));
+    }
+    threads.forEach(Thread::start);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertTrue(clock.isRunning(session));
+
+    // a clock left behind by a replaced one would keep ticking
+    clock.setRate(session, 0);
+    assertFalse(clock.isRunning(session));
+    Thread.sleep(20);
+    int stoppedAt = ticks.get();
+    Thread.sleep(50);
+    assertEquals(stoppedAt, ticks.get());
+  }
+
+  @Test
+  public void testFailingClockStopsItself() throws InterruptedException {
+    SimulationClock clock = new SimulationClock(1, session -> {
+      throw new IllegalStateException("broken simulation");
+    });
+    Session session = new Session("session", new BlackoutController());
+    clock.setRate(session, 1000);
+    awaitStopped(clock, session);
+  }
+
+  @Test
+  public void testClockOfEvictedSessionStops() throws InterruptedException {
+    AtomicInteger ticks = new AtomicInteger();
+    SimulationClock clock = new SimulationClock(1, session -> ticks.incrementAndGet());
+    Session session = new Session("session", new BlackoutController());
+    session.close();
+    clock.setRate(session, 1000);
+    awaitStopped(clock, session);
+    assertEquals(0, ticks.get());
+  }
+}
@@ -0,0 +1,193 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import unsw.Session;
+import unsw.SimulationJob;
+import unsw.SimulationJobs;
+import unsw.blackout.BlackoutController;
+import unsw.response.models.EntityInfoResponse;
+import unsw.response.models.SimulationJobResponse;
+import unsw.utils.Angle;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static unsw.utils.MathsHelper.RADIUS_OF_JUPITER;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@TestInstance(value = Lifecycle.PER_CLASS)
+public class SimulationJobTests {
+  private Session createSession() {
+    BlackoutController controller = new BlackoutController();
+    controller.createSatellite("Satellite1", "StandardSatellite", 1000 + RADIUS_OF_JUPITER, Angle.fromDegrees(320));
+    controller.createSatellite("Relay1", "RelaySatellite", 2000 + RADIUS_OF_JUPITER, Angle.fromDegrees(100));
+    controller.createDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(320));
+    controller.addFileToDevice("DeviceA", "FileA", "Hey there");
+    assertDoesNotThrow(() -> controller.sendFile("FileA", "DeviceA", "Satellite1"));
+    return new Session("session", controller);
+  }
+
+  private static Map<String, EntityInfoResponse> snapshotOf(BlackoutController controller) {
+    Map<String, EntityInfoResponse> snapshot = new HashMap<>();
+    controller.listSatelliteIds().forEach(id -> snapshot.put(id, controller.getInfo(id)));
+    controller.listDeviceIds().forEach(id -> snapshot.put(id, controller.getInfo(id)));
+    return snapshot;
+  }
+
+  private static void awaitFinished(SimulationJob job) throws InterruptedException {
+    long deadline = System.nanoTime() + 10_000_000_000L;
+    while (!job.isFinished()) {
+      assertTrue(System.nanoTime() < deadline, "job " + job.getId() + " never finished");
+      Thread.sleep(1);
+    }
+  }
+
+  @Test
+  public void testPollingFromAMinuteForgetsTheMinutesBeforeIt() {
+    Session session = createSession();
+    Map<String, EntityInfoResponse> initial = snapshotOf(session.getController());
+    SimulationJob job = new SimulationJob("1", session, 5);
+    job.run();
+
+    SimulationJobResponse all = job.poll(0);
+    assertEquals("DONE", all.getState());
+    assertEquals(5, all.getCompletedMinutes());
+    assertEquals(0, all.getFrom());
+    assertEquals(initial, all.getInitial());
+    assertEquals(5, all.getDeltas().size());
+
+    SimulationJobResponse rest = job.poll(3);
+    assertEquals(3, rest.getFrom());
+    assertNull(rest.getInitial());
+    assertEquals(all.getDeltas().subList(3, 5), rest.getDeltas());
+
+    // minutes the client said it had seen are gone for good
+    SimulationJobResponse again = job.poll(0);
+    assertEquals(3, again.getFrom());
+    assertNull(again.getInitial());
+    assertEquals(2, again.getDeltas().size());
+  }
+
+  @Test
+  public void testUnpolledMinutesAreReplacedWithASnapshot() {
+    Session session = createSession();
+    // every minute here moves both satellites, so is at least 3 changes
+    SimulationJob job = new SimulationJob("1", session, 10, 4);
+    job.run();
+
+    SimulationJobResponse response = job.poll(0);
+    assertEquals(10, response.getCompletedMinutes());
+    assertEquals(10, response.getFrom());
+    assertEquals(snapshotOf(session.getController()), response.getInitial());
+    assertEquals(0, response.getDeltas().size());
+  }
+
+  @Test
+  public void testSessionCanOnlyHaveSoManyActiveJobs() throws InterruptedException {
+    SimulationJobs jobs = new SimulationJobs(1, 4, 2);
+    Session session = createSession();
+    List<SimulationJob> started = new ArrayList<>();
+
+    // jobs can't start while the write lock is held here
+    session.getLock().writeLock().lock();
+    try {
+      started.add(jobs.submit(session, 1));
+      started.add(jobs.submit(session, 1));
+      assertThrows(IllegalStateException.class, () -> jobs.submit(session, 1));
+      // other sessions have limits of their own
+      started.add(jobs.submit(createSession(), 1));
+    } finally {
+      session.getLock().writeLock().unlock();
+    }
+
+    for (SimulationJob job : started) {
+      awaitFinished(job);
+      assertEquals(SimulationJob.State.DONE, job.getState());
+    }
+    // finished jobs don't count
+    awaitFinished(jobs.submit(session, 1));
+  }
+
+  @Test
+  public void testCancelledJobsStop() throws InterruptedException {
+    SimulationJobs jobs = new SimulationJobs(1, 4, 2);
+    Session session = createSession();
+
+    SimulationJob running;
+    SimulationJob queued;
+    session.getLock().writeLock().lock();
+    try {
+      running = jobs.submit(session, 1000);
+      queued = jobs.submit(session, 1000);
+      jobs.cancel(queued);
+      assertEquals(SimulationJob.State.CANCELLED, queued.getState());
+      jobs.cancel(running);
+    } finally {
+      session.getLock().writeLock().unlock();
+    }
+
+    awaitFinished(running);
+    assertEquals(SimulationJob.State.CANCELLED, running.getState());
+    assertEquals(0, running.poll(0).getCompletedMinutes());
+    assertEquals(0, queued.poll(0).getCompletedMinutes());
+  }
+
+  @Test
+  public void testOnlyTheLatestFinishedJobsAreKept() throws InterruptedException {
+    SimulationJobs jobs = new SimulationJobs(1, 4, 1);
+    Session session = createSession();
+    List<SimulationJob> finished = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      SimulationJob job = jobs.submit(session, 1);
+      awaitFinished(job);
+      finished.add(job);
+    }
+
+    // each submit forgets all but the latest 8 finished jobs before it
+    assertNull(jobs.get(session, finished.get(0).getId()));
+    for (SimulationJob job : finished.subList(1, 10)) {
+      assertSame(job, jobs.get(session, job.getId()));
+    }
+    assertNull(jobs.get(createSession(), finished.get(9).getId()));
+
+    jobs.cancelAll(session);
+    assertNull(jobs.get(session, finished.get(9).getId()));
+    assertNotNull(finished.get(9).poll(0));
+  }
+
+  @Test
+  public void testNothingChangesTheSessionPartWayThroughAJob() throws InterruptedException {
+    SimulationJobs jobs = new SimulationJobs(1, 4, 2);
+    Session session = createSession();
+    SimulationJob job = jobs.submit(session, 200);
+    long deadline = System.nanoTime() + 10_000_000_000L;
+    while (job.poll(0).getCompletedMinutes() == 0) {
+      assertTrue(System.nanoTime() < deadline, "the job never started");
+      Thread.sleep(1);
+    }
+
+    // a writer that turns up while the job is running waits for all of it
+    session.getLock().writeLock().lock();
+    try {
+      assertEquals(200, job.poll(0).getCompletedMinutes());
+      session.getController().createDevice("DeviceB", "LaptopDevice", Angle.fromDegrees(100));
+    } finally {
+      session.unlockWrite();
+    }
+    awaitFinished(job);
+    assertEquals(SimulationJob.State.DONE, job.getState());
+    assertTrue(job.poll(0).getDeltas().stream().noneMatch(delta -> delta.containsKey("DeviceB")));
+    assertEquals(List.of("DeviceA", "DeviceB"), session.getView().listDeviceIds());
+  }
+}
@@ -0,0 +1,347 @@
+package blackout;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import unsw.blackout.BatchCommand;
+import unsw.blackout.BlackoutController;
+import unsw.blackout.RelaySatellite;
+import unsw.blackout.Satellite;
+import unsw.blackout.SimulationMetrics;
+import unsw.blackout.StandardSatellite;
+import unsw.blackout.TeleportingSatellite;
+import unsw.response.models.BatchResultResponse;
+import unsw.response.models.EntityInfoResponse;
+import unsw.response.models.SimulationDeltaResponse;
+import unsw.utils.Angle;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static unsw.utils.MathsHelper.RADIUS_OF_JUPITER;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static blackout.TestHelpers.assertListAreEqualIgnoringOrder;
+
+@TestInstance(value = Lifecycle.PER_CLASS)
+public class SimulationModesTests {
+  /**
+   * Creates a few satellites and devices on both sides of Jupiter and starts
+   * transfers between them, some of which go out of range part way through.
+   */
+  private BlackoutController createScenario() {
+    BlackoutController controller = new BlackoutController();
+    controller.createSatellite("Satellite1", "StandardSatellite", 1000 + RADIUS_OF_JUPITER, Angle.fromDegrees(320));
+    controller.createSatellite("Satellite2", "StandardSatellite", 10000 + RADIUS_OF_JUPITER, Angle.fromDegrees(315));
+    controller.createSatellite("Satellite3", "StandardSatellite", 5000 + RADIUS_OF_JUPITER, Angle.fromDegrees(175));
+    controller.createSatellite("Relay1", "RelaySatellite", 3000 + RADIUS_OF_JUPITER, Angle.fromDegrees(180));
+    controller.createSatellite("Teleport1", "TeleportingSatellite", 2000 + RADIUS_OF_JUPITER, Angle.fromDegrees(100));
+    controller.createDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(320));
+    controller.createDevice("DeviceB", "LaptopDevice", Angle.fromDegrees(310));
+    controller.createDevice("DeviceC", "HandheldDevice", Angle.fromDegrees(180));
+    controller.createDevice("DeviceD", "LaptopDevice", Angle.fromDegrees(170));
+
+    controller.addFileToDevice("DeviceA", "FileA", "Hey");
+    controller.addFileToDevice("DeviceB", "FileB", "A much longer file that won't finish in time");
+    controller.addFileToDevice("DeviceC", "FileC", "Hello");
+    assertDoesNotThrow(() -> controller.sendFile("FileA", "DeviceA", "Satellite1"));
+    assertDoesNotThrow(() -> controller.sendFile("FileB", "DeviceB", "Satellite2"));
+    assertDoesNotThrow(() -> controller.sendFile("FileC", "DeviceC", "Satellite3"));
+    return controller;
+  }
+
+  private void assertSameState(BlackoutController expected, BlackoutController actual) {
+    assertListAreEqualIgnoringOrder(expected.listSatelliteIds(), actual.listSatelliteIds());
+    assertListAreEqualIgnoringOrder(expected.listDeviceIds(), actual.listDeviceIds());
+    for (String id : expected.listSatelliteIds()) {
+      assertEquals(expected.getInfo(id), actual.getInfo(id));
+      assertListAreEqualIgnoringOrder(expected.communicableEntitiesInRange(id), actual.communicableEntitiesInRange(id));
+    }
+    for (String id : expected.listDeviceIds()) {
+      assertEquals(expected.getInfo(id), actual.getInfo(id));
+      assertListAreEqualIgnoringOrder(expected.communicableEntitiesInRange(id), actual.communicableEntitiesInRange(id));
+    }
+  }
+
+  @Test
+  public void testVisibilityMatrixMatchesLiveChecks() {
+    BlackoutController expected = createScenario();
+    BlackoutController actual = createScenario();
+    actual.setVisibilityMatrixEnabled(true);
+
+    for (int minute = 0; minute < 30; minute++) {
+      assertSameState(expected, actual);
+      expected.simulate();
+      actual.simulate();
+    }
+    assertSameState(expected, actual);
+  }
+
+  @Test
+  public void testVisibilityMatrixMatchesLiveChecksWhenCrowded() {
+    List<BlackoutController> controllers = List.of(new BlackoutController(), new BlackoutController());
+    for (BlackoutController controller : controllers) {
+      String[] satelliteTypes = {"StandardSatellite", "RelaySatellite", "TeleportingSatellite"};
+      String[] deviceTypes = {"HandheldDevice", "LaptopDevice", "DesktopDevice"};
+      for (int i = 0; i < 60; i++) {
+        controller.createSatellite("Satellite" + i, satelliteTypes[i % 3], 1000 + 2000 * (i % 7) + RADIUS_OF_JUPITER,
+            Angle.fromDegrees(i * 6));
+        controller.createDevice("Device" + i, deviceTypes[i % 3], Angle.fromDegrees(i * 6 + 3));
+      }
+    }
+    BlackoutController expected = controllers.get(0);
+    BlackoutController actual = controllers.get(1);
+    actual.setVisibilityMatrixEnabled(true);
+
+    for (int minute = 0; minute < 10; minute++) {
+      assertSameState(expected, actual);
+      expected.simulate();
+      actual.simulate();
+    }
+    assertSameState(expected, actual);
+  }
+
+  @Test
+  public void testReusedVisibilityMatrixFollowsEntitiesComingAndGoing() {
+    BlackoutController expected = createScenario();
+    BlackoutController actual = createScenario();
+    actual.setVisibilityMatrixEnabled(true);
+
+    for (int minute = 0; minute < 30; minute++) {
+      for (BlackoutController controller : List.of(expected, actual)) {
+        // entities removed keep the slot they had, which another entity now has
+        if (minute % 3 == 0) {
+          controller.removeSatellite("Satellite1");
+          controller.removeDevice("DeviceD");
+        } else if (minute % 3 == 1) {
+          controller.createSatellite("Satellite1", "StandardSatellite", 1000 + RADIUS_OF_JUPITER,
+              Angle.fromDegrees(300 + minute));
+          controller.createDevice("DeviceD", "LaptopDevice", Angle.fromDegrees(170 + minute));
+        }
+        controller.simulate();
+      }
+      assertSameState(expected, actual);
+    }
+  }
+
+  @Test
+  public void testParallelSimulationMatchesSequential() {
+    BlackoutController expected = createScenario();
+    BlackoutController actual = createScenario();
+    actual.setSimulationPool(ForkJoinPool.commonPool());
+
+    for (int minute = 0; minute < 30; minute++) {
+      assertSameState(expected, actual);
+      expected.simulate();
+      actual.simulate();
+    }
+    assertSameState(expected, actual);
+  }
+
+  @Test
+  public void testSimulateManyMinutesMatchesMinuteByMinute() {
+    BlackoutController expected = createScenario();
+    BlackoutController actual = createScenario();
+
+    // the first call has transfers in flight, the second has none left
+    for (int minute = 0; minute < 40; minute++) {
+      expected.simulate();
+    }
+    actual.simulate(40);
+    assertSameState(expected, actual);
+
+    for (int minute = 0; minute < 2000; minute++) {
+      expected.simulate();
+    }
+    actual.simulate(2000);
+    assertSameState(expected, actual);
+  }
+
+  @Test
+  public void testMetricsMatchBetweenSimulationModes() {
+    BlackoutController sequential = createScenario();
+    BlackoutController parallel = createScenario();
+    parallel.setSimulationPool(ForkJoinPool.commonPool());
+    BlackoutController fastForwarded = createScenario();
+
+    for (int minute = 0; minute < 30; minute++) {
+      sequential.simulate();
+      parallel.simulate();
+    }
+    fastForwarded.simulate(30);
+
+    SimulationMetrics expected = sequential.getMetrics();
+    assertEquals(30, expected.getTicks());
+    assertEquals(30, expected.getMovePhase().getCount());
+    assertEquals(2, expected.getTransfersCompleted());
+    for (SimulationMetrics actual : new SimulationMetrics[] {parallel.getMetrics(), fastForwarded.getMetrics()}) {
+      assertEquals(expected.getBytesTransferred(), actual.getBytesTransferred());
+      assertEquals(expected.getTransfersCompleted(), actual.getTransfersCompleted());
+      assertEquals(expected.getTransfersCancelled(), actual.getTransfersCancelled());
+    }
+    assertEquals(30, fastForwarded.getMetrics().getTicks() + fastForwarded.getMetrics().getFastForwardedMinutes());
+  }
+
+  @Test
+  public void testDeltasRebuildEveryMinute() {
+    BlackoutController expected = createScenario();
+    BlackoutController actual = createScenario();
+
+    List<Map<String, EntityInfoResponse>> snapshots = new ArrayList<>();
+    for (int minute = 0; minute < 40; minute++) {
+      expected.simulate();
+      Map<String, EntityInfoResponse> snapshot = new HashMap<>();
+      expected.listSatelliteIds().forEach(id -> snapshot.put(id, expected.getInfo(id)));
+      expected.listDeviceIds().forEach(id -> snapshot.put(id, expected.getInfo(id)));
+      snapshots.add(snapshot);
+    }
+
+    SimulationDeltaResponse deltas = actual.simulateWithDeltas(40);
+    assertEquals(snapshots, deltas.toSnapshots());
+    // devices don't move, so they only show up in minutes where their files change
+    assertEquals(null, deltas.getMinutes().get(39).get("DeviceA"));
+  }
+
+  @Test
+  public void testEncodedInfoMatchesGson() throws IOException {
+    Gson gson = new GsonBuilder().registerTypeAdapter(Angle.class,
+        (JsonSerializer<Angle>) (angle, type, context) -> new JsonPrimitive(angle.toRadians())).create();
+    BlackoutController controller = createScenario();
+
+    // encoded every minute, so anything whose JSON isn't thrown away when it
+    // changes would come out stale
+    for (int minute = 0; minute < 40; minute++) {
+      Map<String, EntityInfoResponse> expected = new HashMap<>();
+      controller.listSatelliteIds().forEach(id -> expected.put(id, controller.getInfo(id)));
+      controller.listDeviceIds().forEach(id -> expected.put(id, controller.getInfo(id)));
+
+      ByteArrayOutputStream actual = new ByteArrayOutputStream();
+      controller.encodeAllInfo().writeObjectTo(actual);
+      assertEquals(JsonParser.parseString(gson.toJson(expected)),
+          JsonParser.parseString(new String(actual.toByteArray(), StandardCharsets.UTF_8)));
+      if (minute == 5) {
+        // devices don't move, so only their files change what they look like
+        assertDoesNotThrow(() -> controller.sendFile("FileA", "Satellite1", "DeviceB"));
+      }
+      controller.simulate();
+    }
+  }
+
+  @Test
+  public void testBatchMatchesSingleCalls() {
+    BlackoutController expected = createScenario();
+    BlackoutController actual = new BlackoutController();
+
+    List<BatchCommand> batch = new ArrayList<>();
+    batch.add(BatchCommand.createSatellite("Satellite1", "StandardSatellite", 1000 + RADIUS_OF_JUPITER,
+        Angle.fromDegrees(320)));
+    batch.add(BatchCommand.createSatellite("Satellite2", "StandardSatellite", 10000 + RADIUS_OF_JUPITER,
+        Angle.fromDegrees(315)));
+    batch.add(BatchCommand.createSatellite("Satellite3", "StandardSatellite", 5000 + RADIUS_OF_JUPITER,
+        Angle.fromDegrees(175)));
+    batch.add(BatchCommand.createSatellite("Relay1", "RelaySatellite", 3000 + RADIUS_OF_JUPITER,
+        Angle.fromDegrees(180)));
+    batch.add(BatchCommand.createSatellite("Teleport1", "TeleportingSatellite", 2000 + RADIUS_OF_JUPITER,
+        Angle.fromDegrees(100)));
+    batch.add(BatchCommand.createDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(320), false));
+    batch.add(BatchCommand.createDevice("DeviceB", "LaptopDevice", Angle.fromDegrees(310), false));
+    batch.add(BatchCommand.createDevice("DeviceC", "HandheldDevice", Angle.fromDegrees(180), false));
+    batch.add(BatchCommand.createDevice("DeviceD", "LaptopDevice", Angle.fromDegrees(170), false));
+    batch.add(BatchCommand.addFileToDevice("DeviceA", "FileA", "Hey"));
+    batch.add(BatchCommand.addFileToDevice("DeviceB", "FileB", "A much longer file that won't finish in time"));
+    batch.add(BatchCommand.addFileToDevice("DeviceC", "FileC", "Hello"));
+    // fails without stopping the rest of the batch
+    batch.add(BatchCommand.sendFile("Missing", "DeviceA", "Satellite1"));
+    batch.add(BatchCommand.sendFile("FileA", "DeviceA", "Satellite1"));
+    batch.add(BatchCommand.sendFile("FileB", "DeviceB", "Satellite2"));
+    batch.add(BatchCommand.sendFile("FileC", "DeviceC", "Satellite3"));
+
+    List<BatchResultResponse> results = actual.executeBatch(batch);
+    assertEquals(batch.size(), results.size());
+    assertEquals("VirtualFileNotFoundException", results.get(12).getError().split(":")[0]);
+    assertEquals(1, results.stream().filter(result -> !result.isOk()).count());
+
+    for (int minute = 0; minute < 20; minute++) {
+      expected.simulate();
+      actual.simulate();
+      assertSameState(expected, actual);
+    }
+  }
+
+  @Test
+  public void testRestoredSnapshotCarriesOn() throws IOException {
+    // snapshots taken with transfers in flight, before and after teleports
+    // and once everything has settled, through a stream and through a file
+    for (int snapshotMinute : new int[] {0, 3, 30, 200}) {
+      BlackoutController expected = createScenario();
+      expected.createDevice("DeviceE", "LaptopDevice", Angle.fromDegrees(100));
+      expected.addFileToDevice("DeviceE", "FileE", "the ttt teleporting file");
+      assertDoesNotThrow(() -> expected.sendFile("FileE", "DeviceE", "Teleport1"));
+      expected.simulate(snapshotMinute);
+
+      BlackoutController actual;
+      if (snapshotMinute % 2 == 0) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        expected.snapshot(out);
+        actual = BlackoutController.restore(new ByteArrayInputStream(out.toByteArray()));
+      } else {
+        Path file = Files.createTempFile("snapshot", ".bin");
+        try {
+          expected.snapshot(file);
+          actual = BlackoutController.restore(file);
+        } finally {
+          Files.delete(file);
+        }
+      }
+
+      // only shows in the info once a later transfer involves the satellite
+      assertEquals(((TeleportingSatellite) expected.getObject("Teleport1")).isTeleportIsComplete(),
+          ((TeleportingSatellite) actual.getObject("Teleport1")).isTeleportIsComplete());
+      for (int minute = 0; minute < 60; minute++) {
+        assertSameState(expected, actual);
+        expected.simulate();
+        actual.simulate();
+      }
+      assertSameState(expected, actual);
+    }
+  }
+
+  @Test
+  public void testPositionAtMatchesMovingMinuteByMinute() {
+    Satellite[] satellites = {
+        new StandardSatellite("Satellite1", "StandardSatellite", 80000 + RADIUS_OF_JUPITER, Angle.fromDegrees(10)),
+        new TeleportingSatellite("Teleport1", "TeleportingSatellite", 80000 + RADIUS_OF_JUPITER,
+            Angle.fromDegrees(170)),
+        new RelaySatellite("Relay1", "RelaySatellite", 80000 + RADIUS_OF_JUPITER, Angle.fromDegrees(200)),
+        new RelaySatellite("Relay2", "RelaySatellite", 80000 + RADIUS_OF_JUPITER, Angle.fromDegrees(350)),
+    };
+
+    for (Satellite satellite : satellites) {
+      Angle[] predicted = new Angle[3001];
+      for (int minutes = 0; minutes < predicted.length; minutes++) {
+        predicted[minutes] = satellite.positionAt(minutes);
+      }
+      for (int minutes = 0; minutes < predicted.length; minutes++) {
+        assertEquals(satellite.getPosition().toDegrees(), predicted[minutes].toDegrees(), 0.0001);
+        satellite.moveByOneMinute();
+      }
+    }
+  }
+}
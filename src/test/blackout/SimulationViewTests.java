@@ -0,0 +1,107 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import unsw.blackout.BlackoutController;
+import unsw.blackout.SimulationView;
+import unsw.response.models.FileInfoResponse;
+import unsw.utils.Angle;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static unsw.utils.MathsHelper.RADIUS_OF_JUPITER;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+@TestInstance(value = Lifecycle.PER_CLASS)
+public class SimulationViewTests {
+  private BlackoutController createScenario() {
+    BlackoutController controller = new BlackoutController();
+    controller.createSatellite("Satellite1", "StandardSatellite", 1000 + RADIUS_OF_JUPITER, Angle.fromDegrees(320));
+    controller.createSatellite("Relay1", "RelaySatellite", 3000 + RADIUS_OF_JUPITER, Angle.fromDegrees(180));
+    controller.createSatellite("Teleport1", "TeleportingSatellite", 2000 + RADIUS_OF_JUPITER, Angle.fromDegrees(100));
+    controller.createSatellite("Satellite2", "StandardSatellite", 10000 + RADIUS_OF_JUPITER, Angle.fromDegrees(315));
+    controller.createDevice("DeviceB", "LaptopDevice", Angle.fromDegrees(310));
+    controller.createDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(320));
+    controller.createDevice("DeviceC", "DesktopDevice", Angle.fromDegrees(180));
+
+    controller.addFileToDevice("DeviceA", "FileA", "Hey");
+    controller.addFileToDevice("DeviceB", "FileB", "A much longer file that won't finish in time");
+    assertDoesNotThrow(() -> controller.sendFile("FileA", "DeviceA", "Satellite1"));
+    assertDoesNotThrow(() -> controller.sendFile("FileB", "DeviceB", "Satellite2"));
+    return controller;
+  }
+
+  private static byte[] encodeAll(SimulationView view) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    view.encodeAllInfo().writeObjectTo(out);
+    return out.toByteArray();
+  }
+
+  @Test
+  public void testViewAnswersTheSameAsTheController() throws IOException {
+    BlackoutController controller = createScenario();
+    for (int minute = 0; minute < 60; minute++) {
+      SimulationView view = controller.view();
+      assertEquals(controller.listSatelliteIds(), view.listSatelliteIds());
+      assertEquals(controller.listDeviceIds(), view.listDeviceIds());
+      for (String id : view.listSatelliteIds()) {
+        assertEquals(controller.getInfo(id), view.getInfo(id));
+        assertEquals(controller.communicableEntitiesInRange(id), view.communicableEntitiesInRange(id));
+      }
+      for (String id : view.listDeviceIds()) {
+        assertEquals(controller.getInfo(id), view.getInfo(id));
+        assertEquals(controller.communicableEntitiesInRange(id), view.communicableEntitiesInRange(id));
+      }
+
+      ByteArrayOutputStream expected = new ByteArrayOutputStream();
+      controller.encodeAllInfo().writeObjectTo(expected);
+      assertEquals(new String(expected.toByteArray()), new String(encodeAll(view)));
+      controller.simulate();
+    }
+  }
+
+  @Test
+  public void testViewNeverChangesOnceTaken() throws IOException {
+    BlackoutController controller = createScenario();
+    SimulationView view = controller.view();
+    String before = new String(encodeAll(view));
+    List<String> inRange = view.communicableEntitiesInRange("DeviceA");
+
+    controller.simulate(3);
+    controller.addFileToDevice("DeviceC", "FileC", "Hello");
+    controller.removeDevice("DeviceB");
+    controller.createDevice("DeviceD", "HandheldDevice", Angle.fromDegrees(10));
+
+    assertEquals(before, new String(encodeAll(view)));
+    assertEquals(inRange, view.communicableEntitiesInRange("DeviceA"));
+    assertEquals(List.of("DeviceB", "DeviceA", "DeviceC"), view.listDeviceIds());
+    assertNull(view.getInfo("DeviceD"));
+    assertEquals(new FileInfoResponse("FileA", "", 3, false), view.getInfo("Satellite1").getFiles().get("FileA"));
+    assertEquals(new FileInfoResponse("FileA", "Hey", 3, true),
+        controller.view().getInfo("Satellite1").getFiles().get("FileA"));
+  }
+
+  @Test
+  public void testOnlyWhatChangedIsTakenAgain() {
+    BlackoutController controller = createScenario();
+    SimulationView first = controller.view();
+    assertSame(first.get("DeviceC"), controller.view().get("DeviceC"));
+
+    controller.simulate();
+    SimulationView second = controller.view();
+    // devices don't move, so only those whose files changed are taken again
+    assertSame(first.get("DeviceC"), second.get("DeviceC"));
+    assertNotSame(first.get("Satellite1"), second.get("Satellite1"));
+
+    controller.addFileToDevice("DeviceC", "FileC", "Hello");
+    assertNotSame(second.get("DeviceC"), controller.view().get("DeviceC"));
+  }
+}
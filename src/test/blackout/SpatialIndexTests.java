@@ -0,0 +1,104 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import unsw.blackout.DeviceSatellite;
+import unsw.blackout.HandheldDevice;
+import unsw.blackout.SpatialIndex;
+import unsw.blackout.StandardSatellite;
+import unsw.utils.Angle;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static unsw.utils.MathsHelper.RADIUS_OF_JUPITER;
+import static unsw.utils.MathsHelper.getCartesianDistance;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+@TestInstance(value = Lifecycle.PER_CLASS)
+public class SpatialIndexTests {
+  private static final double[] RANGES = {1000, 50000, 150000, 400000};
+
+  private static List<DeviceSatellite> createEntities(Random random, int count) {
+    List<DeviceSatellite> entities = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      Angle position = Angle.fromDegrees(random.nextDouble() * 360);
+      if (i % 3 == 0) {
+        entities.add(new HandheldDevice("Device" + i, "HandheldDevice", position));
+      } else {
+        double height = RADIUS_OF_JUPITER + random.nextDouble() * 200000;
+        entities.add(new StandardSatellite("Satellite" + i, "StandardSatellite", height, position));
+      }
+    }
+    return entities;
+  }
+
+  /**
+   * Checks the index against every pair worked out the slow way, since it may
+   * return too much but must never miss anything in range.
+   */
+  private static void assertFindsEverythingInRange(SpatialIndex index, List<DeviceSatellite> entities) {
+    for (DeviceSatellite entity : entities) {
+      for (double range : RANGES) {
+        Set<DeviceSatellite> candidates = new HashSet<>(index.findCandidates(entity, range));
+        for (DeviceSatellite other : entities) {
+          double distance = getCartesianDistance(entity.getX(), entity.getY(), other.getX(), other.getY());
+          if (other != entity && distance < range) {
+            assertTrue(candidates.contains(other),
+                other.getId() + " is " + distance + " from " + entity.getId() + " but wasn't a candidate");
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testCandidatesIncludeEverythingInRange() {
+    Random random = new Random(1);
+    List<DeviceSatellite> entities = createEntities(random, 300);
+    SpatialIndex index = new SpatialIndex();
+    index.ensureCapacity(entities.size());
+    entities.forEach(index::add);
+
+    assertFindsEverythingInRange(index, entities);
+  }
+
+  @Test
+  public void testCandidatesFollowEntitiesThatMove() {
+    Random random = new Random(2);
+    List<DeviceSatellite> entities = createEntities(random, 200);
+    SpatialIndex index = new SpatialIndex();
+    entities.forEach(index::add);
+
+    for (int round = 0; round < 5; round++) {
+      for (DeviceSatellite entity : entities) {
+        entity.setPositionRadians(entity.getPositionRadians() + random.nextDouble() - 0.5);
+        if (entity instanceof StandardSatellite) {
+          entity.setHeight(RADIUS_OF_JUPITER + random.nextDouble() * 200000);
+        }
+        index.update(entity);
+      }
+      assertFindsEverythingInRange(index, entities);
+    }
+  }
+
+  @Test
+  public void testRemovedEntitiesAreNoLongerCandidates() {
+    List<DeviceSatellite> entities = createEntities(new Random(3), 50);
+    SpatialIndex index = new SpatialIndex();
+    entities.forEach(index::add);
+    List<DeviceSatellite> removed = entities.subList(0, 25);
+    removed.forEach(index::remove);
+
+    for (DeviceSatellite entity : entities) {
+      List<DeviceSatellite> candidates = index.findCandidates(entity, Double.MAX_VALUE);
+      assertTrue(removed.stream().noneMatch(candidates::contains));
+      assertTrue(candidates.containsAll(entities.subList(25, 50)));
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import unsw.blackout.BlackoutController;
+import unsw.blackout.Files;
+import unsw.blackout.HandheldDevice;
+import unsw.blackout.StandardSatellite;
+import unsw.response.models.FileInfoResponse;
+import unsw.utils.Angle;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static unsw.utils.MathsHelper.RADIUS_OF_JUPITER;
+
+import java.util.List;
+import java.util.Map;
+
+@TestInstance(value = Lifecycle.PER_CLASS)
+public class StorageTests {
+  private final HandheldDevice device = new HandheldDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(320));
+
+  private StandardSatellite createSatellite() {
+    return new StandardSatellite("Satellite1", "StandardSatellite", 1000 + RADIUS_OF_JUPITER, Angle.fromDegrees(320));
+  }
+
+  @Test
+  public void testStoredBytesFollowFilesAddedAndRemoved() {
+    StandardSatellite satellite = createSatellite();
+    assertEquals(0, satellite.getStoredBytes());
+
+    Files first = new Files("File1", 0, "Hello there", device, satellite);
+    Files second = new Files("File2", 0, "General Kenobi", device, satellite);
+    satellite.addFile(first);
+    satellite.addFile(second);
+    // files still being recieved count for their whole size
+    assertEquals(25, satellite.getStoredBytes());
+    assertEquals(2, satellite.getNumberOfFiles());
+
+    satellite.setNumFilesDownloading(2);
+    device.setNumFilesUploading(2);
+    satellite.removeIncompleteFile(first, satellite, device);
+    assertEquals(14, satellite.getStoredBytes());
+    assertEquals(List.of(second), List.copyOf(satellite.getFiles()));
+
+    // a file that isn't stored any more doesn't change anything
+    satellite.removeIncompleteFile(first, satellite, device);
+    assertEquals(14, satellite.getStoredBytes());
+    assertEquals(1, satellite.getNumFilesDownloading());
+  }
+
+  @Test
+  public void testAddingAFileWithTheSameNameReplacesIt() {
+    StandardSatellite satellite = createSatellite();
+    Files original = new Files("File1", 0, "Hello there", device, satellite);
+    Files replacement = new Files("File1", 0, "Hi", device, satellite);
+    satellite.addFile(original);
+    satellite.addFile(replacement);
+
+    assertEquals(1, satellite.getNumberOfFiles());
+    assertEquals(2, satellite.getStoredBytes());
+    assertSame(replacement, satellite.findFileinList("File1"));
+  }
+
+  @Test
+  public void testResizingOnlyCountsFilesStoredHere() {
+    StandardSatellite satellite = createSatellite();
+    Files stored = new Files("File1", 0, "Hello there", device, satellite);
+    Files replaced = new Files("File1", 0, "Hello", device, satellite);
+    satellite.addFile(replaced);
+    satellite.addFile(stored);
+
+    satellite.resizeFile(stored, 4);
+    assertEquals(4, satellite.getStoredBytes());
+    assertEquals(4, stored.getSize());
+
+    // a file that was replaced keeps its own size but doesn't count any more
+    satellite.resizeFile(replaced, 1);
+    assertEquals(4, satellite.getStoredBytes());
+    assertEquals(1, replaced.getSize());
+  }
+
+  @Test
+  public void testDeviceShowsOnlyTheLatestFileWithAName() {
+    BlackoutController controller = new BlackoutController();
+    controller.createDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(320));
+    controller.addFileToDevice("DeviceA", "FileA", "Hello there");
+    controller.addFileToDevice("DeviceA", "FileB", "Goodbye");
+    controller.addFileToDevice("DeviceA", "FileA", "Hi");
+
+    Map<String, FileInfoResponse> files = controller.getInfo("DeviceA").getFiles();
+    assertEquals(Map.of("FileA", new FileInfoResponse("FileA", "Hi", 2, true), "FileB",
+        new FileInfoResponse("FileB", "Goodbye", 7, true)), files);
+  }
+
+  @Test
+  public void testReplacingAFileBeingRecievedCancelsItsTransfer() {
+    BlackoutController controller = new BlackoutController();
+    controller.createSatellite("Satellite1", "StandardSatellite", 1000 + RADIUS_OF_JUPITER, Angle.fromDegrees(320));
+    controller.createDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(320));
+    controller.createDevice("DeviceB", "HandheldDevice", Angle.fromDegrees(320));
+    controller.addFileToDevice("DeviceA", "FileA", "Hi");
+    assertDoesNotThrow(() -> controller.sendFile("FileA", "DeviceA", "Satellite1"));
+    controller.simulate(2);
+    assertDoesNotThrow(() -> controller.sendFile("FileA", "Satellite1", "DeviceB"));
+    controller.simulate();
+    assertEquals(1, controller.getObject("Satellite1").getNumFilesUploading());
+
+    controller.addFileToDevice("DeviceB", "FileA", "Hello there");
+    assertEquals(0, controller.getObject("Satellite1").getNumFilesUploading());
+    assertEquals(0, controller.getObject("DeviceB").getNumFilesDownloading());
+    assertEquals(11, controller.getObject("DeviceB").getStoredBytes());
+
+    // the old transfer doesn't write over the new file
+    controller.simulate(2);
+    assertEquals(new FileInfoResponse("FileA", "Hello there", 11, true),
+        controller.getInfo("DeviceB").getFiles().get("FileA"));
+  }
+}
@@ -0,0 +1,139 @@
+package blackout;
+
+import com.google.gson.Gson;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import unsw.TickStream;
+import unsw.blackout.BlackoutController;
+import unsw.utils.Angle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static unsw.utils.MathsHelper.RADIUS_OF_JUPITER;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+@TestInstance(value = Lifecycle.PER_CLASS)
+public class TickStreamTests {
+  /**
+   * Collects what a subscriber writes, hanging up after the given number of
+   * events like a client going away.
+   */
+  private static final class Client extends OutputStream {
+    private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+    private int eventsLeft;
+
+    Client(int events) {
+      this.eventsLeft = events;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      written.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      written.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      if (--eventsLeft == 0) {
+        throw new IOException("hung up");
+      }
+    }
+
+    String[] events() {
+      return written.toString(StandardCharsets.UTF_8).split("\n\n");
+    }
+  }
+
+  private BlackoutController createScenario() {
+    BlackoutController controller = new BlackoutController();
+    controller.createSatellite("Satellite1", "StandardSatellite", 1000 + RADIUS_OF_JUPITER, Angle.fromDegrees(320));
+    controller.createDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(320));
+    return controller;
+  }
+
+  @Test
+  public void testSubscribersGetASnapshotThenTicks() throws InterruptedException {
+    BlackoutController controller = createScenario();
+    TickStream stream = new TickStream(new Gson());
+    controller.addTickListener(stream);
+    TickStream.Subscriber first = stream.subscribe(controller);
+    TickStream.Subscriber second = stream.subscribe(controller);
+    controller.simulate();
+    controller.simulate();
+
+    for (TickStream.Subscriber subscriber : new TickStream.Subscriber[] {first, second}) {
+      Client client = new Client(3);
+      assertThrows(IOException.class, () -> subscriber.streamTo(client));
+      String[] events = client.events();
+      assertEquals(3, events.length);
+      assertTrue(events[0].startsWith("event: snapshot\ndata: {"));
+      assertTrue(events[0].contains("\"Satellite1\""));
+      assertTrue(events[1].startsWith("event: tick\ndata: {"));
+      assertTrue(events[2].startsWith("event: tick\ndata: {"));
+    }
+  }
+
+  @Test
+  public void testNewEntitiesSendANewSnapshot() throws InterruptedException {
+    BlackoutController controller = createScenario();
+    TickStream stream = new TickStream(new Gson());
+    controller.addTickListener(stream);
+    TickStream.Subscriber subscriber = stream.subscribe(controller);
+    controller.createDevice("DeviceB", "LaptopDevice", Angle.fromDegrees(100));
+    controller.simulate();
+
+    Client client = new Client(2);
+    assertThrows(IOException.class, () -> subscriber.streamTo(client));
+    String[] events = client.events();
+    assertTrue(events[1].startsWith("event: snapshot\ndata: {"));
+    assertTrue(events[1].contains("\"DeviceB\""));
+  }
+
+  @Test
+  public void testSnapshotIsOfTheSimulationWhenItWasMade() {
+    BlackoutController controller = createScenario();
+    TickStream stream = new TickStream(new Gson());
+    controller.addTickListener(stream);
+    TickStream.Subscriber subscriber = stream.subscribe(controller);
+    // the snapshot's JSON is only written once it's sent, after these
+    controller.createDevice("DeviceB", "LaptopDevice", Angle.fromDegrees(100));
+    controller.addFileToDevice("DeviceA", "FileA", "Hello");
+
+    Client client = new Client(1);
+    assertThrows(IOException.class, () -> subscriber.streamTo(client));
+    String[] events = client.events();
+    assertEquals(1, events.length);
+    assertTrue(events[0].contains("\"DeviceA\""));
+    assertFalse(events[0].contains("\"DeviceB\""));
+    assertFalse(events[0].contains("\"FileA\""));
+  }
+
+  @Test
+  public void testSubscriberThatFallsBehindIsDisconnected() throws IOException, InterruptedException {
+    BlackoutController controller = createScenario();
+    TickStream stream = new TickStream(new Gson());
+    controller.addTickListener(stream);
+    TickStream.Subscriber subscriber = stream.subscribe(controller);
+    for (int minute = 0; minute < 300; minute++) {
+      controller.simulate();
+    }
+
+    // nothing more is written to a subscriber once it's disconnected
+    Client client = new Client(-1);
+    subscriber.streamTo(client);
+    assertEquals(0, client.written.size());
+  }
+}
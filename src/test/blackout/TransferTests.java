@@ -0,0 +1,63 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import unsw.blackout.BlackoutController;
+import unsw.blackout.Files;
+import unsw.blackout.HandheldDevice;
+import unsw.blackout.StandardSatellite;
+import unsw.response.models.FileInfoResponse;
+import unsw.utils.Angle;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static unsw.utils.MathsHelper.RADIUS_OF_JUPITER;
+
+@TestInstance(value = Lifecycle.PER_CLASS)
+public class TransferTests {
+  @Test
+  public void testTransferNeverMovesBackwards() {
+    HandheldDevice device = new HandheldDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(320));
+    StandardSatellite satellite = new StandardSatellite("Satellite1", "StandardSatellite", 1000 + RADIUS_OF_JUPITER,
+        Angle.fromDegrees(320));
+    Files file = new Files("FileA", 0, "Hello there", device, satellite);
+    device.setNumFilesUploading(1);
+    satellite.setNumFilesDownloading(1);
+    file.updateFileTransfer();
+    assertEquals(1, file.getBytesTransmitted());
+
+    // a sender whose file counts have gone wrong has a negative upload speed
+    device.setNumFilesUploading(-1);
+    assertThrows(IllegalStateException.class, file::updateFileTransfer);
+    assertEquals(1, file.getBytesTransmitted());
+    assertEquals("H", file.getPresentContent());
+  }
+
+  @Test
+  public void testUploadCancelledByTeleportGivesBandwidthBackOnce() {
+    BlackoutController controller = new BlackoutController();
+
+    // the teleporting satellite teleports while DeviceA is still uploading to
+    // it, which cancels the upload
+    controller.createSatellite("TeleportSatellite", "TeleportingSatellite", 1000 + RADIUS_OF_JUPITER,
+        Angle.fromDegrees(179));
+    controller.createDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(178));
+    controller.addFileToDevice("DeviceA", "FileA", "testing if the teleport tests testability to test");
+    assertDoesNotThrow(() -> controller.sendFile("FileA", "DeviceA", "TeleportSatellite"));
+    controller.simulate(5);
+    assertNull(controller.getInfo("TeleportSatellite").getFiles().get("FileA"));
+    assertEquals(0, controller.getObject("DeviceA").getNumFilesUploading());
+    assertEquals(0, controller.getObject("TeleportSatellite").getNumFilesDownloading());
+
+    // so DeviceA can upload again at full speed
+    controller.createSatellite("Standard", "StandardSatellite", 1000 + RADIUS_OF_JUPITER, Angle.fromDegrees(178));
+    controller.addFileToDevice("DeviceA", "FileB", "Hi");
+    assertDoesNotThrow(() -> controller.sendFile("FileB", "DeviceA", "Standard"));
+    controller.simulate(2);
+    assertEquals(new FileInfoResponse("FileB", "Hi", 2, true), controller.getInfo("Standard").getFiles().get("FileB"));
+  }
+}